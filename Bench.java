@@ -0,0 +1,378 @@
+import tester.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// representing one of the sizes of field that the benchmarks run on
+enum Preset {
+  BEGINNER(9, 9, 10), INTERMEDIATE(16, 16, 40), EXPERT(30, 16, 99), OVERSIZED(1000, 1000, 206250),
+  OPEN(1000, 1000, 1);
+
+  int width;
+  int height;
+  int mines;
+
+  // basic constructor for a field of the given size
+  Preset(int width, int height, int mines) {
+    this.width = width;
+    this.height = height;
+    this.mines = mines;
+  }
+}
+
+// one piece of work to be timed over and over
+interface IBenchCase {
+  // does the work once, and returns something that depends on it so it can't be
+  // skipped
+  Object run();
+}
+
+// generating a new field with its mines
+class GenerateCase implements IBenchCase {
+  Preset preset;
+  Random rand;
+
+  // basic constructor for generating fields of the given size
+  GenerateCase(Preset preset) {
+    this.preset = preset;
+    this.rand = new Random(1);
+  }
+
+  // generates a field
+  public Object run() {
+    return new Minefield(this.preset.width, this.preset.height, this.preset.mines, this.rand);
+  }
+}
+
+// putting a Board back to how it was before a move, which every case that makes a
+// move has to pay for, so its time can be taken away from theirs
+class CopyCase implements IBenchCase {
+  Board template;
+  Board board;
+  int start;
+
+  // basic constructor for copying a seeded field of the given size
+  // the move starts on the square that opens up the most of the field
+  CopyCase(Preset preset) {
+    this.template = new Minefield(preset.width, preset.height, preset.mines, new Random(1)).board;
+    this.board = new Board(preset.width, preset.height);
+    this.start = CopyCase.largestOpening(this.template);
+  }
+
+  // copies the field
+  public Object run() {
+    System.arraycopy(this.template.cells, 0, this.board.cells, 0, this.board.cells.length);
+    return this.board;
+  }
+
+  // returns the index of the safe square that reveals the most squares when it is
+  // clicked on the given Board
+  static int largestOpening(Board template) {
+    return OpeningIndex.largestStart(template);
+  }
+}
+
+// revealing the largest opening on a field
+class RevealCase extends CopyCase {
+
+  // basic constructor for revealing the largest opening on a field of the given size
+  RevealCase(Preset preset) {
+    super(preset);
+  }
+
+  // copies the field and reveals the opening
+  public Object run() {
+    super.run();
+    return this.board.reveal(this.start);
+  }
+}
+
+// revealing the largest opening on a field from an OpeningIndex made beforehand, to
+// compare with searching it out in RevealCase
+class SweepCase extends CopyCase {
+  OpeningIndex index;
+
+  // basic constructor for sweeping the largest opening on a field of the given size
+  SweepCase(Preset preset) {
+    super(preset);
+    this.index = new OpeningIndex(this.template);
+  }
+
+  // copies the field and sweeps the opening
+  public Object run() {
+    super.run();
+    return this.index.reveal(this.board, this.start);
+  }
+}
+
+// revealing the largest opening of a copy of a seeded field, spread over the threads of
+// the common pool
+class ParallelRevealCase extends CopyCase {
+
+  // basic constructor for revealing the largest opening on a field of the given size
+  ParallelRevealCase(Preset preset) {
+    super(preset);
+  }
+
+  // copies the field and reveals the opening over many threads
+  public Object run() {
+    super.run();
+    return new ParallelReveal(this.board).reveal(this.start);
+  }
+}
+
+// left-clicking the largest opening in a new game
+class LeftClickCase extends CopyCase {
+  int mines;
+
+  // basic constructor for clicking the largest opening on a field of the given size
+  LeftClickCase(Preset preset) {
+    super(preset);
+    this.mines = preset.mines;
+  }
+
+  // copies the field, starts a game on it, moves the window over the opening and
+  // clicks it
+  public Object run() {
+    super.run();
+    MineSweeper game = new MineSweeper(new Minefield(this.board, this.mines));
+    int row = this.start / this.board.width;
+    int col = this.start % this.board.width;
+    game.camera.centerOn(row, col);
+    game.handleLeftClick(game.camera.posnOf(row, col));
+    return game;
+  }
+}
+
+// checking whether a game that is being played has ended, which draws the scene
+class WorldEndsCase implements IBenchCase {
+  MineSweeper game;
+
+  // basic constructor for a game of the given size whose largest opening has been
+  // revealed and drawn
+  WorldEndsCase(Preset preset) {
+    Minefield field = new Minefield(preset.width, preset.height, preset.mines, new Random(1));
+    field.revealCell(CopyCase.largestOpening(field.board));
+    this.game = new MineSweeper(field);
+    this.game.makeScene();
+  }
+
+  // checks whether the game has ended
+  public Object run() {
+    return this.game.worldEnds();
+  }
+}
+
+// letting a game sit for a tick, and drawing it
+class IdleTickCase extends WorldEndsCase {
+
+  // basic constructor for a game of the given size that is left alone
+  IdleTickCase(Preset preset) {
+    super(preset);
+  }
+
+  // moves the timer on and checks whether the game has ended
+  public Object run() {
+    this.game.onTick();
+    return this.game.worldEnds();
+  }
+}
+
+// drawing the scene after a single square has changed
+class MakeSceneCase extends WorldEndsCase {
+  int idx;
+
+  // basic constructor for a game of the given size, which flags and unflags a square
+  // that hasn't been revealed
+  MakeSceneCase(Preset preset) {
+    super(preset);
+    this.idx = 0;
+    while (this.game.field.board.isRevealed(this.idx)) {
+      this.idx++;
+    }
+  }
+
+  // changes the flag on the square and draws the scene
+  public Object run() {
+    this.game.field.flagCell(this.idx);
+    return this.game.makeScene();
+  }
+}
+
+// drawing the scene after a single square has changed, painted into a single image of
+// pixels
+class RasterSceneCase extends MakeSceneCase {
+
+  // basic constructor for a game of the given size drawn by a RasterRenderer
+  RasterSceneCase(Preset preset) {
+    super(preset);
+    this.game.useRaster(true);
+    this.game.makeScene();
+  }
+}
+
+// representing the measurements of one case
+class BenchResult {
+  String name;
+  long ops;
+  long nanos;
+  long bytes;
+
+  // basic constructor for the given measurements
+  BenchResult(String name, long ops, long nanos, long bytes) {
+    this.name = name;
+    this.ops = ops;
+    this.nanos = nanos;
+    this.bytes = bytes;
+  }
+
+  // returns how long one run took, on average
+  double nanosPerOp() {
+    return (double) this.nanos / this.ops;
+  }
+
+  // returns how many bytes one run allocated, on average
+  double bytesPerOp() {
+    return (double) this.bytes / this.ops;
+  }
+
+  // returns how many megabytes were allocated each second
+  double allocationRate() {
+    return this.bytes * 1e3 / this.nanos;
+  }
+
+  // describes the measurements in a single line
+  String report() {
+    return String.format("%-28s %14.1f ns/op %14.1f B/op %10.1f MB/s", this.name,
+        this.nanosPerOp(), this.bytesPerOp(), this.allocationRate());
+  }
+}
+
+// a benchmark for generating fields, revealing openings, clicking, checking for the
+// end of the game and drawing, over every Preset
+// each case is run for a warmup period and then timed over batches that double in
+// size until the measuring period is up, and the bytes the thread allocated are
+// counted alongside the time, so changes to the hot paths have a before and after
+// to compare
+// run with the javalib and tester jars on the classpath:
+//   java -cp .:javalib.jar:tester.jar Bench [warmup ms] [measure ms] [name filter]
+// CopyCase is the cost of putting the field back before each move, to be taken away
+// from the cases that make one
+class Bench {
+  static Object sink;
+
+  // runs every case that matches the filter, and prints a line for each
+  public static void main(String[] args) {
+    long warmup = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+    long measure = args.length > 1 ? Long.parseLong(args[1]) : 3000;
+    String filter = args.length > 2 ? args[2] : "";
+    for (Preset preset : Preset.values()) {
+      IBenchCase[] cases = new IBenchCase[] { new GenerateCase(preset), new CopyCase(preset),
+          new RevealCase(preset), new SweepCase(preset), new ParallelRevealCase(preset),
+          new LeftClickCase(preset), new WorldEndsCase(preset), new IdleTickCase(preset),
+          new MakeSceneCase(preset), new RasterSceneCase(preset) };
+      for (IBenchCase c : cases) {
+        String name = c.getClass().getSimpleName() + " " + preset;
+        if (name.contains(filter)) {
+          System.out.println(Bench.measure(name, c, warmup * 1000000, measure * 1000000).report());
+        }
+      }
+    }
+  }
+
+  // runs the given case for the warmup period, then times it for the measuring period
+  static BenchResult measure(String name, IBenchCase c, long warmupNanos, long measureNanos) {
+    Bench.runFor(c, warmupNanos);
+    long bytes = Bench.allocatedBytes();
+    long start = System.nanoTime();
+    long ops = Bench.runFor(c, measureNanos);
+    long nanos = System.nanoTime() - start;
+    return new BenchResult(name, ops, nanos, Bench.allocatedBytes() - bytes);
+  }
+
+  // runs the given case in batches that double in size until the given time is up,
+  // and returns how many times it ran
+  static long runFor(IBenchCase c, long nanos) {
+    long end = System.nanoTime() + nanos;
+    long ops = 0;
+    long batch = 1;
+    do {
+      for (long i = 0; i < batch; i++) {
+        Bench.sink = c.run();
+      }
+      ops += batch;
+      batch *= 2;
+    } while (System.nanoTime() < end);
+    return ops;
+  }
+
+  // returns how many bytes this thread has allocated so far
+  static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
+
+class ExamplesBench {
+
+  // tests largestOpening
+  void testLargestOpening(Tester t) {
+    Board board = new Board(5, 3);
+    board.placeMine(board.index(1, 1));
+    board.placeMine(board.index(0, 2));
+    board.placeMine(board.index(2, 2));
+    t.checkExpect(CopyCase.largestOpening(board), 4);
+    t.checkExpect(board.isRevealed(3), false);
+    t.checkExpect(CopyCase.largestOpening(new Board(2, 2)), 0);
+    // the numbered squares around an opening are counted with it, even when they come
+    // before it
+    // 0 | . . . *
+    // 1 | . * . .
+    // 2 | . . . .
+    Board late = new Board(4, 3);
+    late.placeMine(late.index(0, 3));
+    late.placeMine(late.index(1, 1));
+    t.checkExpect(CopyCase.largestOpening(late), late.index(2, 3));
+  }
+
+  // tests run on each case
+  void testCases(Tester t) {
+    RevealCase reveal = new RevealCase(Preset.EXPERT);
+    t.checkExpect(reveal.run(), reveal.run());
+    t.checkExpect(reveal.template.isRevealed(reveal.start), false);
+    SweepCase sweep = new SweepCase(Preset.EXPERT);
+    t.checkExpect(sweep.run(), reveal.run());
+    t.checkExpect(sweep.board.cells, reveal.board.cells);
+    ParallelRevealCase parallel = new ParallelRevealCase(Preset.EXPERT);
+    t.checkExpect(parallel.run(), reveal.run());
+    t.checkExpect(parallel.board.cells, reveal.board.cells);
+    LeftClickCase click = new LeftClickCase(Preset.BEGINNER);
+    MineSweeper game = (MineSweeper) click.run();
+    t.checkExpect(game.field.board.isRevealed(click.start), true);
+    t.checkExpect(game.field.revealedCount(), new RevealCase(Preset.BEGINNER).run());
+    MakeSceneCase scene = new MakeSceneCase(Preset.BEGINNER);
+    scene.run();
+    t.checkExpect(scene.game.field.board.isFlagged(scene.idx), true);
+    scene.run();
+    t.checkExpect(scene.game.field.board.isFlagged(scene.idx), false);
+    IdleTickCase idle = new IdleTickCase(Preset.BEGINNER);
+    idle.run();
+    t.checkExpect(idle.game.ticks, 1);
+    RasterSceneCase raster = new RasterSceneCase(Preset.BEGINNER);
+    raster.run();
+    t.checkExpect(raster.game.renderer instanceof RasterRenderer, true);
+    t.checkExpect(raster.game.renderer.dirtyCells.isEmpty(), true);
+    t.checkExpect(new GenerateCase(Preset.BEGINNER).run() instanceof Minefield, true);
+  }
+
+  // tests measure and BenchResult
+  void testMeasure(Tester t) {
+    BenchResult result = Bench.measure("generate", new GenerateCase(Preset.BEGINNER), 0, 1000000);
+    t.checkExpect(result.ops > 0, true);
+    t.checkExpect(result.bytes > 0, true);
+    BenchResult fixed = new BenchResult("fixed", 4, 2000, 400);
+    t.checkInexact(fixed.nanosPerOp(), 500.0, 0.001);
+    t.checkInexact(fixed.bytesPerOp(), 100.0, 0.001);
+    t.checkInexact(fixed.allocationRate(), 200.0, 0.001);
+  }
+}
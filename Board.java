@@ -0,0 +1,483 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import tester.*;
+
+// representing something that needs to know when a square of a Board changes
+interface IBoardListener {
+  // handles a change to the square at the given index
+  void cellChanged(int idx);
+}
+
+// representing the squares of a MineSweeper field, with the state of each square
+// packed into a single byte and stored row by row in one flat array
+// (the square at row i and column j lives at index i * width + j)
+class Board {
+  // the number of mines next to the square
+  static final int ADJACENT = 0x0F;
+  // set when the square holds a mine
+  static final int MINE = 0x10;
+  // set when the square has been flagged by the player
+  static final int FLAG = 0x20;
+  // set when the square has been revealed by the player
+  static final int REVEALED = 0x40;
+
+  int width;
+  int height;
+  byte[] cells;
+  ArrayList<IBoardListener> listeners;
+
+  // basic constructor for an empty Board with no mines, flags or revealed squares
+  Board(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.cells = new byte[width * height];
+    this.listeners = new ArrayList<IBoardListener>();
+  }
+
+  // returns the number of squares on this Board
+  int size() {
+    return this.cells.length;
+  }
+
+  // returns the index of the square at the given row and column
+  int index(int row, int col) {
+    return row * this.width + col;
+  }
+
+  // returns whether the given coordinates are within this Board's boundaries
+  boolean onBoard(int row, int col) {
+    return (0 <= row && row < this.height) && (0 <= col && col < this.width);
+  }
+
+  // does the square at the given index hold a mine?
+  boolean isMine(int idx) {
+    return (this.cells[idx] & MINE) != 0;
+  }
+
+  // is the square at the given index flagged?
+  boolean isFlagged(int idx) {
+    return (this.cells[idx] & FLAG) != 0;
+  }
+
+  // is the square at the given index revealed?
+  boolean isRevealed(int idx) {
+    return (this.cells[idx] & REVEALED) != 0;
+  }
+
+  // returns the number of mines next to the square at the given index
+  int adjacentMines(int idx) {
+    return this.cells[idx] & ADJACENT;
+  }
+
+  // tells every listener that the square at the given index has changed
+  void changed(int idx) {
+    for (int i = 0; i < this.listeners.size(); i++) {
+      this.listeners.get(i).cellChanged(idx);
+    }
+  }
+
+  // places a mine on the square at the given index
+  // EFFECT: Sets the mine bit of the square, and adds one to the count of every
+  // neighboring square
+  void placeMine(int idx) {
+    if (!this.isMine(idx)) {
+      this.cells[idx] |= MINE;
+      this.changed(idx);
+      this.addToNeighbors(idx, 1);
+    }
+  }
+
+  // removes the mine from the square at the given index
+  // EFFECT: Clears the mine bit of the square, and takes one from the count of every
+  // neighboring square
+  void removeMine(int idx) {
+    if (this.isMine(idx)) {
+      this.cells[idx] &= ~MINE;
+      this.changed(idx);
+      this.addToNeighbors(idx, -1);
+    }
+  }
+
+  // moves the mine on the square at the first index to the square at the second index
+  // EFFECT: Updates the mine bits and the counts around both squares
+  void moveMine(int from, int to) {
+    if (this.isMine(from) && !this.isMine(to)) {
+      this.removeMine(from);
+      this.placeMine(to);
+    }
+  }
+
+  // adds the given amount to the mine count of every square next to the given index
+  // EFFECT: Changes the adjacency bits of the neighboring squares
+  void addToNeighbors(int idx, int amount) {
+    int row = idx / this.width;
+    int col = idx % this.width;
+    int lastRow = Math.min(row + 1, this.height - 1);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, this.width - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int n = this.index(r, firstCol); n <= this.index(r, lastCol); n++) {
+        if (n != idx) {
+          this.cells[n] += amount;
+          this.changed(n);
+        }
+      }
+    }
+  }
+
+  // flags or unflags the square at the given index
+  // EFFECT: Sets or clears the flag bit of the square
+  void setFlagged(int idx, boolean flagged) {
+    if (flagged == this.isFlagged(idx)) {
+      return;
+    }
+    if (flagged) {
+      this.cells[idx] |= FLAG;
+    }
+    else {
+      this.cells[idx] &= ~FLAG;
+    }
+    this.changed(idx);
+  }
+
+  // reveals the square at the given index, and the squares around it if it has no
+  // neighboring mines, returning how many squares were newly revealed
+  // flagged and already revealed squares are left alone
+  // the opening is walked breadth-first with an explicit work queue, and the revealed
+  // bit doubles as the visited mark, so each square is queued and counted at most once
+  // EFFECT: Marks the square, and possibly its surroundings, as revealed
+  int reveal(int idx) {
+    if ((this.cells[idx] & (REVEALED | FLAG)) != 0) {
+      return 0;
+    }
+    this.cells[idx] |= REVEALED;
+    this.changed(idx);
+    if ((this.cells[idx] & (MINE | ADJACENT)) != 0) {
+      return 1;
+    }
+    int count = 1;
+    IntQueue work = new IntQueue();
+    work.add(idx);
+    while (!work.isEmpty()) {
+      int next = work.remove();
+      int row = next / this.width;
+      int col = next % this.width;
+      int lastRow = Math.min(row + 1, this.height - 1);
+      int firstCol = Math.max(col - 1, 0);
+      int lastCol = Math.min(col + 1, this.width - 1);
+      for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+        for (int n = this.index(r, firstCol); n <= this.index(r, lastCol); n++) {
+          if ((this.cells[n] & (REVEALED | FLAG)) == 0) {
+            this.cells[n] |= REVEALED;
+            this.changed(n);
+            count++;
+            if ((this.cells[n] & (MINE | ADJACENT)) == 0) {
+              work.add(n);
+            }
+          }
+        }
+      }
+    }
+    return count;
+  }
+}
+
+// representing a first-in first-out queue of ints, kept in a ring buffer that
+// doubles in size when it fills up
+class IntQueue {
+  int[] items;
+  int head;
+  int size;
+
+  // basic constructor for an empty IntQueue
+  IntQueue() {
+    this.items = new int[16];
+    this.head = 0;
+    this.size = 0;
+  }
+
+  // is this IntQueue empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // adds the given int to the back of this IntQueue
+  // EFFECT: Stores the int, growing the buffer if it is full
+  void add(int i) {
+    if (this.size == this.items.length) {
+      int[] bigger = new int[this.items.length * 2];
+      for (int k = 0; k < this.size; k++) {
+        bigger[k] = this.items[(this.head + k) & (this.items.length - 1)];
+      }
+      this.items = bigger;
+      this.head = 0;
+    }
+    this.items[(this.head + this.size) & (this.items.length - 1)] = i;
+    this.size++;
+  }
+
+  // removes and returns the int at the front of this IntQueue
+  // EFFECT: Drops the front int from this IntQueue
+  int remove() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Queue is empty");
+    }
+    int i = this.items[this.head];
+    this.head = (this.head + 1) & (this.items.length - 1);
+    this.size--;
+    return i;
+  }
+
+  // returns the int the given number of places from the front of this IntQueue
+  int get(int k) {
+    if (k < 0 || k >= this.size) {
+      throw new IllegalArgumentException("No item at that place in the queue");
+    }
+    return this.items[(this.head + k) & (this.items.length - 1)];
+  }
+}
+
+class ExamplesBoard {
+
+  Board board1;
+  Board board2;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 3x3 board with a single mine in the top left corner
+    board1 = new Board(3, 3);
+    board1.placeMine(0);
+    // 4x2 board with no mines
+    board2 = new Board(4, 2);
+  }
+
+  // tests size
+  void testSize(Tester t) {
+    reset();
+    t.checkExpect(board1.size(), 9);
+    t.checkExpect(board2.size(), 8);
+    t.checkExpect(new Board(0, 0).size(), 0);
+  }
+
+  // tests index
+  void testIndex(Tester t) {
+    reset();
+    t.checkExpect(board1.index(0, 0), 0);
+    t.checkExpect(board1.index(1, 2), 5);
+    t.checkExpect(board2.index(1, 0), 4);
+    t.checkExpect(board2.index(1, 3), 7);
+  }
+
+  // tests onBoard
+  void testOnBoard(Tester t) {
+    reset();
+    t.checkExpect(board2.onBoard(0, 0), true);
+    t.checkExpect(board2.onBoard(1, 3), true);
+    t.checkExpect(board2.onBoard(2, 0), false);
+    t.checkExpect(board2.onBoard(0, 4), false);
+    t.checkExpect(board2.onBoard(-1, 0), false);
+    t.checkExpect(board2.onBoard(0, -1), false);
+  }
+
+  // tests placeMine and isMine
+  void testPlaceMine(Tester t) {
+    reset();
+    t.checkExpect(board1.isMine(0), true);
+    t.checkExpect(board1.isMine(1), false);
+    board1.placeMine(1);
+    t.checkExpect(board1.isMine(1), true);
+    t.checkExpect(board1.adjacentMines(4), 2);
+    // placing the same mine twice doesn't count it twice
+    board1.placeMine(1);
+    t.checkExpect(board1.isMine(1), true);
+    t.checkExpect(board1.adjacentMines(4), 2);
+    t.checkExpect(board1.adjacentMines(0), 1);
+    t.checkExpect(board1.adjacentMines(1), 1);
+  }
+
+  // tests removeMine
+  void testRemoveMine(Tester t) {
+    reset();
+    board1.removeMine(0);
+    t.checkExpect(board1.isMine(0), false);
+    t.checkExpect(board1.adjacentMines(1), 0);
+    t.checkExpect(board1.adjacentMines(4), 0);
+    t.checkExpect(board1, new Board(3, 3));
+    // removing a mine that isn't there does nothing
+    board1.removeMine(0);
+    t.checkExpect(board1, new Board(3, 3));
+  }
+
+  // tests moveMine
+  void testMoveMine(Tester t) {
+    reset();
+    board1.moveMine(0, 8);
+    t.checkExpect(board1.isMine(0), false);
+    t.checkExpect(board1.isMine(8), true);
+    t.checkExpect(board1.adjacentMines(1), 0);
+    t.checkExpect(board1.adjacentMines(4), 1);
+    t.checkExpect(board1.adjacentMines(7), 1);
+    t.checkExpect(board1.adjacentMines(0), 0);
+    // moving onto another mine leaves both where they are
+    board1.placeMine(0);
+    board1.moveMine(0, 8);
+    t.checkExpect(board1.isMine(0), true);
+    t.checkExpect(board1.adjacentMines(4), 2);
+  }
+
+  // tests setFlagged and isFlagged
+  void testSetFlagged(Tester t) {
+    reset();
+    t.checkExpect(board2.isFlagged(3), false);
+    board2.setFlagged(3, true);
+    t.checkExpect(board2.isFlagged(3), true);
+    t.checkExpect(board2.isFlagged(2), false);
+    board2.setFlagged(3, false);
+    t.checkExpect(board2.isFlagged(3), false);
+  }
+
+  // tests adjacentMines and addToNeighbors
+  void testAdjacentMines(Tester t) {
+    reset();
+    t.checkExpect(board1.adjacentMines(0), 0);
+    t.checkExpect(board1.adjacentMines(1), 1);
+    t.checkExpect(board1.adjacentMines(4), 1);
+    t.checkExpect(board1.adjacentMines(2), 0);
+    t.checkExpect(board1.adjacentMines(8), 0);
+    board1.placeMine(8);
+    t.checkExpect(board1.adjacentMines(4), 2);
+    t.checkExpect(board1.adjacentMines(5), 1);
+    t.checkExpect(board1.isMine(8), true);
+    board1.addToNeighbors(2, 3);
+    t.checkExpect(board1.adjacentMines(1), 4);
+    t.checkExpect(board1.adjacentMines(5), 4);
+    t.checkExpect(board1.adjacentMines(2), 0);
+    t.checkExpect(board1.isMine(1), false);
+  }
+
+  // tests reveal
+  void testReveal(Tester t) {
+    reset();
+    // revealing a numbered square only reveals that square
+    t.checkExpect(board1.reveal(4), 1);
+    t.checkExpect(board1.isRevealed(4), true);
+    t.checkExpect(board1.isRevealed(8), false);
+    // revealing it again does nothing
+    t.checkExpect(board1.reveal(4), 0);
+    // revealing an empty square opens everything but the mine
+    t.checkExpect(board1.reveal(8), 7);
+    t.checkExpect(board1.isRevealed(0), false);
+    t.checkExpect(board1.isRevealed(2), true);
+    t.checkExpect(board1.isRevealed(6), true);
+    // revealing a mine only reveals the mine
+    t.checkExpect(board1.reveal(0), 1);
+    t.checkExpect(board1.isRevealed(0), true);
+
+    // flagged squares are never revealed
+    board2.setFlagged(5, true);
+    t.checkExpect(board2.reveal(5), 0);
+    t.checkExpect(board2.reveal(0), 7);
+    t.checkExpect(board2.isRevealed(5), false);
+    t.checkExpect(board2.isRevealed(7), true);
+
+    // an opening that wraps around a row of mines is only counted once
+    Board board3 = new Board(5, 5);
+    board3.placeMine(board3.index(2, 2));
+    t.checkExpect(board3.reveal(0), 24);
+    t.checkExpect(board3.isRevealed(board3.index(4, 2)), true);
+    t.checkExpect(board3.isRevealed(board3.index(2, 2)), false);
+    t.checkExpect(board3.reveal(board3.index(4, 0)), 0);
+  }
+
+  // tests changed, and that every change to a square is passed on to listeners
+  void testChanged(Tester t) {
+    reset();
+    ChangeLog log = new ChangeLog();
+    board2.listeners.add(log);
+    board2.changed(6);
+    t.checkExpect(log.changes, new ArrayList<Integer>(Arrays.asList(6)));
+    board2.setFlagged(1, true);
+    board2.setFlagged(1, true);
+    board2.setFlagged(1, false);
+    t.checkExpect(log.changes, new ArrayList<Integer>(Arrays.asList(6, 1, 1)));
+    log.changes.clear();
+    board2.placeMine(0);
+    t.checkExpect(log.changes, new ArrayList<Integer>(Arrays.asList(0, 1, 4, 5)));
+    log.changes.clear();
+    board2.reveal(3);
+    t.checkExpect(log.changes, new ArrayList<Integer>(Arrays.asList(3, 2, 6, 7, 1, 5)));
+  }
+
+  // tests reveal on a board too large to flood fill recursively
+  void testRevealHuge(Tester t) {
+    Board huge = new Board(10000, 10000);
+    t.checkExpect(huge.reveal(huge.index(5000, 5000)), 100000000);
+    t.checkExpect(huge.isRevealed(0), true);
+    t.checkExpect(huge.isRevealed(huge.size() - 1), true);
+    t.checkExpect(huge.reveal(0), 0);
+  }
+}
+
+class ExamplesIntQueue {
+
+  // tests add, remove and isEmpty
+  void testIntQueue(Tester t) {
+    IntQueue q = new IntQueue();
+    t.checkExpect(q.isEmpty(), true);
+    q.add(3);
+    q.add(5);
+    t.checkExpect(q.isEmpty(), false);
+    t.checkExpect(q.remove(), 3);
+    q.add(7);
+    t.checkExpect(q.remove(), 5);
+    t.checkExpect(q.remove(), 7);
+    t.checkExpect(q.isEmpty(), true);
+    t.checkException(new IllegalStateException("Queue is empty"), q, "remove");
+  }
+
+  // tests that an IntQueue keeps its order while it grows
+  void testIntQueueGrow(Tester t) {
+    IntQueue q = new IntQueue();
+    for (int i = 0; i < 10; i++) {
+      q.add(i);
+    }
+    for (int i = 0; i < 5; i++) {
+      t.checkExpect(q.remove(), i);
+    }
+    for (int i = 10; i < 50; i++) {
+      q.add(i);
+    }
+    t.checkExpect(q.items.length, 64);
+    for (int i = 5; i < 50; i++) {
+      t.checkExpect(q.remove(), i);
+    }
+    t.checkExpect(q.isEmpty(), true);
+  }
+
+  // tests get
+  void testIntQueueGet(Tester t) {
+    IntQueue q = new IntQueue();
+    for (int i = 0; i < 20; i++) {
+      q.add(i);
+    }
+    q.remove();
+    t.checkExpect(q.get(0), 1);
+    t.checkExpect(q.get(18), 19);
+    t.checkException(new IllegalArgumentException("No item at that place in the queue"), q,
+        "get", 19);
+    t.checkException(new IllegalArgumentException("No item at that place in the queue"), q,
+        "get", -1);
+  }
+}
+
+// records the index of every change it hears about, for testing
+class ChangeLog implements IBoardListener {
+  ArrayList<Integer> changes = new ArrayList<Integer>();
+
+  // records the index of the changed square
+  public void cellChanged(int idx) {
+    this.changes.add(idx);
+  }
+}
@@ -0,0 +1,352 @@
+import tester.*;
+import javalib.worldimages.*;
+
+import java.awt.Color;
+
+// representing a drawing of a window of a Board, which follows the changes to it
+// only the squares inside the window are drawn, so fields much bigger than the screen
+// cost as much to draw as the window does, and changes to squares outside the window
+// are let go
+abstract class AWindowRenderer implements IBoardListener {
+  Board board;
+  // the row and column of the top right square of the window, and its size in squares
+  int firstRow;
+  int firstCol;
+  int numRows;
+  int numCols;
+  // the size in pixels the squares are drawn at
+  int cellSize;
+  IntQueue dirtyCells;
+
+  // basic constructor for drawing the given window of the given Board with squares of
+  // the given size, and following the changes to it
+  AWindowRenderer(Board board, int firstRow, int firstCol, int numRows, int numCols,
+      int cellSize) {
+    this.board = board;
+    this.cellSize = cellSize;
+    this.resize(firstRow, firstCol, numRows, numCols);
+    this.rebuild();
+    board.listeners.add(this);
+  }
+
+  // moves the window to the given rows and columns of the Board, drawing it from
+  // scratch if it moved, and returns whether it moved
+  // EFFECT: Changes the window, and may redraw all of it
+  boolean moveTo(int firstRow, int firstCol, int numRows, int numCols) {
+    if (firstRow == this.firstRow && firstCol == this.firstCol && numRows == this.numRows
+        && numCols == this.numCols) {
+      return false;
+    }
+    this.resize(firstRow, firstCol, numRows, numCols);
+    this.rebuild();
+    return true;
+  }
+
+  // sets the window to the given rows and columns of the Board
+  // EFFECT: Changes the window
+  void resize(int firstRow, int firstCol, int numRows, int numCols) {
+    this.firstRow = firstRow;
+    this.firstCol = firstCol;
+    this.numRows = numRows;
+    this.numCols = numCols;
+  }
+
+  // remembers that the square at the given index has to be drawn again, if it is
+  // inside the window
+  // EFFECT: Adds the index to the dirty squares
+  public void cellChanged(int idx) {
+    int row = idx / this.board.width - this.firstRow;
+    int col = idx % this.board.width - this.firstCol;
+    if (row >= 0 && row < this.numRows && col >= 0 && col < this.numCols) {
+      this.dirtyCells.add(idx);
+    }
+  }
+
+  // returns the image of the window, first redrawing any squares that changed since
+  // the last time it was drawn
+  // EFFECT: Brings the drawing up to date
+  abstract WorldImage draw();
+
+  // draws every square of the window from scratch
+  // EFFECT: Replaces the drawing, and forgets the dirty squares
+  abstract void rebuild();
+}
+
+// representing a cached image of a window of a Board
+// every row is kept as a balanced tree of BesideImages over its squares, and the rows
+// are stacked in a balanced tree of AboveImages, with each tree stored heap-style in an
+// array (node i has children 2i and 2i + 1)
+// when a square changes, only the images on its path up to the root are rebuilt, so
+// drawing after a click costs time in the number of changed squares, not the field
+class BoardRenderer extends AWindowRenderer {
+  WorldImage[][] rows;
+  WorldImage[] stack;
+  IntQueue dirtyRows;
+  boolean[] rowIsDirty;
+
+  // basic constructor for a BoardRenderer that draws the whole of the given Board and
+  // follows the changes to it
+  BoardRenderer(Board board) {
+    this(board, 0, 0, board.height, board.width);
+  }
+
+  // constructor for a BoardRenderer that draws the given window of the given Board and
+  // follows the changes to it
+  // the squares are always drawn at the normal size, and the window is scaled to zoom
+  BoardRenderer(Board board, int firstRow, int firstCol, int numRows, int numCols) {
+    super(board, firstRow, firstCol, numRows, numCols, Cell.CELL_SIZE);
+  }
+
+  // sets the window to the given rows and columns of the Board, making room for the
+  // images of its squares if its size changed
+  // EFFECT: Changes the window, and may replace the arrays of cached images
+  void resize(int firstRow, int firstCol, int numRows, int numCols) {
+    if (this.rows == null || numRows != this.numRows || numCols != this.numCols) {
+      this.rows = new WorldImage[numRows][4 * numCols + 2];
+      this.stack = new WorldImage[4 * numRows + 2];
+      this.dirtyRows = new IntQueue();
+      this.rowIsDirty = new boolean[numRows];
+    }
+    super.resize(firstRow, firstCol, numRows, numCols);
+  }
+
+  // returns the image of the window, first redrawing any squares that changed since
+  // the last time it was drawn
+  // EFFECT: Brings the cached images up to date
+  WorldImage draw() {
+    if (this.dirtyCells.size > this.numRows * this.numCols / 8) {
+      this.rebuild();
+    }
+    while (!this.dirtyCells.isEmpty()) {
+      int idx = this.dirtyCells.remove();
+      int row = idx / this.board.width - this.firstRow;
+      this.updateRow(row, 1, 0, this.numCols, idx % this.board.width - this.firstCol);
+      if (!this.rowIsDirty[row]) {
+        this.rowIsDirty[row] = true;
+        this.dirtyRows.add(row);
+      }
+    }
+    while (!this.dirtyRows.isEmpty()) {
+      int row = this.dirtyRows.remove();
+      this.rowIsDirty[row] = false;
+      this.updateStack(1, 0, this.numRows, row);
+    }
+    return this.stack[1];
+  }
+
+  // draws every square and row of the window from scratch
+  // EFFECT: Replaces all of the cached images, and forgets the dirty squares
+  void rebuild() {
+    this.dirtyCells = new IntQueue();
+    for (int i = 0; i < this.numRows; i++) {
+      this.buildRow(i, 1, 0, this.numCols);
+    }
+    this.buildStack(1, 0, this.numRows);
+  }
+
+  // draws the square at the given index
+  WorldImage drawSquare(int idx) {
+    return Sprites.forState(this.board.cells[idx]);
+  }
+
+  // builds the node of the given row's tree covering the columns from lo up to hi,
+  // counting rows and columns from the top right of the window
+  // the higher columns are drawn on the left, as they always have been
+  // EFFECT: Stores the images of the node and everything under it
+  WorldImage buildRow(int row, int node, int lo, int hi) {
+    WorldImage image;
+    if (hi - lo == 0) {
+      image = new EmptyImage();
+    }
+    else if (hi - lo == 1) {
+      image = this.drawSquare(this.board.index(this.firstRow + row, this.firstCol + lo));
+    }
+    else {
+      int mid = (lo + hi) / 2;
+      image = new BesideImage(this.buildRow(row, 2 * node + 1, mid, hi),
+          this.buildRow(row, 2 * node, lo, mid));
+    }
+    this.rows[row][node] = image;
+    return image;
+  }
+
+  // redraws the node of the given row's tree covering the columns from lo up to hi,
+  // which contains the given changed column
+  // EFFECT: Replaces the images on the path from the node down to the column
+  WorldImage updateRow(int row, int node, int lo, int hi, int col) {
+    WorldImage image;
+    if (hi - lo == 1) {
+      image = this.drawSquare(this.board.index(this.firstRow + row, this.firstCol + lo));
+    }
+    else {
+      int mid = (lo + hi) / 2;
+      if (col < mid) {
+        image = new BesideImage(this.rows[row][2 * node + 1],
+            this.updateRow(row, 2 * node, lo, mid, col));
+      }
+      else {
+        image = new BesideImage(this.updateRow(row, 2 * node + 1, mid, hi, col),
+            this.rows[row][2 * node]);
+      }
+    }
+    this.rows[row][node] = image;
+    return image;
+  }
+
+  // builds the node of the stack of rows covering the rows from lo up to hi
+  // EFFECT: Stores the images of the node and everything under it
+  WorldImage buildStack(int node, int lo, int hi) {
+    WorldImage image;
+    if (hi - lo == 0) {
+      image = new EmptyImage();
+    }
+    else if (hi - lo == 1) {
+      image = this.rows[lo][1];
+    }
+    else {
+      int mid = (lo + hi) / 2;
+      image = new AboveImage(this.buildStack(2 * node, lo, mid),
+          this.buildStack(2 * node + 1, mid, hi));
+    }
+    this.stack[node] = image;
+    return image;
+  }
+
+  // redraws the node of the stack of rows covering the rows from lo up to hi, which
+  // contains the given changed row
+  // EFFECT: Replaces the images on the path from the node down to the row
+  WorldImage updateStack(int node, int lo, int hi, int row) {
+    WorldImage image;
+    if (hi - lo == 1) {
+      image = this.rows[lo][1];
+    }
+    else {
+      int mid = (lo + hi) / 2;
+      if (row < mid) {
+        image = new AboveImage(this.updateStack(2 * node, lo, mid, row),
+            this.stack[2 * node + 1]);
+      }
+      else {
+        image = new AboveImage(this.stack[2 * node],
+            this.updateStack(2 * node + 1, mid, hi, row));
+      }
+    }
+    this.stack[node] = image;
+    return image;
+  }
+}
+
+class ExamplesBoardRenderer {
+  WorldImage unclicked = new FrameImage(
+      new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY));
+  WorldImage clicked = new FrameImage(
+      new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.DARK_GRAY));
+  WorldImage one = new OverlayImage(new TextImage("1", Color.BLUE), this.clicked);
+  WorldImage flag = new OverlayImage(new CircleImage(5, OutlineMode.SOLID, Color.GREEN),
+      this.unclicked);
+
+  Board board;
+  BoardRenderer renderer;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 3x3 board with a single mine in the bottom right corner
+    board = new Board(3, 3);
+    board.placeMine(8);
+    renderer = new BoardRenderer(board);
+  }
+
+  // draws a row of three squares, the way a BoardRenderer lays them out
+  WorldImage row(WorldImage col0, WorldImage col1, WorldImage col2) {
+    return new BesideImage(new BesideImage(col2, col1), col0);
+  }
+
+  // draws three rows, the way a BoardRenderer stacks them
+  WorldImage stack(WorldImage row0, WorldImage row1, WorldImage row2) {
+    return new AboveImage(row0, new AboveImage(row1, row2));
+  }
+
+  // tests the constructor, which draws the whole Board and listens for changes
+  void testConstructor(Tester t) {
+    reset();
+    WorldImage hidden = this.row(unclicked, unclicked, unclicked);
+    t.checkExpect(renderer.stack[1], this.stack(hidden, hidden, hidden));
+    t.checkExpect(board.listeners.contains(renderer), true);
+    t.checkExpect(renderer.dirtyCells.isEmpty(), true);
+  }
+
+  // tests cellChanged
+  void testCellChanged(Tester t) {
+    reset();
+    renderer.cellChanged(4);
+    t.checkExpect(renderer.dirtyCells.size, 1);
+    board.setFlagged(0, true);
+    t.checkExpect(renderer.dirtyCells.size, 2);
+  }
+
+  // tests draw
+  void testDraw(Tester t) {
+    reset();
+    board.setFlagged(0, true);
+    board.reveal(4);
+    WorldImage hidden = this.row(unclicked, unclicked, unclicked);
+    t.checkExpect(renderer.draw(), this.stack(this.row(flag, unclicked, unclicked),
+        this.row(unclicked, one, unclicked), hidden));
+    t.checkExpect(renderer.dirtyCells.isEmpty(), true);
+    t.checkExpect(renderer.dirtyRows.isEmpty(), true);
+    // rows that didn't change keep the very same image
+    WorldImage lastRow = renderer.rows[2][1];
+    board.setFlagged(0, false);
+    renderer.draw();
+    t.checkExpect(renderer.rows[2][1] == lastRow, true);
+    // a flood fill that changes most of the Board is drawn again from scratch
+    board.reveal(0);
+    t.checkExpect(renderer.draw(), this.stack(this.row(clicked, clicked, clicked),
+        this.row(clicked, one, one), this.row(clicked, one, unclicked)));
+  }
+
+  // tests rebuild
+  void testRebuild(Tester t) {
+    reset();
+    board.cells[0] |= Board.REVEALED;
+    renderer.cellChanged(5);
+    renderer.rebuild();
+    t.checkExpect(renderer.dirtyCells.isEmpty(), true);
+    t.checkExpect(renderer.rows[0][1], this.row(clicked, unclicked, unclicked));
+    t.checkExpect(new BoardRenderer(new Board(0, 0)).draw(), new EmptyImage());
+  }
+
+  // tests drawSquare
+  void testDrawSquare(Tester t) {
+    reset();
+    t.checkExpect(renderer.drawSquare(4), unclicked);
+    board.reveal(4);
+    t.checkExpect(renderer.drawSquare(4), one);
+    board.setFlagged(1, true);
+    t.checkExpect(renderer.drawSquare(1), flag);
+    t.checkExpect(renderer.drawSquare(1) == Sprites.FLAGGED, true);
+  }
+
+  // tests buildRow and updateRow
+  void testRowTree(Tester t) {
+    reset();
+    board.cells[3] |= Board.REVEALED;
+    t.checkExpect(renderer.buildRow(1, 1, 0, 3), this.row(clicked, unclicked, unclicked));
+    t.checkExpect(renderer.buildRow(1, 1, 0, 0), new EmptyImage());
+    board.cells[5] |= Board.REVEALED;
+    t.checkExpect(renderer.updateRow(1, 1, 0, 3, 2), this.row(clicked, unclicked, one));
+    t.checkExpect(renderer.rows[1][1], this.row(clicked, unclicked, one));
+  }
+
+  // tests buildStack and updateStack
+  void testStackTree(Tester t) {
+    reset();
+    WorldImage hidden = this.row(unclicked, unclicked, unclicked);
+    t.checkExpect(renderer.buildStack(1, 0, 3), this.stack(hidden, hidden, hidden));
+    board.cells[7] |= Board.REVEALED;
+    renderer.updateRow(2, 1, 0, 3, 1);
+    t.checkExpect(renderer.updateStack(1, 0, 3, 2),
+        this.stack(hidden, hidden, this.row(unclicked, one, unclicked)));
+  }
+}
@@ -0,0 +1,415 @@
+import tester.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// representing a saved game of MineSweeper in a file, read and written through
+// memory-mapped buffers so only the parts of the file that are used are paged in
+// the file is a header page, holding the size of the field, its counters and how long
+// the game has gone on, followed by one byte for each square in the same layout as a
+// Board, row by row
+// the header page is as big as a page of squares, so every page of squares lines up
+// with a page of the file and with the start of a mapped segment
+// while a game loaded from the store is played, the store listens to its Board and
+// remembers which pages of squares have changed, and saving copies only those pages
+// into the mapping and forces only them and the header out to disk
+// a game is still played on a Board in memory, so loading one copies every square out
+// of the mapping, and the field has to fit in an array just like a new game's does
+// only opening the store, reading its counters and single squares, and saving are
+// limited to the pages they use
+class BoardStore implements IBoardListener {
+  // marks the start of a saved game, and spells MSWP
+  static final int MAGIC = 0x4D535750;
+  static final int VERSION = 1;
+  // how many squares are in each page that is saved or skipped as a whole
+  static final int PAGE = 4096;
+  // how many bytes the header takes up
+  static final int HEADER = PAGE;
+  // how many bytes of the file each mapped buffer covers
+  static final int SEGMENT = 1 << 30;
+
+  FileChannel channel;
+  MappedByteBuffer header;
+  MappedByteBuffer[] segments;
+  int width;
+  int height;
+  // the Board of the game loaded from this store, if there is one
+  Board board;
+  // one bit for each page of squares that has changed since the last save
+  long[] dirty;
+
+  // basic constructor for the saved game in the given file, which maps the file
+  // without reading any of its squares
+  BoardStore(Path path) {
+    try {
+      this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    boolean mapped = false;
+    try {
+      this.map();
+      mapped = true;
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    finally {
+      if (!mapped) {
+        this.abandon();
+      }
+    }
+    this.dirty = new long[((int) ((size() + PAGE - 1) / PAGE) + 63) / 64];
+  }
+
+  // maps the header and the squares of the file
+  // EFFECT: Sets the header, the size of the field and the segments
+  void map() throws IOException {
+    boolean valid = this.channel.size() >= HEADER;
+    if (valid) {
+      this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+      this.width = this.header.getInt(8);
+      this.height = this.header.getInt(12);
+      valid = this.header.getInt(0) == MAGIC && this.header.getInt(4) == VERSION
+          && this.headerFits() && this.channel.size() >= HEADER + this.size();
+    }
+    if (!valid) {
+      throw new IllegalArgumentException("Not a saved MineSweeper game");
+    }
+    long size = this.size();
+    this.segments = new MappedByteBuffer[(int) ((size + SEGMENT - 1) / SEGMENT)];
+    for (int s = 0; s < this.segments.length; s++) {
+      long start = (long) s * SEGMENT;
+      this.segments[s] = this.channel.map(FileChannel.MapMode.READ_WRITE, HEADER + start,
+          Math.min(SEGMENT, size - start));
+    }
+  }
+
+  // closes the file after the constructor failed, keeping the failure that got it
+  // there rather than any from closing
+  // EFFECT: Closes the channel
+  void abandon() {
+    try {
+      this.channel.close();
+    }
+    catch (IOException e) {
+      // the file couldn't be used anyway, and the reason why is already on its way up
+    }
+  }
+
+  // saves the given game in a new file at the given path, and returns the store for
+  // it, which goes on to remember the changes made to the game
+  static BoardStore create(Path path, Minefield field, int ticks) {
+    try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer head = ByteBuffer.allocate(HEADER);
+      head.putInt(0, MAGIC);
+      head.putInt(4, VERSION);
+      head.putInt(8, field.board.width);
+      head.putInt(12, field.board.height);
+      out.write(head);
+      out.write(ByteBuffer.wrap(field.board.cells));
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    BoardStore store = new BoardStore(path);
+    store.attach(field.board);
+    store.save(field, ticks);
+    return store;
+  }
+
+  // is the header one a game could have been saved with: a field at least 2 squares
+  // in each direction, fewer mines than squares, no more squares revealed than are
+  // safe, and a status and time that exist?
+  boolean headerFits() {
+    int status = this.header.getInt(28);
+    return this.width >= 2 && this.height >= 2 && this.numInitMines() >= 0
+        && this.numInitMines() < this.size() && this.cellsClicked() >= 0
+        && this.cellsClicked() <= this.size() - this.numInitMines() && status >= 0
+        && status < GameStatus.values().length && this.ticks() >= 0;
+  }
+
+  // returns how many squares are in the saved game
+  long size() {
+    return (long) this.width * this.height;
+  }
+
+  // returns the byte of the square at the given index, as saved
+  byte cell(long idx) {
+    return this.segments[(int) (idx / SEGMENT)].get((int) (idx % SEGMENT));
+  }
+
+  // returns how many mines the saved game started with
+  int numInitMines() {
+    return this.header.getInt(16);
+  }
+
+  // returns how many mines were left to flag in the saved game
+  int numMines() {
+    return this.header.getInt(20);
+  }
+
+  // returns how many squares without a mine had been revealed in the saved game
+  int cellsClicked() {
+    return this.header.getInt(24);
+  }
+
+  // returns how far along the saved game was
+  GameStatus status() {
+    return GameStatus.values()[this.header.getInt(28)];
+  }
+
+  // returns how long the saved game had gone on
+  int ticks() {
+    return this.header.getInt(32);
+  }
+
+  // returns the saved game, read into memory, whose changes this store goes on to
+  // remember
+  // EFFECT: Replaces the Board that this store listens to
+  Minefield load() {
+    if (this.size() > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Minefield is too large");
+    }
+    Board loaded = new Board(this.width, this.height);
+    for (int s = 0; s < this.segments.length; s++) {
+      ByteBuffer from = this.segments[s].duplicate();
+      from.get(loaded.cells, s * SEGMENT, from.remaining());
+    }
+    Minefield field = new Minefield(loaded, this.numInitMines());
+    field.numMines = this.numMines();
+    field.cellsClicked = this.cellsClicked();
+    field.status = this.status();
+    this.attach(loaded);
+    return field;
+  }
+
+  // starts listening to the given Board, whose squares match the saved ones
+  // EFFECT: Stops listening to the old Board and forgets which pages had changed
+  void attach(Board board) {
+    if (this.board != null) {
+      this.board.listeners.remove(this);
+    }
+    this.board = board;
+    board.listeners.add(this);
+    this.dirty = new long[this.dirty.length];
+  }
+
+  // remembers that the page holding the changed square has to be saved
+  // EFFECT: Sets the page's bit in dirty
+  public void cellChanged(int idx) {
+    int page = idx / PAGE;
+    this.dirty[page >> 6] |= 1L << page;
+  }
+
+  // saves the given game, which has to be the one loaded from this store, and returns
+  // how many pages of squares were written
+  // EFFECT: Writes the header and the changed pages of squares to the file, forcing
+  // only them out to disk, and forgets which pages had changed
+  int save(Minefield field, int ticks) {
+    if (field.board != this.board) {
+      throw new IllegalArgumentException("The game was not loaded from this store");
+    }
+    this.header.putInt(16, field.numInitMines);
+    this.header.putInt(20, field.numMines);
+    this.header.putInt(24, field.cellsClicked);
+    this.header.putInt(28, field.status.ordinal());
+    this.header.putInt(32, ticks);
+    int written = 0;
+    for (int w = 0; w < this.dirty.length; w++) {
+      for (long word = this.dirty[w]; word != 0; word &= word - 1) {
+        long start = (long) (w * 64 + Long.numberOfTrailingZeros(word)) * PAGE;
+        int length = (int) Math.min(PAGE, this.size() - start);
+        MappedByteBuffer segment = this.segments[(int) (start / SEGMENT)];
+        ByteBuffer to = segment.duplicate();
+        to.position((int) (start % SEGMENT));
+        to.put(this.board.cells, (int) start, length);
+        segment.force((int) (start % SEGMENT), length);
+        written++;
+      }
+      this.dirty[w] = 0;
+    }
+    this.header.force();
+    return written;
+  }
+
+  // closes the file, after which the store can't be used
+  // EFFECT: Stops listening to the Board and closes the channel
+  void close() {
+    if (this.board != null) {
+      this.board.listeners.remove(this);
+    }
+    try {
+      this.channel.close();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
+
+class ExamplesBoardStore {
+  Path file;
+  Minefield field1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    try {
+      file = Files.createTempFile("minesweeper", ".save");
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    // 100x100 field, which takes three pages of squares
+    field1 = new Minefield(100, 100, 1500, new Random(6));
+  }
+
+  // deletes the file made by reset
+  // EFFECT: Removes the file from the disk
+  void cleanUp() {
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // tests create and the constructor
+  void testCreate(Tester t) {
+    reset();
+    field1.flagCell(5);
+    BoardStore store = BoardStore.create(file, field1, 17);
+    t.checkExpect(store.board, field1.board);
+    store.close();
+    try {
+      t.checkExpect(Files.size(file), (long) BoardStore.HEADER + 10000);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    BoardStore opened = new BoardStore(file);
+    t.checkExpect(opened.width, 100);
+    t.checkExpect(opened.height, 100);
+    t.checkExpect(opened.size(), 10000L);
+    t.checkExpect(opened.numInitMines(), 1500);
+    t.checkExpect(opened.numMines(), 1499);
+    t.checkExpect(opened.cellsClicked(), 0);
+    t.checkExpect(opened.status(), GameStatus.PLAYING);
+    t.checkExpect(opened.ticks(), 17);
+    t.checkExpect(opened.board, null);
+    for (int i = 0; i < 10000; i += 7) {
+      t.checkExpect(opened.cell(i), field1.board.cells[i]);
+    }
+    opened.close();
+    try {
+      Files.write(file, new byte[] { 1, 2, 3 });
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    t.checkConstructorException(new IllegalArgumentException("Not a saved MineSweeper game"),
+        "BoardStore", file);
+    cleanUp();
+  }
+
+  // tests map and abandon
+  void testMap(Tester t) {
+    reset();
+    BoardStore store = BoardStore.create(file, field1, 0);
+    store.abandon();
+    t.checkExpect(store.channel.isOpen(), false);
+    t.checkException(new ClosedChannelException(), store, "map");
+    cleanUp();
+  }
+
+  // tests headerFits, and that files with headers no game could have are refused
+  void testHeaderFits(Tester t) {
+    reset();
+    BoardStore store = BoardStore.create(file, field1, 0);
+    t.checkExpect(store.headerFits(), true);
+    int[][] bad = new int[][] { { 8, -100 }, { 12, 1 }, { 16, 10000 }, { 16, -1 }, { 24, -1 },
+        { 24, 9000 }, { 28, 3 }, { 28, -1 }, { 32, -1 } };
+    for (int[] change : bad) {
+      int old = store.header.getInt(change[0]);
+      store.header.putInt(change[0], change[1]);
+      store.width = store.header.getInt(8);
+      store.height = store.header.getInt(12);
+      t.checkExpect(store.headerFits(), false);
+      store.header.putInt(change[0], old);
+      store.width = 100;
+      store.height = 100;
+    }
+    t.checkExpect(store.headerFits(), true);
+    // a negative width and height multiply out to a size the file is big enough for
+    store.header.putInt(8, -100);
+    store.header.putInt(12, 100);
+    store.close();
+    t.checkConstructorException(new IllegalArgumentException("Not a saved MineSweeper game"),
+        "BoardStore", file);
+    cleanUp();
+  }
+
+  // tests load
+  void testLoad(Tester t) {
+    reset();
+    long x = 0;
+    while (field1.board.isMine((int) x)) {
+      x++;
+    }
+    field1.revealCell((int) x);
+    BoardStore.create(file, field1, 40).close();
+    BoardStore store = new BoardStore(file);
+    Minefield loaded = store.load();
+    t.checkExpect(loaded.board.cells, field1.board.cells);
+    t.checkExpect(loaded.revealedCount(), field1.revealedCount());
+    t.checkExpect(loaded.numMines, field1.numMines);
+    t.checkExpect(loaded.status(), GameStatus.PLAYING);
+    t.checkExpect(loaded.board.listeners.contains(store), true);
+    // a game can be picked back up where it was left
+    MineSweeper game = new MineSweeper(store);
+    t.checkExpect(game.ticks, 40);
+    t.checkExpect(game.field.board.cells, field1.board.cells);
+    t.checkExpect(loaded.board.listeners.contains(store), false);
+    store.close();
+    cleanUp();
+  }
+
+  // tests cellChanged and save
+  void testSave(Tester t) {
+    reset();
+    BoardStore store = BoardStore.create(file, field1, 0);
+    t.checkExpect(store.save(field1, 1), 0);
+    // a flag in the first page and one in the last page
+    field1.flagCell(10);
+    field1.flagCell(9999);
+    t.checkExpect(store.dirty[0], 5L);
+    t.checkExpect(store.save(field1, 2), 2);
+    t.checkExpect(store.dirty[0], 0L);
+    field1.flagCell(5000);
+    t.checkExpect(store.save(field1, 3), 1);
+    store.close();
+    BoardStore opened = new BoardStore(file);
+    Minefield loaded = opened.load();
+    t.checkExpect(loaded.board.isFlagged(10), true);
+    t.checkExpect(loaded.board.isFlagged(5000), true);
+    t.checkExpect(loaded.board.isFlagged(9999), true);
+    t.checkExpect(loaded.flagCount(), 3);
+    t.checkExpect(opened.ticks(), 3);
+    t.checkException(new IllegalArgumentException("The game was not loaded from this store"),
+        opened, "save", field1, 4);
+    opened.close();
+    cleanUp();
+  }
+}
@@ -0,0 +1,210 @@
+import tester.*;
+import javalib.worldimages.*;
+
+// representing the window a MineSweeper field is seen through
+// the window is never bigger than MAX_COLS by MAX_ROWS squares at the normal size, so
+// fields far bigger than the screen can be played by scrolling the window around them
+// and zooming in and out, and only the squares inside the window are ever drawn
+// the columns of the field run from right to left on the screen, as they always have,
+// so the first column in the window is the one on its right edge
+class Camera {
+  // the most squares across and down that the window shows at the normal size
+  static final int MAX_COLS = 90;
+  static final int MAX_ROWS = 40;
+  // the smallest and largest squares can be drawn when zooming
+  static final int MIN_CELL_SIZE = Cell.CELL_SIZE / 4;
+  static final int MAX_CELL_SIZE = Cell.CELL_SIZE * 2;
+
+  int boardWidth;
+  int boardHeight;
+  // the size of the window in pixels, below the header
+  int width;
+  int height;
+  // the size of a square in pixels
+  int cellSize;
+  // the row and column of the square in the top right corner of the window
+  int firstRow;
+  int firstCol;
+
+  // basic constructor for a window onto the top right corner of a field of the given
+  // size, as big as the field or the biggest window, whichever is smaller
+  Camera(int boardWidth, int boardHeight) {
+    this.boardWidth = boardWidth;
+    this.boardHeight = boardHeight;
+    this.width = Math.min(boardWidth, MAX_COLS) * Cell.CELL_SIZE;
+    this.height = Math.min(boardHeight, MAX_ROWS) * Cell.CELL_SIZE;
+    this.cellSize = Cell.CELL_SIZE;
+    this.firstRow = 0;
+    this.firstCol = 0;
+  }
+
+  // returns how many rows the window shows, counting a row cut off by its bottom edge
+  int rows() {
+    return Math.min(this.boardHeight - this.firstRow,
+        (this.height + this.cellSize - 1) / this.cellSize);
+  }
+
+  // returns how many columns the window shows, counting a column cut off by its left
+  // edge
+  int cols() {
+    return Math.min(this.boardWidth - this.firstCol,
+        (this.width + this.cellSize - 1) / this.cellSize);
+  }
+
+  // moves the window so the given row and column are in its top right corner, or as
+  // close as it can get without going past the edges of the field
+  // EFFECT: Changes the first row and column of the window
+  void moveTo(int row, int col) {
+    int lastRow = Math.max(this.boardHeight - this.height / this.cellSize, 0);
+    int lastCol = Math.max(this.boardWidth - this.width / this.cellSize, 0);
+    this.firstRow = Math.max(Math.min(row, lastRow), 0);
+    this.firstCol = Math.max(Math.min(col, lastCol), 0);
+  }
+
+  // moves the window by the given number of rows down and columns to the left
+  // EFFECT: Changes the first row and column of the window
+  void scroll(int rows, int cols) {
+    this.moveTo(this.firstRow + rows, this.firstCol + cols);
+  }
+
+  // moves the window so the given row and column are in its middle, or as close as
+  // it can get
+  // EFFECT: Changes the first row and column of the window
+  void centerOn(int row, int col) {
+    this.moveTo(row - this.height / this.cellSize / 2, col - this.width / this.cellSize / 2);
+  }
+
+  // makes the squares twice as big, keeping the square in the middle of the window
+  // where it is, and returns whether they got bigger
+  // EFFECT: Changes the size of the squares, and the first row and column of the window
+  boolean zoomIn() {
+    if (this.cellSize * 2 > MAX_CELL_SIZE) {
+      return false;
+    }
+    this.zoomTo(this.cellSize * 2);
+    return true;
+  }
+
+  // makes the squares half as big, keeping the square in the middle of the window
+  // where it is, and returns whether they got smaller
+  // EFFECT: Changes the size of the squares, and the first row and column of the window
+  boolean zoomOut() {
+    if (this.cellSize / 2 < MIN_CELL_SIZE) {
+      return false;
+    }
+    this.zoomTo(this.cellSize / 2);
+    return true;
+  }
+
+  // draws the squares at the given size, keeping the square in the middle of the
+  // window where it is
+  // EFFECT: Changes the size of the squares, and the first row and column of the window
+  void zoomTo(int cellSize) {
+    int row = this.firstRow + this.height / this.cellSize / 2;
+    int col = this.firstCol + this.width / this.cellSize / 2;
+    this.cellSize = cellSize;
+    this.centerOn(row, col);
+  }
+
+  // returns how much bigger than normal the squares are drawn
+  double scale() {
+    return (double) this.cellSize / Cell.CELL_SIZE;
+  }
+
+  // returns the row and column of the square under the given position on the screen
+  Posn squareAt(Posn p) {
+    return new Posn(this.firstRow + (p.y - Cell.CELL_SIZE * 2) / this.cellSize,
+        this.firstCol + (this.width - p.x) / this.cellSize);
+  }
+
+  // returns the position on the screen of the middle of the square at the given row
+  // and column
+  Posn posnOf(int row, int col) {
+    return new Posn(this.width - (col - this.firstCol) * this.cellSize - this.cellSize / 2,
+        Cell.CELL_SIZE * 2 + (row - this.firstRow) * this.cellSize + this.cellSize / 2);
+  }
+}
+
+class ExamplesCamera {
+  Camera small;
+  Camera huge;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    small = new Camera(3, 4);
+    huge = new Camera(1000, 500);
+  }
+
+  // tests the constructor, rows and cols
+  void testConstructor(Tester t) {
+    reset();
+    t.checkExpect(small.width, 60);
+    t.checkExpect(small.height, 80);
+    t.checkExpect(small.rows(), 4);
+    t.checkExpect(small.cols(), 3);
+    t.checkExpect(huge.width, Camera.MAX_COLS * Cell.CELL_SIZE);
+    t.checkExpect(huge.height, Camera.MAX_ROWS * Cell.CELL_SIZE);
+    t.checkExpect(huge.rows(), 40);
+    t.checkExpect(huge.cols(), 90);
+    t.checkExpect(huge.scale(), 1.0);
+  }
+
+  // tests moveTo, scroll and centerOn
+  void testMove(Tester t) {
+    reset();
+    huge.scroll(5, 7);
+    t.checkExpect(huge.firstRow, 5);
+    t.checkExpect(huge.firstCol, 7);
+    huge.scroll(-10, 0);
+    t.checkExpect(huge.firstRow, 0);
+    huge.moveTo(10000, 10000);
+    t.checkExpect(huge.firstRow, 460);
+    t.checkExpect(huge.firstCol, 910);
+    t.checkExpect(huge.rows(), 40);
+    huge.centerOn(250, 500);
+    t.checkExpect(huge.firstRow, 230);
+    t.checkExpect(huge.firstCol, 455);
+    // a field smaller than the window can't be scrolled
+    small.scroll(1, 1);
+    t.checkExpect(small.firstRow, 0);
+    t.checkExpect(small.firstCol, 0);
+  }
+
+  // tests zoomIn, zoomOut, zoomTo and scale
+  void testZoom(Tester t) {
+    reset();
+    huge.centerOn(250, 500);
+    t.checkExpect(huge.zoomIn(), true);
+    t.checkExpect(huge.cellSize, 40);
+    t.checkExpect(huge.rows(), 20);
+    t.checkExpect(huge.firstRow, 240);
+    t.checkExpect(huge.firstCol, 478);
+    t.checkExpect(huge.zoomIn(), false);
+    t.checkExpect(huge.zoomOut(), true);
+    t.checkExpect(huge.zoomOut(), true);
+    t.checkExpect(huge.zoomOut(), true);
+    t.checkExpect(huge.zoomOut(), false);
+    t.checkExpect(huge.cellSize, 5);
+    t.checkExpect(huge.scale(), 0.25);
+    t.checkExpect(huge.cols(), 360);
+    t.checkExpect(huge.firstRow, 170);
+    // zooming out past the size of the field shows all of it
+    small.zoomOut();
+    t.checkExpect(small.rows(), 4);
+    t.checkExpect(small.firstRow, 0);
+  }
+
+  // tests squareAt and posnOf
+  void testSquareAt(Tester t) {
+    reset();
+    t.checkExpect(small.squareAt(new Posn(45, 45)), new Posn(0, 0));
+    t.checkExpect(small.squareAt(new Posn(5, 95)), new Posn(2, 2));
+    t.checkExpect(small.posnOf(2, 2), new Posn(10, 90));
+    huge.scroll(100, 200);
+    huge.zoomIn();
+    t.checkExpect(huge.squareAt(huge.posnOf(130, 250)), new Posn(130, 250));
+    t.checkExpect(huge.squareAt(new Posn(huge.width - 1, 40)),
+        new Posn(huge.firstRow, huge.firstCol));
+  }
+}
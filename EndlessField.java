@@ -0,0 +1,605 @@
+import tester.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+// representing one square block of an EndlessField, with the state of each square
+// packed into a byte the same way as on a Board
+class Chunk {
+  int cx;
+  int cy;
+  byte[] cells;
+  // set when a square has been revealed or flagged since the chunk was last saved
+  boolean dirty;
+
+  // basic constructor for the chunk at the given chunk coordinates, with no mines
+  Chunk(int cx, int cy) {
+    this.cx = cx;
+    this.cy = cy;
+    this.cells = new byte[EndlessField.CHUNK_AREA];
+    this.dirty = false;
+  }
+
+  // returns the chunk at the given chunk coordinates of the field made from the given
+  // seed, with its mines placed and every square counting the mines next to it, even
+  // the ones over the border in the chunks around it
+  static Chunk generate(long seed, int cx, int cy, int mines) {
+    Chunk chunk = new Chunk(cx, cy);
+    for (int dy = -1; dy <= 1; dy++) {
+      for (int dx = -1; dx <= 1; dx++) {
+        long[] bits = Chunk.mineBits(seed, cx + dx, cy + dy, mines);
+        for (int w = 0; w < bits.length; w++) {
+          for (long word = bits[w]; word != 0; word &= word - 1) {
+            int idx = w * 64 + Long.numberOfTrailingZeros(word);
+            int row = idx / EndlessField.CHUNK_SIZE + dy * EndlessField.CHUNK_SIZE;
+            int col = idx % EndlessField.CHUNK_SIZE + dx * EndlessField.CHUNK_SIZE;
+            if (dx == 0 && dy == 0) {
+              chunk.cells[idx] |= Board.MINE;
+            }
+            chunk.countMine(row, col);
+          }
+        }
+      }
+    }
+    return chunk;
+  }
+
+  // returns which squares of the chunk at the given chunk coordinates hold mines, one
+  // bit per square, picked with Floyd's sampling algorithm from a seed made out of the
+  // field's seed and the chunk coordinates
+  static long[] mineBits(long seed, int cx, int cy, int mines) {
+    Random rand = new Random(Chunk.chunkSeed(seed, cx, cy));
+    long[] bits = new long[EndlessField.CHUNK_AREA / 64];
+    for (int j = EndlessField.CHUNK_AREA - mines; j < EndlessField.CHUNK_AREA; j++) {
+      int num = rand.nextInt(j + 1);
+      if ((bits[num >> 6] & (1L << num)) != 0) {
+        num = j;
+      }
+      bits[num >> 6] |= 1L << num;
+    }
+    return bits;
+  }
+
+  // returns the seed for the chunk at the given chunk coordinates, mixed so that
+  // chunks next to each other get seeds that look nothing alike
+  static long chunkSeed(long seed, int cx, int cy) {
+    long z = seed + cx * 0x9E3779B97F4A7C15L + cy * 0xC2B2AE3D27D4EB4FL;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  // counts a mine at the given row and column, measured from this chunk's top left
+  // square, towards every square of this chunk next to it
+  // EFFECT: Adds one to the adjacency bits of the neighboring squares in this chunk
+  void countMine(int row, int col) {
+    int lastRow = Math.min(row + 1, EndlessField.CHUNK_SIZE - 1);
+    int lastCol = Math.min(col + 1, EndlessField.CHUNK_SIZE - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (r != row || c != col) {
+          this.cells[r * EndlessField.CHUNK_SIZE + c]++;
+        }
+      }
+    }
+  }
+}
+
+// representing a MineSweeper field with no edges, split into square chunks that are
+// only made when a square in them is first looked at
+// the mines of each chunk come from a seed made out of its coordinates, so a chunk
+// can always be made again exactly as it was
+// at most maxChunks chunks are kept in memory; when another is needed, the one used
+// longest ago is dropped, and if any of its squares were revealed or flagged those
+// bits are written to a file in the spill directory, to be laid back over the chunk
+// when it is made again
+// so memory use depends on how far the player has explored, not on the field's size
+class EndlessField {
+  // how many squares wide and tall each chunk is
+  static final int CHUNK_SIZE = 64;
+  // how many squares are in each chunk
+  static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+
+  long seed;
+  int minesPerChunk;
+  int maxChunks;
+  Path spillDir;
+  // the chunks in memory, from the one used longest ago to the one used last
+  LinkedHashMap<Long, Chunk> chunks;
+  // the chunks whose revealed and flagged squares have been written out
+  HashSet<Long> spilled;
+  long cellsClicked;
+  long numFlags;
+  GameStatus status;
+
+  // basic constructor for a new endless field made from the given seed
+  // there has to be at least one mine in every six squares, else openings could go
+  // on forever, and at least one chunk has to fit in memory
+  EndlessField(long seed, int minesPerChunk, int maxChunks, Path spillDir) {
+    if (minesPerChunk < CHUNK_AREA / 6) {
+      throw new IllegalArgumentException("There are too few mines in each chunk");
+    }
+    if (minesPerChunk >= CHUNK_AREA) {
+      throw new IllegalArgumentException("There are too many mines in each chunk");
+    }
+    if (maxChunks < 1) {
+      throw new IllegalArgumentException("At least one chunk has to fit in memory");
+    }
+    this.seed = seed;
+    this.minesPerChunk = minesPerChunk;
+    this.maxChunks = maxChunks;
+    this.spillDir = spillDir;
+    this.chunks = new LinkedHashMap<Long, Chunk>(16, 0.75f, true);
+    this.spilled = new HashSet<Long>();
+    this.cellsClicked = 0;
+    this.numFlags = 0;
+    this.status = GameStatus.PLAYING;
+  }
+
+  // returns the chunk coordinate of the given row or column
+  static int chunkOf(long pos) {
+    return (int) Math.floorDiv(pos, (long) CHUNK_SIZE);
+  }
+
+  // returns the key for the chunk at the given chunk coordinates
+  static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+  }
+
+  // returns the index within its chunk of the square at the given column and row
+  static int local(long x, long y) {
+    return (int) Math.floorMod(y, (long) CHUNK_SIZE) * CHUNK_SIZE
+        + (int) Math.floorMod(x, (long) CHUNK_SIZE);
+  }
+
+  // are the given column and row within reach of the chunk coordinates?
+  static boolean onField(long x, long y) {
+    long limit = (long) Integer.MAX_VALUE * CHUNK_SIZE;
+    return -limit <= x && x < limit && -limit <= y && y < limit;
+  }
+
+  // returns the chunk with the given key, making it or reading it back if it isn't
+  // in memory
+  // EFFECT: Marks the chunk as used last, and may drop the chunk used longest ago
+  Chunk chunk(long key) {
+    Chunk chunk = this.chunks.get(key);
+    if (chunk == null) {
+      chunk = this.load(key);
+      this.chunks.put(key, chunk);
+      if (this.chunks.size() > this.maxChunks) {
+        Iterator<Chunk> eldest = this.chunks.values().iterator();
+        this.spill(eldest.next());
+        eldest.remove();
+      }
+    }
+    return chunk;
+  }
+
+  // returns the chunk that holds the square at the given column and row
+  // EFFECT: Marks the chunk as used last, and may drop the chunk used longest ago
+  Chunk chunkAt(long x, long y) {
+    return this.chunk(EndlessField.key(EndlessField.chunkOf(x), EndlessField.chunkOf(y)));
+  }
+
+  // makes the chunk with the given key, laying its revealed and flagged squares back
+  // over it if it was written out
+  Chunk load(long key) {
+    int cx = (int) (key >> 32);
+    int cy = (int) key;
+    Chunk chunk = Chunk.generate(this.seed, cx, cy, this.minesPerChunk);
+    if (this.spilled.contains(key)) {
+      try {
+        byte[] state = Files.readAllBytes(this.spillFile(cx, cy));
+        for (int i = 0; i < CHUNK_AREA; i++) {
+          chunk.cells[i] |= state[i];
+        }
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return chunk;
+  }
+
+  // writes out the revealed and flagged squares of the given chunk, if any have
+  // changed since it was made
+  // EFFECT: Writes the chunk's file in the spill directory
+  void spill(Chunk chunk) {
+    if (!chunk.dirty) {
+      return;
+    }
+    byte[] state = new byte[CHUNK_AREA];
+    for (int i = 0; i < CHUNK_AREA; i++) {
+      state[i] = (byte) (chunk.cells[i] & (Board.REVEALED | Board.FLAG));
+    }
+    try {
+      Files.write(this.spillFile(chunk.cx, chunk.cy), state);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.spilled.add(EndlessField.key(chunk.cx, chunk.cy));
+    chunk.dirty = false;
+  }
+
+  // returns the file that the chunk at the given chunk coordinates is written to
+  Path spillFile(int cx, int cy) {
+    return this.spillDir.resolve(cx + "_" + cy + ".chunk");
+  }
+
+  // returns how many chunks are in memory
+  int loadedChunks() {
+    return this.chunks.size();
+  }
+
+  // does the square at the given column and row hold a mine?
+  boolean isMine(long x, long y) {
+    return (this.chunkAt(x, y).cells[EndlessField.local(x, y)] & Board.MINE) != 0;
+  }
+
+  // is the square at the given column and row flagged?
+  boolean isFlagged(long x, long y) {
+    return (this.chunkAt(x, y).cells[EndlessField.local(x, y)] & Board.FLAG) != 0;
+  }
+
+  // is the square at the given column and row revealed?
+  boolean isRevealed(long x, long y) {
+    return (this.chunkAt(x, y).cells[EndlessField.local(x, y)] & Board.REVEALED) != 0;
+  }
+
+  // returns the number of mines next to the square at the given column and row
+  int adjacentMines(long x, long y) {
+    return this.chunkAt(x, y).cells[EndlessField.local(x, y)] & Board.ADJACENT;
+  }
+
+  // reveals the square at the given column and row, and the squares around it if it
+  // has no neighboring mines, returning how many squares were newly revealed
+  // the game is lost as soon as a mine is revealed, and there is no winning
+  // the opening is walked one chunk at a time: squares in the same chunk go on that
+  // chunk's work queue, and squares over the border go on the queue of the chunk they
+  // are in, to be looked at when that chunk's turn comes, so only one chunk is being
+  // changed at a time and the rest can be dropped and read back in between
+  // EFFECT: Reveals the square and possibly the squares around it, and updates the
+  // number of squares revealed and the status of the game
+  long reveal(long x, long y) {
+    if (this.status != GameStatus.PLAYING || !EndlessField.onField(x, y)) {
+      return 0;
+    }
+    Chunk first = this.chunkAt(x, y);
+    int idx = EndlessField.local(x, y);
+    if ((first.cells[idx] & (Board.REVEALED | Board.FLAG)) != 0) {
+      return 0;
+    }
+    if ((first.cells[idx] & Board.MINE) != 0) {
+      first.cells[idx] |= Board.REVEALED;
+      first.dirty = true;
+      this.status = GameStatus.LOST;
+      return 1;
+    }
+    HashMap<Long, IntQueue> pending = new HashMap<Long, IntQueue>();
+    ArrayDeque<Long> order = new ArrayDeque<Long>();
+    long firstKey = EndlessField.key(first.cx, first.cy);
+    pending.put(firstKey, new IntQueue());
+    pending.get(firstKey).add(idx);
+    order.add(firstKey);
+    long count = 0;
+    while (!order.isEmpty()) {
+      long key = order.remove();
+      IntQueue work = pending.remove(key);
+      Chunk chunk = this.chunk(key);
+      while (!work.isEmpty()) {
+        int next = work.remove();
+        if ((chunk.cells[next] & (Board.REVEALED | Board.FLAG)) != 0) {
+          continue;
+        }
+        chunk.cells[next] |= Board.REVEALED;
+        chunk.dirty = true;
+        count++;
+        if ((chunk.cells[next] & (Board.MINE | Board.ADJACENT)) == 0) {
+          this.spread(chunk, next, work, pending, order);
+        }
+      }
+    }
+    this.cellsClicked += count;
+    return count;
+  }
+
+  // queues every square next to the given square of the given chunk to be revealed,
+  // on the chunk's own work queue or the pending queue of the chunk over the border
+  // EFFECT: Adds to the work queue, the pending queues and the order of chunks to visit
+  void spread(Chunk chunk, int idx, IntQueue work, HashMap<Long, IntQueue> pending,
+      ArrayDeque<Long> order) {
+    int row = idx / CHUNK_SIZE;
+    int col = idx % CHUNK_SIZE;
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if (0 <= r && r < CHUNK_SIZE && 0 <= c && c < CHUNK_SIZE) {
+          if ((chunk.cells[r * CHUNK_SIZE + c] & (Board.REVEALED | Board.FLAG)) == 0) {
+            work.add(r * CHUNK_SIZE + c);
+          }
+        }
+        else {
+          long x = (long) chunk.cx * CHUNK_SIZE + c;
+          long y = (long) chunk.cy * CHUNK_SIZE + r;
+          if (EndlessField.onField(x, y)) {
+            long key = EndlessField.key(EndlessField.chunkOf(x), EndlessField.chunkOf(y));
+            IntQueue queue = pending.get(key);
+            if (queue == null) {
+              queue = new IntQueue();
+              pending.put(key, queue);
+              order.add(key);
+            }
+            queue.add(EndlessField.local(x, y));
+          }
+        }
+      }
+    }
+  }
+
+  // flags the square at the given column and row, or takes the flag off if it already
+  // has one, and returns whether the square is flagged afterwards
+  // revealed squares can't be flagged
+  // EFFECT: Changes the flag on the square and the number of flags on the field
+  boolean flag(long x, long y) {
+    if (!EndlessField.onField(x, y)) {
+      return false;
+    }
+    Chunk chunk = this.chunkAt(x, y);
+    int idx = EndlessField.local(x, y);
+    if ((chunk.cells[idx] & Board.REVEALED) != 0) {
+      return false;
+    }
+    chunk.cells[idx] ^= Board.FLAG;
+    chunk.dirty = true;
+    boolean flagged = (chunk.cells[idx] & Board.FLAG) != 0;
+    this.numFlags += flagged ? 1 : -1;
+    return flagged;
+  }
+
+  // returns how far along the game is
+  GameStatus status() {
+    return this.status;
+  }
+
+  // returns how many squares without a mine have been revealed
+  long revealedCount() {
+    return this.cellsClicked;
+  }
+
+  // returns how many flags are on the field
+  long flagCount() {
+    return this.numFlags;
+  }
+}
+
+class ExamplesEndlessField {
+  Path dir;
+  EndlessField field1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    try {
+      dir = Files.createTempDirectory("chunks");
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    // a field with one mine in every five squares, keeping at most 4 chunks in memory
+    field1 = new EndlessField(9, 819, 4, dir);
+  }
+
+  // deletes the directory made by reset, with every chunk spilled into it
+  // EFFECT: Removes the directory from the disk
+  void cleanUp() {
+    this.delete(dir);
+  }
+
+  // deletes the given file, or the given directory and everything in it
+  // EFFECT: Removes the files from the disk
+  void delete(Path path) {
+    try {
+      if (Files.isDirectory(path)) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+          for (Path entry : entries) {
+            this.delete(entry);
+          }
+        }
+      }
+      Files.deleteIfExists(path);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // tests the constructor
+  void testConstructor(Tester t) {
+    reset();
+    t.checkExpect(field1.loadedChunks(), 0);
+    t.checkExpect(field1.status(), GameStatus.PLAYING);
+    t.checkConstructorException(
+        new IllegalArgumentException("There are too few mines in each chunk"), "EndlessField",
+        9L, 100, 4, dir);
+    t.checkConstructorException(
+        new IllegalArgumentException("There are too many mines in each chunk"), "EndlessField",
+        9L, 4096, 4, dir);
+    t.checkConstructorException(
+        new IllegalArgumentException("At least one chunk has to fit in memory"), "EndlessField",
+        9L, 819, 0, dir);
+    cleanUp();
+  }
+
+  // tests chunkOf, key and local
+  void testCoordinates(Tester t) {
+    t.checkExpect(EndlessField.chunkOf(0), 0);
+    t.checkExpect(EndlessField.chunkOf(63), 0);
+    t.checkExpect(EndlessField.chunkOf(64), 1);
+    t.checkExpect(EndlessField.chunkOf(-1), -1);
+    t.checkExpect(EndlessField.chunkOf(-64), -1);
+    t.checkExpect(EndlessField.chunkOf(-65), -2);
+    t.checkExpect(EndlessField.local(-1, -1), 4095);
+    t.checkExpect(EndlessField.local(65, 2), 129);
+    t.checkExpect(EndlessField.key(-1, 2) == EndlessField.key(2, -1), false);
+    t.checkExpect(EndlessField.onField(Long.MAX_VALUE, 0), false);
+  }
+
+  // tests generate and mineBits on Chunk
+  void testGenerate(Tester t) {
+    reset();
+    Chunk chunk = Chunk.generate(9, -3, 5, 819);
+    int mines = 0;
+    for (int i = 0; i < EndlessField.CHUNK_AREA; i++) {
+      if ((chunk.cells[i] & Board.MINE) != 0) {
+        mines++;
+      }
+    }
+    t.checkExpect(mines, 819);
+    t.checkExpect(Chunk.generate(9, -3, 5, 819).cells, chunk.cells);
+    t.checkExpect(Arrays.equals(Chunk.mineBits(10, -3, 5, 819), Chunk.mineBits(9, -3, 5, 819)),
+        false);
+    // every square counts the mines around it, across the borders of the chunks
+    for (long y = -66; y < 66; y++) {
+      for (long x = -3; x < 3; x++) {
+        t.checkExpect(field1.adjacentMines(x, y), this.countAround(field1, x, y));
+      }
+    }
+    cleanUp();
+  }
+
+  // counts the mines next to the square at the given column and row by looking at
+  // each of them
+  int countAround(EndlessField field, long x, long y) {
+    int count = 0;
+    for (long r = y - 1; r <= y + 1; r++) {
+      for (long c = x - 1; c <= x + 1; c++) {
+        if ((r != y || c != x) && field.isMine(c, r)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  // tests reveal and spread
+  void testReveal(Tester t) {
+    reset();
+    // the same squares, copied onto a Board five chunks across with the field's
+    // square (0, 0) in the middle chunk, open up the same way
+    Board board = new Board(5 * EndlessField.CHUNK_SIZE, 5 * EndlessField.CHUNK_SIZE);
+    for (int k = 0; k < board.size(); k++) {
+      int i = this.chunkOrder(k);
+      if (field1.isMine(i % board.width - 128, i / board.width - 128)) {
+        board.placeMine(i);
+      }
+    }
+    long x = -1;
+    while (field1.isMine(x, 0) || field1.adjacentMines(x, 0) != 0) {
+      x--;
+    }
+    long opened = field1.reveal(x, 0);
+    t.checkExpect(opened, (long) board.reveal(board.index(128, (int) x + 128)));
+    t.checkExpect(opened > 1, true);
+    t.checkExpect(field1.revealedCount(), opened);
+    t.checkExpect(field1.loadedChunks() <= 4, true);
+    for (int k = 0; k < board.size(); k++) {
+      int i = this.chunkOrder(k);
+      t.checkExpect(field1.isRevealed(i % board.width - 128, i / board.width - 128),
+          board.isRevealed(i));
+    }
+    t.checkExpect(field1.reveal(x, 0), 0L);
+    t.checkExpect(field1.reveal(Long.MIN_VALUE, 0), 0L);
+    // revealing a mine ends the game
+    long mine = 0;
+    while (!field1.isMine(mine, 200)) {
+      mine++;
+    }
+    t.checkExpect(field1.reveal(mine, 200), 1L);
+    t.checkExpect(field1.status(), GameStatus.LOST);
+    t.checkExpect(field1.reveal(mine + 1, 200), 0L);
+    cleanUp();
+  }
+
+  // returns the index on a Board five chunks across of the given square, counting
+  // through one chunk at a time so the field doesn't have to keep making them again
+  int chunkOrder(int k) {
+    int chunk = k / EndlessField.CHUNK_AREA;
+    int within = k % EndlessField.CHUNK_AREA;
+    int row = chunk / 5 * EndlessField.CHUNK_SIZE + within / EndlessField.CHUNK_SIZE;
+    int col = chunk % 5 * EndlessField.CHUNK_SIZE + within % EndlessField.CHUNK_SIZE;
+    return row * 5 * EndlessField.CHUNK_SIZE + col;
+  }
+
+  // tests flag
+  void testFlag(Tester t) {
+    reset();
+    t.checkExpect(field1.flag(-5, 7), true);
+    t.checkExpect(field1.isFlagged(-5, 7), true);
+    t.checkExpect(field1.flagCount(), 1L);
+    t.checkExpect(field1.reveal(-5, 7), 0L);
+    t.checkExpect(field1.flag(-5, 7), false);
+    t.checkExpect(field1.flagCount(), 0L);
+    long x = 0;
+    while (field1.isMine(x, 0)) {
+      x++;
+    }
+    field1.reveal(x, 0);
+    t.checkExpect(field1.flag(x, 0), false);
+    t.checkExpect(field1.flagCount(), 0L);
+    cleanUp();
+  }
+
+  // tests chunk, load and spill
+  void testEviction(Tester t) {
+    reset();
+    long x = 0;
+    while (field1.isMine(x, 0)) {
+      x++;
+    }
+    long opened = field1.reveal(x, 0);
+    field1.flag(-1000, -1000);
+    // looking at squares far away drops the chunks used longest ago
+    for (int i = 1; i <= 8; i++) {
+      field1.isMine(i * 1000, 0);
+      t.checkExpect(field1.loadedChunks() <= 4, true);
+    }
+    t.checkExpect(field1.chunks.containsKey(EndlessField.key(0, 0)), false);
+    t.checkExpect(field1.spilled.contains(EndlessField.key(0, 0)), true);
+    t.checkExpect(Files.exists(field1.spillFile(-16, -16)), true);
+    // chunks that were only looked at aren't written out
+    t.checkExpect(Files.exists(field1.spillFile(15, 0)), false);
+    // the revealed and flagged squares come back with the chunks
+    t.checkExpect(field1.isRevealed(x, 0), true);
+    t.checkExpect(field1.isFlagged(-1000, -1000), true);
+    t.checkExpect(field1.reveal(x, 0), 0L);
+    t.checkExpect(field1.revealedCount(), opened);
+    // a chunk read back without changes isn't written out again
+    t.checkExpect(field1.chunk(EndlessField.key(0, 0)).dirty, false);
+    // a field that keeps a single chunk in memory still opens up across borders
+    EndlessField tiny = new EndlessField(9, 819, 1, dir.resolve("tiny"));
+    try {
+      Files.createDirectory(tiny.spillDir);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    long start = -1;
+    while (tiny.isMine(start, 0) || tiny.adjacentMines(start, 0) != 0) {
+      start--;
+    }
+    EndlessField roomy = new EndlessField(9, 819, 100, dir);
+    t.checkExpect(tiny.reveal(start, 0), roomy.reveal(start, 0));
+    t.checkExpect(tiny.loadedChunks(), 1);
+    cleanUp();
+  }
+}
@@ -0,0 +1,626 @@
+import tester.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// representing one game hosted by a GameServer, which any connection that knows its id
+// can play
+// ids are random 64-bit numbers, so the id is only known to the connection that started
+// the session and the players it is handed on to, and can't be guessed
+// the game is a SharedField, so connections sharing a session make their moves at the
+// same time without taking turns, and sessions never share any state
+class Session {
+  long id;
+  SharedField field;
+  // when the session was last used, from System.nanoTime
+  volatile long lastUsed;
+  volatile boolean ended;
+
+  // basic constructor for a session playing the given game, used at the given time
+  Session(long id, SharedField field, long now) {
+    this.id = id;
+    this.field = field;
+    this.lastUsed = now;
+    this.ended = false;
+  }
+
+  // returns the id of this session as it is written in the protocol, in hexadecimal
+  String name() {
+    return Long.toHexString(this.id);
+  }
+
+  // reveals the square at the given row and column, and describes what happened
+  // EFFECT: Reveals squares of the game
+  String reveal(int row, int col) {
+    if (!this.field.board.onBoard(row, col)) {
+      return "ERR Square is off the field";
+    }
+    int revealed = this.field.reveal(row, col);
+    return "OK " + revealed + " " + this.field.status();
+  }
+
+  // flags or unflags the square at the given row and column, and describes what
+  // happened
+  // EFFECT: Changes the flag on the square
+  String flag(int row, int col) {
+    if (!this.field.board.onBoard(row, col)) {
+      return "ERR Square is off the field";
+    }
+    boolean flagged = this.field.flag(row, col);
+    return "OK " + (flagged ? "FLAGGED " : "UNFLAGGED ") + this.field.status();
+  }
+
+  // describes how far along the game is
+  String status() {
+    return "OK " + this.field.status() + " " + this.field.revealedCount() + " "
+        + this.field.flagCount();
+  }
+
+  // draws the field as text, a line for each row after a line with the number of rows
+  // hidden squares are #, flags are F, revealed mines are * and revealed squares are
+  // the number of mines next to them
+  String show() {
+    Board board = this.field.board;
+    StringBuilder text = new StringBuilder("OK ").append(board.height);
+    for (int i = 0; i < board.size(); i++) {
+      if (i % board.width == 0) {
+        text.append('\n');
+      }
+      byte cell = this.field.cell(i);
+      if ((cell & Board.FLAG) != 0) {
+        text.append('F');
+      }
+      else if ((cell & Board.REVEALED) == 0) {
+        text.append('#');
+      }
+      else if ((cell & Board.MINE) != 0) {
+        text.append('*');
+      }
+      else {
+        text.append((char) ('0' + (cell & Board.ADJACENT)));
+      }
+    }
+    return text.toString();
+  }
+}
+
+// representing a server that hosts many games of MineSweeper at once, played by
+// connections over a local TCP socket with a line-based protocol:
+//   NEW width height mines [seed]  starts a session and plays in it     OK id
+//   JOIN id                        plays in a session that already exists  OK id
+//   REVEAL row col                 reveals a square    OK revealed status
+//   FLAG row col                   flags a square      OK FLAGGED|UNFLAGGED status
+//   STATUS                                             OK status revealed flags
+//   SHOW                                               OK rows, then a line per row
+//   END                            ends the session    OK
+// and anything that goes wrong is answered with ERR and the reason
+// a connection owns at most one session at a time: starting a new one ends the one it
+// started before, and hanging up ends it too, so a single client can't fill the server
+// up with sessions
+// each connection gets a virtual thread where the JVM has them, and a pooled thread
+// where it doesn't, so thousands of bots cost thousands of small stacks, not threads
+// sessions hold nothing but a SharedField of at most MAX_CELLS squares, at most
+// maxSessions are open at once, and a sweeper ends sessions that have been idle for
+// longer than the idle time
+// connections that send nothing for the idle time are closed too, whether they are in
+// a session or not
+class GameServer implements Runnable {
+  // the most squares a session's field can have
+  static final int MAX_CELLS = 1 << 20;
+  // the longest line a connection can send
+  static final int MAX_LINE = 256;
+
+  ServerSocket server;
+  ConcurrentHashMap<Long, Session> sessions;
+  // where the ids of new sessions come from, a SecureRandom so they can't be guessed
+  Random ids;
+  AtomicInteger open;
+  int maxSessions;
+  long idleNanos;
+  ExecutorService workers;
+  ScheduledExecutorService sweeper;
+
+  // basic constructor for a server that hosts at most the given number of sessions,
+  // ending the ones that go unused for the given time, without listening on a socket
+  GameServer(int maxSessions, long idleMillis) {
+    this.sessions = new ConcurrentHashMap<Long, Session>();
+    this.ids = new SecureRandom();
+    this.open = new AtomicInteger(0);
+    this.maxSessions = maxSessions;
+    this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+  }
+
+  // starts a server on the given port, or any free port if it is 0, and plays games
+  // until it is stopped
+  public static void main(String[] args) {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+    GameServer server = new GameServer(10000, 600000);
+    server.start(port);
+    System.out.println("Listening on port " + server.server.getLocalPort());
+  }
+
+  // returns an executor that runs each task on a new virtual thread, or on a pooled
+  // thread on JVMs that don't have virtual threads
+  static ExecutorService newWorkers() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  // starts listening on the loopback address at the given port, or any free port if
+  // it is 0, and starts the sweeper
+  // EFFECT: Opens the server socket and starts the threads that accept connections
+  // and end idle sessions
+  void start(int port) {
+    try {
+      this.server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.workers = GameServer.newWorkers();
+    this.sweeper = Executors.newSingleThreadScheduledExecutor();
+    long period = Math.max(1, this.idleNanos / 4);
+    this.sweeper.scheduleAtFixedRate(new Sweeper(this), period, period, TimeUnit.NANOSECONDS);
+    this.workers.execute(this);
+  }
+
+  // accepts connections until the server socket is closed, handing each to a worker
+  // EFFECT: Starts a Connection for every client
+  public void run() {
+    while (!this.server.isClosed()) {
+      try {
+        this.workers.execute(new Connection(this, this.server.accept()));
+      }
+      catch (IOException e) {
+        // the socket was closed, which stops the server
+      }
+    }
+  }
+
+  // stops listening and ends every session, so connections that are still open can
+  // only be answered with errors until they hang up
+  // EFFECT: Closes the server socket, stops the threads and empties sessions
+  void stop() {
+    try {
+      this.server.close();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.sweeper.shutdownNow();
+    this.workers.shutdownNow();
+    for (Session session : this.sessions.values()) {
+      this.endSession(session);
+    }
+  }
+
+  // starts a new session with the given game and a random id that no other session
+  // has, or returns null if there are already as many sessions as allowed
+  // EFFECT: Adds the session to sessions
+  Session openSession(SharedField field, long now) {
+    if (this.open.incrementAndGet() > this.maxSessions) {
+      this.open.decrementAndGet();
+      return null;
+    }
+    Session session = new Session(this.ids.nextLong(), field, now);
+    while (this.sessions.putIfAbsent(session.id, session) != null) {
+      session.id = this.ids.nextLong();
+    }
+    return session;
+  }
+
+  // returns how long a connection can go without sending anything before it is
+  // closed, in milliseconds, which is the idle time of a session
+  int readTimeout() {
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+        TimeUnit.NANOSECONDS.toMillis(this.idleNanos)));
+  }
+
+  // ends the given session, if it hasn't already ended
+  // EFFECT: Removes the session from sessions
+  void endSession(Session session) {
+    if (this.sessions.remove(session.id, session)) {
+      session.ended = true;
+      this.open.decrementAndGet();
+    }
+  }
+
+  // ends every session that has gone unused for longer than the idle time, and
+  // returns how many were ended
+  // EFFECT: Removes the idle sessions from sessions
+  int evictIdle(long now) {
+    int evicted = 0;
+    for (Session session : this.sessions.values()) {
+      if (now - session.lastUsed > this.idleNanos) {
+        this.endSession(session);
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  // answers the given line from the given connection at the given time, and returns
+  // the answer
+  // EFFECT: Makes the move asked for, and may start, join or end the connection's
+  // session
+  String respond(Connection conn, String line, long now) {
+    String[] words = line.trim().split(" +");
+    String command = words[0].toUpperCase();
+    try {
+      if (command.equals("NEW") && (words.length == 4 || words.length == 5)) {
+        return this.newGame(conn, words, now);
+      }
+      else if (command.equals("JOIN") && words.length == 2) {
+        Session session = this.sessions.get(Long.parseUnsignedLong(words[1], 16));
+        if (session == null) {
+          return "ERR No such session";
+        }
+        session.lastUsed = now;
+        conn.session = session;
+        return "OK " + session.name();
+      }
+    }
+    catch (NumberFormatException e) {
+      return "ERR Bad number";
+    }
+    Session session = conn.session;
+    if (session == null || session.ended) {
+      return "ERR Not in a session";
+    }
+    session.lastUsed = now;
+    try {
+      if (command.equals("REVEAL") && words.length == 3) {
+        return session.reveal(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+      }
+      else if (command.equals("FLAG") && words.length == 3) {
+        return session.flag(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+      }
+    }
+    catch (NumberFormatException e) {
+      return "ERR Bad number";
+    }
+    if (command.equals("STATUS") && words.length == 1) {
+      return session.status();
+    }
+    else if (command.equals("SHOW") && words.length == 1) {
+      return session.show();
+    }
+    else if (command.equals("END") && words.length == 1) {
+      this.endSession(session);
+      conn.session = null;
+      return "OK";
+    }
+    return "ERR Unknown command";
+  }
+
+  // answers a NEW line from the given connection, starting a session with the size,
+  // mines and seed given in the words, in place of the one the connection started
+  // before
+  // EFFECT: Ends the connection's last session, starts a session, and makes it the
+  // connection's session
+  String newGame(Connection conn, String[] words, long now) {
+    int width = Integer.parseInt(words[1]);
+    int height = Integer.parseInt(words[2]);
+    int mines = Integer.parseInt(words[3]);
+    Random rand = words.length == 5 ? new Random(Long.parseLong(words[4])) : new Random();
+    if ((long) width * height > MAX_CELLS) {
+      return "ERR Field is too large for a session";
+    }
+    if (mines < 0) {
+      return "ERR There can't be fewer than no mines";
+    }
+    Minefield field;
+    try {
+      field = new Minefield(width, height, mines, rand);
+    }
+    catch (IllegalArgumentException e) {
+      return "ERR " + e.getMessage();
+    }
+    if (conn.started != null) {
+      this.endSession(conn.started);
+      conn.started = null;
+    }
+    Session session = this.openSession(new SharedField(field.board, mines), now);
+    if (session == null) {
+      return "ERR Too many sessions";
+    }
+    conn.session = session;
+    conn.started = session;
+    return "OK " + session.name();
+  }
+}
+
+// representing a client connected to a GameServer, answered line by line on its own
+// thread
+class Connection implements Runnable {
+  GameServer server;
+  Socket socket;
+  // the session this connection is playing in, if any
+  Session session;
+  // the session this connection started last, if any
+  Session started;
+
+  // basic constructor for the given client of the given server
+  Connection(GameServer server, Socket socket) {
+    this.server = server;
+    this.socket = socket;
+  }
+
+  // answers every line the client sends until it hangs up, sends a line that is too
+  // long or sends nothing for the server's read timeout
+  // EFFECT: Plays the moves asked for, and closes the socket and ends the session the
+  // client started at the end
+  public void run() {
+    try (Socket s = this.socket) {
+      s.setSoTimeout(this.server.readTimeout());
+      InputStream in = s.getInputStream();
+      OutputStream out = s.getOutputStream();
+      String line = Connection.readLine(in);
+      while (line != null) {
+        out.write((this.server.respond(this, line, System.nanoTime()) + "\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        line = Connection.readLine(in);
+      }
+    }
+    catch (IOException e) {
+      // the client hung up, sent too much or went quiet, and the connection is over
+      // either way
+    }
+    finally {
+      this.hangUp();
+    }
+  }
+
+  // ends the session this connection started, so a client that goes away doesn't keep
+  // its session's place until the sweeper gets to it
+  // EFFECT: Ends the started session, and forgets the connection's sessions
+  void hangUp() {
+    if (this.started != null) {
+      this.server.endSession(this.started);
+    }
+    this.started = null;
+    this.session = null;
+  }
+
+  // returns the next line from the given stream without its line ending, or null at
+  // the end of the stream
+  // lines longer than MAX_LINE aren't read any further, so a client can't use up memory
+  static String readLine(InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int b = in.read();
+    if (b < 0) {
+      return null;
+    }
+    while (b >= 0 && b != '\n') {
+      if (b != '\r') {
+        line.append((char) b);
+      }
+      if (line.length() > GameServer.MAX_LINE) {
+        throw new IOException("Line is too long");
+      }
+      b = in.read();
+    }
+    return line.toString();
+  }
+}
+
+// representing the periodic job that ends a GameServer's idle sessions
+class Sweeper implements Runnable {
+  GameServer server;
+
+  // basic constructor for sweeping the given server
+  Sweeper(GameServer server) {
+    this.server = server;
+  }
+
+  // ends the server's idle sessions
+  // EFFECT: Removes the idle sessions from the server
+  public void run() {
+    this.server.evictIdle(System.nanoTime());
+  }
+}
+
+class ExamplesGameServer {
+  GameServer server1;
+  Connection conn1;
+  Connection conn2;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // a server with room for two sessions, ending them after a second
+    server1 = new GameServer(2, 1000);
+    conn1 = new Connection(server1, null);
+    conn2 = new Connection(server1, null);
+  }
+
+  // tests respond and newGame
+  void testRespond(Tester t) {
+    reset();
+    t.checkExpect(server1.respond(conn1, "REVEAL 0 0", 0), "ERR Not in a session");
+    String reply = server1.respond(conn1, "NEW 3 3 2 52", 0);
+    t.checkExpect(reply, "OK " + conn1.session.name());
+    t.checkExpect(server1.respond(conn1, "reveal 0 0", 0), "OK 1 PLAYING");
+    t.checkExpect(server1.respond(conn1, "FLAG 1 1", 0), "OK FLAGGED PLAYING");
+    t.checkExpect(server1.respond(conn1, "FLAG 0 0", 0), "OK UNFLAGGED PLAYING");
+    t.checkExpect(server1.respond(conn1, "REVEAL 3 0", 0), "ERR Square is off the field");
+    t.checkExpect(server1.respond(conn1, "REVEAL x 0", 0), "ERR Bad number");
+    t.checkExpect(server1.respond(conn1, "STATUS", 0), "OK PLAYING 1 1");
+    t.checkExpect(server1.respond(conn1, "SHOW", 0), "OK 3\n1##\n#F#\n###");
+    t.checkExpect(server1.respond(conn1, "JUMP", 0), "ERR Unknown command");
+    t.checkExpect(server1.respond(conn1, "REVEAL 1 2", 0), "OK 1 LOST");
+    t.checkExpect(server1.respond(conn1, "SHOW", 0), "OK 3\n1##\n#F*\n###");
+    t.checkExpect(server1.respond(conn2, "NEW 5000 5000 1", 0),
+        "ERR Field is too large for a session");
+    t.checkExpect(server1.respond(conn2, "NEW 1 5 1", 0), "ERR Field is too small");
+    t.checkExpect(server1.respond(conn2, "NEW 3 3 9", 0),
+        "ERR There are too many mines in the field");
+    t.checkExpect(server1.respond(conn2, "NEW 3 3 x", 0), "ERR Bad number");
+    t.checkExpect(server1.respond(conn2, "NEW 3 3 -1", 0),
+        "ERR There can't be fewer than no mines");
+    t.checkExpect(conn2.session, null);
+    // starting a new game ends the one the connection started before
+    Session first = conn1.session;
+    t.checkExpect(server1.respond(conn1, "NEW 3 3 1", 0), "OK " + conn1.session.name());
+    t.checkExpect(first.ended, true);
+    t.checkExpect(server1.open.get(), 1);
+    t.checkExpect(server1.respond(conn1, "NEW 3 3 1", 0), "OK " + conn1.session.name());
+    t.checkExpect(server1.open.get(), 1);
+  }
+
+  // tests JOIN and END, and that sessions are kept apart
+  void testSessions(Tester t) {
+    reset();
+    server1.respond(conn1, "NEW 3 3 2 52", 0);
+    t.checkExpect(server1.respond(conn2, "NEW 4 4 1 3", 0), "OK " + conn2.session.name());
+    t.checkExpect(conn1.session.id == conn2.session.id, false);
+    server1.respond(conn2, "FLAG 0 0", 0);
+    t.checkExpect(server1.respond(conn1, "STATUS", 0), "OK PLAYING 0 0");
+    t.checkExpect(server1.respond(new Connection(server1, null), "NEW 3 3 1", 0),
+        "ERR Too many sessions");
+    // a second connection can play in the same session
+    Connection conn3 = new Connection(server1, null);
+    String id = conn1.session.name();
+    t.checkExpect(server1.respond(conn3, "JOIN " + id, 0), "OK " + id);
+    server1.respond(conn3, "REVEAL 0 0", 0);
+    t.checkExpect(server1.respond(conn1, "STATUS", 0), "OK PLAYING 1 0");
+    t.checkExpect(server1.respond(conn3, "JOIN 1", 0), "ERR No such session");
+    t.checkExpect(server1.respond(conn3, "JOIN 1g", 0), "ERR Bad number");
+    // joining a session doesn't make it the connection's own
+    t.checkExpect(conn3.started, null);
+    t.checkExpect(server1.respond(conn3, "END", 0), "OK");
+    t.checkExpect(server1.respond(conn1, "STATUS", 0), "ERR Not in a session");
+    t.checkExpect(server1.respond(conn3, "STATUS", 0), "ERR Not in a session");
+    t.checkExpect(server1.open.get(), 1);
+    t.checkExpect(server1.respond(conn1, "NEW 3 3 1", 0), "OK " + conn1.session.name());
+    t.checkExpect(server1.open.get(), 2);
+  }
+
+  // tests openSession, endSession, evictIdle and readTimeout
+  void testEvictIdle(Tester t) {
+    reset();
+    server1.respond(conn1, "NEW 3 3 2 52", 0);
+    server1.respond(conn2, "NEW 3 3 2 52", 0);
+    long id = conn1.session.id;
+    server1.respond(conn2, "STATUS", 600000000L);
+    t.checkExpect(server1.evictIdle(1000000000L), 0);
+    t.checkExpect(server1.evictIdle(1000000001L), 1);
+    t.checkExpect(server1.sessions.containsKey(id), false);
+    t.checkExpect(server1.respond(conn1, "STATUS", 1000000001L), "ERR Not in a session");
+    t.checkExpect(server1.respond(conn2, "STATUS", 1000000001L), "OK PLAYING 0 0");
+    t.checkExpect(server1.open.get(), 1);
+    server1.endSession(conn2.session);
+    server1.endSession(conn2.session);
+    t.checkExpect(server1.open.get(), 0);
+    // a session whose id is taken gets another one
+    server1.ids = new Random(5);
+    Random same = new Random(5);
+    Session taken = server1.openSession(null, 0);
+    t.checkExpect(taken.id, same.nextLong());
+    server1.ids = new Random(5);
+    t.checkExpect(server1.openSession(null, 0).id, same.nextLong());
+    t.checkExpect(server1.sessions.get(taken.id), taken);
+    t.checkExpect(server1.readTimeout(), 1000);
+    t.checkExpect(new GameServer(1, 0).readTimeout(), 1);
+    t.checkExpect(new GameServer(1, Long.MAX_VALUE / 1000000).readTimeout(), Integer.MAX_VALUE);
+  }
+
+  // tests hangUp on Connection
+  void testHangUp(Tester t) {
+    reset();
+    server1.respond(conn1, "NEW 3 3 2 52", 0);
+    Session first = conn1.session;
+    server1.respond(conn2, "JOIN " + first.name(), 0);
+    conn2.hangUp();
+    t.checkExpect(first.ended, false);
+    t.checkExpect(conn2.session, null);
+    conn1.hangUp();
+    t.checkExpect(first.ended, true);
+    t.checkExpect(conn1.started, null);
+    t.checkExpect(server1.open.get(), 0);
+    conn1.hangUp();
+    t.checkExpect(server1.open.get(), 0);
+  }
+
+  // tests readLine on Connection
+  void testReadLine(Tester t) {
+    try {
+      ByteArrayInputStream in = new ByteArrayInputStream(
+          "NEW 3 3 1\r\nSHOW\nEND".getBytes(StandardCharsets.US_ASCII));
+      t.checkExpect(Connection.readLine(in), "NEW 3 3 1");
+      t.checkExpect(Connection.readLine(in), "SHOW");
+      t.checkExpect(Connection.readLine(in), "END");
+      t.checkExpect(Connection.readLine(in), null);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    byte[] longLine = new byte[GameServer.MAX_LINE + 10];
+    Arrays.fill(longLine, (byte) 'A');
+    t.checkException(new IOException("Line is too long"), new Connection(null, null),
+        "readLine", new ByteArrayInputStream(longLine));
+  }
+
+  // tests start, run and stop, over a real socket
+  void testSocket(Tester t) {
+    reset();
+    server1.start(0);
+    try (Socket client = new Socket(InetAddress.getLoopbackAddress(),
+        server1.server.getLocalPort())) {
+      OutputStream out = client.getOutputStream();
+      InputStream in = client.getInputStream();
+      out.write("NEW 3 3 2 52\nREVEAL 0 0\n".getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+      String reply = Connection.readLine(in);
+      t.checkExpect(Connection.readLine(in), "OK 1 PLAYING");
+      t.checkExpect(server1.sessions.size(), 1);
+      for (Session session : server1.sessions.values()) {
+        t.checkExpect(reply, "OK " + session.name());
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    // a client that hangs up ends the session it started
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!server1.sessions.isEmpty() && System.nanoTime() < deadline) {
+      Thread.yield();
+    }
+    t.checkExpect(server1.sessions.isEmpty(), true);
+    t.checkExpect(server1.open.get(), 0);
+    // a connection that sends nothing is closed after the idle time
+    try (Socket quiet = new Socket(InetAddress.getLoopbackAddress(),
+        server1.server.getLocalPort())) {
+      quiet.setSoTimeout(10000);
+      t.checkExpect(Connection.readLine(quiet.getInputStream()), null);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    server1.stop();
+    t.checkExpect(server1.server.isClosed(), true);
+    t.checkExpect(server1.sessions.isEmpty(), true);
+  }
+}
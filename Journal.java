@@ -0,0 +1,287 @@
+import tester.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// representing the history of the moves made on a Minefield, which can be taken back
+// and made again
+// each move keeps only what it changed: the indices of the squares it touched, which
+// bit it flipped on all of them, and how it changed the counters and the status of the
+// game, so taking a move back or making it again costs time in the number of squares
+// it changed and never copies the Board
+// the squares are found by listening to the Board while the move is made, and are
+// kept one move after another in a single array of ints
+// moves made on the field without going through the Journal aren't in the history,
+// and taking back moves around them puts the field in a state it was never in
+class Journal implements IBoardListener {
+  Minefield field;
+  // the squares changed by every move, one move after another
+  int[] changed;
+  int changedCount;
+  // where each move's squares start in changed, with one extra entry for the end
+  int[] starts;
+  // the bit each move flipped on its squares
+  byte[] masks;
+  // how much each move changed the number of squares revealed and mines left
+  int[] clickedDeltas;
+  int[] mineDeltas;
+  // the status of the game before and after each move
+  GameStatus[] statusBefore;
+  GameStatus[] statusAfter;
+  // how many moves are in the history, counting the ones that were taken back
+  int moves;
+  // how many moves are in effect
+  int applied;
+  boolean recording;
+
+  // basic constructor for an empty history of the given game
+  // EFFECT: Starts listening to the game's Board
+  Journal(Minefield field) {
+    this.field = field;
+    this.changed = new int[64];
+    this.changedCount = 0;
+    this.starts = new int[17];
+    this.masks = new byte[16];
+    this.clickedDeltas = new int[16];
+    this.mineDeltas = new int[16];
+    this.statusBefore = new GameStatus[16];
+    this.statusAfter = new GameStatus[16];
+    this.moves = 0;
+    this.applied = 0;
+    this.recording = false;
+    field.board.listeners.add(this);
+  }
+
+  // remembers that the square at the given index was changed by the move being made
+  // EFFECT: Adds the index to changed
+  public void cellChanged(int idx) {
+    if (!this.recording) {
+      return;
+    }
+    if (this.changedCount == this.changed.length) {
+      this.changed = Arrays.copyOf(this.changed, this.changed.length * 2);
+    }
+    this.changed[this.changedCount] = idx;
+    this.changedCount++;
+  }
+
+  // reveals the square at the given index as a move that can be taken back, and
+  // returns how many squares were newly revealed
+  // EFFECT: Reveals squares of the game, and adds the move to the history
+  int reveal(int idx) {
+    this.begin();
+    int revealed = this.field.revealCell(idx);
+    this.end(Board.REVEALED);
+    return revealed;
+  }
+
+  // flags or unflags the square at the given index as a move that can be taken back,
+  // and returns whether the square is flagged afterwards
+  // EFFECT: Changes the flag on the square, and adds the move to the history
+  boolean flag(int idx) {
+    this.begin();
+    boolean flagged = this.field.flagCell(idx);
+    this.end(Board.FLAG);
+    return flagged;
+  }
+
+  // gets ready to remember the squares changed by a move, forgetting any moves that
+  // were taken back, since they can't be made again after a new move
+  // EFFECT: Drops the moves after the ones in effect, and starts recording
+  void begin() {
+    this.moves = this.applied;
+    this.changedCount = this.starts[this.moves];
+    if (this.moves == this.masks.length) {
+      int grown = this.moves * 2;
+      this.starts = Arrays.copyOf(this.starts, grown + 1);
+      this.masks = Arrays.copyOf(this.masks, grown);
+      this.clickedDeltas = Arrays.copyOf(this.clickedDeltas, grown);
+      this.mineDeltas = Arrays.copyOf(this.mineDeltas, grown);
+      this.statusBefore = Arrays.copyOf(this.statusBefore, grown);
+      this.statusAfter = Arrays.copyOf(this.statusAfter, grown);
+    }
+    this.clickedDeltas[this.moves] = -this.field.cellsClicked;
+    this.mineDeltas[this.moves] = -this.field.numMines;
+    this.statusBefore[this.moves] = this.field.status;
+    this.recording = true;
+  }
+
+  // finishes remembering a move that flipped the given bit on every square it
+  // changed, keeping it in the history only if it changed any squares
+  // EFFECT: Stops recording, and adds the move to the history
+  void end(int mask) {
+    this.recording = false;
+    if (this.changedCount == this.starts[this.moves]) {
+      return;
+    }
+    this.masks[this.moves] = (byte) mask;
+    this.clickedDeltas[this.moves] += this.field.cellsClicked;
+    this.mineDeltas[this.moves] += this.field.numMines;
+    this.statusAfter[this.moves] = this.field.status;
+    this.moves++;
+    this.applied = this.moves;
+    this.starts[this.moves] = this.changedCount;
+  }
+
+  // can a move be taken back?
+  boolean canUndo() {
+    return this.applied > 0;
+  }
+
+  // can a move that was taken back be made again?
+  boolean canRedo() {
+    return this.applied < this.moves;
+  }
+
+  // takes back the last move in effect, and returns whether there was one
+  // EFFECT: Flips the move's bit back on its squares, and puts the counters and the
+  // status back to how they were before it
+  boolean undo() {
+    if (!this.canUndo()) {
+      return false;
+    }
+    this.applied--;
+    this.flip(this.applied);
+    this.field.cellsClicked -= this.clickedDeltas[this.applied];
+    this.field.numMines -= this.mineDeltas[this.applied];
+    this.field.status = this.statusBefore[this.applied];
+    return true;
+  }
+
+  // makes the last move that was taken back again, and returns whether there was one
+  // EFFECT: Flips the move's bit on its squares, and puts the counters and the status
+  // back to how they were after it
+  boolean redo() {
+    if (!this.canRedo()) {
+      return false;
+    }
+    this.flip(this.applied);
+    this.field.cellsClicked += this.clickedDeltas[this.applied];
+    this.field.numMines += this.mineDeltas[this.applied];
+    this.field.status = this.statusAfter[this.applied];
+    this.applied++;
+    return true;
+  }
+
+  // flips the bit of the given move on every square it changed
+  // EFFECT: Changes the squares, and tells the Board's listeners about each
+  void flip(int move) {
+    Board board = this.field.board;
+    byte mask = this.masks[move];
+    for (int i = this.starts[move]; i < this.starts[move + 1]; i++) {
+      board.cells[this.changed[i]] ^= mask;
+      board.changed(this.changed[i]);
+    }
+  }
+
+  // stops listening to the game's Board, after which moves can't be made through this
+  // Journal
+  // EFFECT: Removes this Journal from the Board's listeners
+  void detach() {
+    this.field.board.listeners.remove(this);
+  }
+}
+
+class ExamplesJournal {
+  Minefield field1;
+  Journal journal1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 5x5 field split in two by a wall of mines down the middle column
+    Board walled = new Board(5, 5);
+    for (int i = 0; i < 5; i++) {
+      walled.placeMine(walled.index(i, 2));
+    }
+    field1 = new Minefield(walled, 5);
+    journal1 = new Journal(field1);
+  }
+
+  // tests reveal, flag, begin, end and cellChanged
+  void testRecord(Tester t) {
+    reset();
+    t.checkExpect(journal1.reveal(0), 10);
+    t.checkExpect(journal1.moves, 1);
+    t.checkExpect(journal1.starts[1], 10);
+    t.checkExpect(journal1.masks[0], (byte) Board.REVEALED);
+    t.checkExpect(journal1.clickedDeltas[0], 10);
+    t.checkExpect(journal1.flag(2), true);
+    t.checkExpect(journal1.moves, 2);
+    t.checkExpect(journal1.changed[10], 2);
+    t.checkExpect(journal1.mineDeltas[1], -1);
+    // moves that change nothing aren't kept
+    t.checkExpect(journal1.reveal(0), 0);
+    t.checkExpect(journal1.flag(1), false);
+    t.checkExpect(journal1.moves, 2);
+    // changes made without the Journal aren't kept
+    field1.flagCell(4);
+    t.checkExpect(journal1.changedCount, 11);
+    // the history grows past its starting size
+    Minefield big = new Minefield(10, 10, 0, new Random(1));
+    Journal many = new Journal(big);
+    for (int i = 0; i < 40; i++) {
+      many.flag(i);
+    }
+    t.checkExpect(many.moves, 40);
+    t.checkExpect(big.flagCount(), 40);
+  }
+
+  // tests undo, redo, canUndo, canRedo and flip
+  void testUndo(Tester t) {
+    reset();
+    byte[] start = field1.board.cells.clone();
+    t.checkExpect(journal1.undo(), false);
+    journal1.reveal(0);
+    byte[] first = field1.board.cells.clone();
+    journal1.flag(field1.board.index(0, 2));
+    byte[] middle = field1.board.cells.clone();
+    journal1.reveal(field1.board.index(0, 4));
+    byte[] end = field1.board.cells.clone();
+    t.checkExpect(field1.status(), GameStatus.WON);
+    t.checkExpect(journal1.undo(), true);
+    t.checkExpect(journal1.undo(), true);
+    t.checkExpect(field1.board.cells, first);
+    t.checkExpect(field1.status(), GameStatus.PLAYING);
+    t.checkExpect(field1.revealedCount(), 10);
+    t.checkExpect(field1.flagCount(), 0);
+    t.checkExpect(journal1.canRedo(), true);
+    t.checkExpect(journal1.redo(), true);
+    t.checkExpect(field1.board.cells, middle);
+    t.checkExpect(field1.flagCount(), 1);
+    t.checkExpect(journal1.redo(), true);
+    t.checkExpect(field1.board.cells, end);
+    t.checkExpect(field1.status(), GameStatus.WON);
+    t.checkExpect(journal1.redo(), false);
+    while (journal1.undo()) {
+      // each undo takes back one move
+    }
+    t.checkExpect(field1.board.cells, start);
+    t.checkExpect(field1.revealedCount(), 0);
+    t.checkExpect(journal1.canUndo(), false);
+    // a new move drops the moves that were taken back
+    journal1.reveal(field1.board.index(4, 4));
+    t.checkExpect(journal1.canRedo(), false);
+    t.checkExpect(journal1.moves, 1);
+    t.checkExpect(journal1.starts[1], 10);
+    // losing can be taken back too
+    journal1.reveal(field1.board.index(2, 2));
+    t.checkExpect(field1.status(), GameStatus.LOST);
+    journal1.undo();
+    t.checkExpect(field1.status(), GameStatus.PLAYING);
+    t.checkExpect(field1.board.isRevealed(field1.board.index(2, 2)), false);
+  }
+
+  // tests detach, and that the Board's listeners are told about undone squares
+  void testDetach(Tester t) {
+    reset();
+    BoardRenderer renderer = new BoardRenderer(field1.board);
+    renderer.draw();
+    journal1.reveal(0);
+    renderer.draw();
+    journal1.undo();
+    t.checkExpect(renderer.dirtyCells.size, 10);
+    journal1.detach();
+    t.checkExpect(field1.board.listeners.contains(journal1), false);
+  }
+}
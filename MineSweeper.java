@@ -1,5 +1,7 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 
 import tester.*;
 import javalib.impworld.*;
@@ -11,20 +13,11 @@ import java.util.Random;
 // representing a cell in the game MineSweeper
 class Cell {
   public static final int CELL_SIZE = 20;
-  public final WorldImage MINE = new CircleImage(5, OutlineMode.SOLID, Color.RED);
-  public final WorldImage FLAG = new CircleImage(5, OutlineMode.SOLID, Color.GREEN);
-  public final WorldImage CLICKED_CELL = new FrameImage(
-      new RectangleImage(CELL_SIZE, CELL_SIZE, OutlineMode.SOLID, Color.DARK_GRAY));
-  public final WorldImage UNCLICKED_CELL = new FrameImage(
-      new RectangleImage(CELL_SIZE, CELL_SIZE, OutlineMode.SOLID, Color.GRAY));
-  public final ArrayList<Color> COLORS = new ArrayList<Color>(Arrays.asList(Color.BLUE, Color.GREEN,
-      Color.RED, Color.MAGENTA, Color.ORANGE, Color.CYAN, Color.BLACK, Color.GRAY));
 
   ArrayList<Cell> neighbors;
   boolean isMine;
   boolean isRightClicked;
   boolean isLeftClicked;
-  WorldImage cell;
 
   // basic constructor for creating a new Cell
   Cell() {
@@ -58,29 +51,16 @@ class Cell {
     return count;
   }
 
-  // renders this Cell as an image
+  // renders this Cell as an image, using the shared Sprites
   public WorldImage drawCell() {
-    if (this.isRightClicked) {
-      return this.drawClickedCell(FLAG, UNCLICKED_CELL);
-    }
-    else if (this.isLeftClicked && !this.isMine && this.countMines() == 0) {
-      return CLICKED_CELL;
-    }
-    else if (this.isLeftClicked && !this.isMine && this.countMines() != 0) {
-      return this.drawClickedCell(
-          new TextImage(Integer.toString(this.countMines()), COLORS.get(this.countMines() - 1)),
-          CLICKED_CELL);
-    }
-    else if (this.isLeftClicked && this.isMine) {
-      return this.drawClickedCell(MINE, CLICKED_CELL);
-    }
-    else {
-      return UNCLICKED_CELL;
+    if (this.isLeftClicked && !this.isMine && !this.isRightClicked) {
+      return Sprites.NUMBERS[this.countMines()];
     }
+    return Sprites.forSquare(this.isMine, this.isRightClicked, this.isLeftClicked, 0);
   }
 
   // renders a clicked Cell as an image
-  public WorldImage drawClickedCell(WorldImage im, WorldImage cell) {
+  public static WorldImage drawClickedCell(WorldImage im, WorldImage cell) {
     return new OverlayImage(im, cell);
   }
 
@@ -117,166 +97,212 @@ class Cell {
   }
 
   // make this Cell left clicked, and the Cells around it if it doesn't have
-  // surrounding mines
+  // surrounding mines, returning how many Cells were newly left clicked
   // EFFECT: Makes this Cell left clicked, and implements flood fill behavior
   public int makeLeftClicked() {
-    this.isLeftClicked = true;
-    if (this.countMines() == 0 && !this.isMine) {
-      ArrayList<Cell> seen = new ArrayList<Cell>();
-      ArrayList<Cell> added = new ArrayList<Cell>();
-      seen.add(this);
-      added.add(this);
-      return this.floodFill(seen, added);
+    int count = 0;
+    if (!this.isLeftClicked) {
+      this.isLeftClicked = true;
+      count++;
     }
-    else {
-      return 1;
+    if (this.countMines() == 0 && !this.isMine) {
+      count += this.floodFill();
     }
+    return count;
   }
 
-  // implements floodfill behavior by making all Cells with no mines neighboring
-  // left-clicked
+  // implements floodfill behavior by making the neighbors of this Cell, and of every
+  // Cell reached with no mines neighboring, left-clicked, returning how many Cells
+  // were newly left clicked
+  // uses a work queue instead of recursion, and visits every Cell at most once
+  // flagged Cells are not left-clicked and the fill does not spread past them
   // EFFECT: Makes all neighboring cells with no neighboring mines left-clicked
-  public int floodFill(ArrayList<Cell> seen, ArrayList<Cell> added) {
-    for (Cell c : this.neighbors) {
-      c.isLeftClicked = true;
-      if (!added.contains(c)) {
-        added.add(c);
-      }
-      if (c.countMines() == 0 && !seen.contains(c)) {
-        seen.add(c);
-        c.floodFill(seen, added);
-
+  public int floodFill() {
+    ArrayDeque<Cell> work = new ArrayDeque<Cell>();
+    HashSet<Cell> seen = new HashSet<Cell>();
+    int count = 0;
+    work.add(this);
+    seen.add(this);
+    while (!work.isEmpty()) {
+      for (Cell c : work.remove().neighbors) {
+        if (c.isRightClicked) {
+          continue;
+        }
+        if (!c.isLeftClicked) {
+          c.isLeftClicked = true;
+          count++;
+        }
+        if (!c.isMine && c.countMines() == 0 && seen.add(c)) {
+          work.add(c);
+        }
       }
     }
-    return added.size();
+    return count;
   }
 }
 
 // representing the world state for the game MineSweeper
+// the rules of the game are kept by a Minefield, and this World only turns clicks
+// into moves on it and draws it
 class MineSweeper extends World {
 
-  ArrayList<ArrayList<Cell>> field;
-  int numCellsX;
-  int numCellsY;
-  int numInitMines;
-  int numMines;
+  Minefield field;
   int worldWidth;
   int worldHeight;
-  int cellsClicked;
   int ticks;
-  Random rand;
+  AWindowRenderer renderer;
+  // is the field painted into a single image of pixels, instead of built from the
+  // images of its squares?
+  boolean raster;
+  // the window the field is seen through
+  Camera camera;
+  // the record of every click, if the game was laid out from a seed
+  ReplayLog log;
+  // the history of moves that can be taken back, in practice games
+  Journal journal;
+  // the version of the game's state, which every tick, click and key moves on
+  int version;
+  // the last scene drawn, with the version and the size of the squares it shows
+  WorldScene scene;
+  int sceneVersion;
+  int sceneCellSize;
+  // the last header drawn and its pieces, with the numbers and field width they show
+  WorldImage header;
+  WorldImage minesImage;
+  WorldImage titleImage;
+  WorldImage ticksImage;
+  int minesShown;
+  int titleWidth;
+  int ticksShown;
 
   // basic constructor for starting the MineSweeper game
-  // certain restrictions put on the inputs for the game-
-  // the player can't make the number of cells in the x direction larger than 90
-  // or else the game would go off the screen of the computer
-  // same with the number of cells in the y direction
-  // and the player can't input an initial number of mines that is greater
-  // than or equal to the total number of cells, else the player would not be able
-  // to win or there would not be enough cells for the mines to go into
+  // the same restrictions on the inputs as for a Minefield
+  // the mines are laid out from a random seed, so the game can still be recorded
   MineSweeper(int numCellsX, int numCellsY, int numInitMines) {
-    if (numCellsX > 90) {
-      throw new IllegalArgumentException("Minefield is too wide for the screen");
-    }
-    if (numCellsY > 40) {
-      throw new IllegalArgumentException("Minefield is too high for the screen");
-    }
-    if (numCellsX < 2 || numCellsY < 2) {
-      throw new IllegalArgumentException("Field is too small");
-    }
-    if (numInitMines >= numCellsX * numCellsY) {
-      throw new IllegalArgumentException("There are too many mines in the field");
-    }
-    this.numCellsX = numCellsX;
-    this.numCellsY = numCellsY;
-    this.numInitMines = numInitMines;
-    this.worldWidth = numCellsX * Cell.CELL_SIZE;
-    this.worldHeight = numCellsY * Cell.CELL_SIZE + Cell.CELL_SIZE * 2;
-    this.numMines = numInitMines;
-    this.cellsClicked = 0;
-    this.ticks = 0;
-    rand = new Random();
-    this.field = this.makeField();
-    this.addMines();
-    this.linkCells();
+    this(numCellsX, numCellsY, numInitMines, new Random().nextInt());
   }
 
-  // convenience constructor for testing
+  // convenience constructor for testing, which always lays out the same mines for
+  // the same seed
   // same restrictions as described in the above constructor
   MineSweeper(int numCellsX, int numCellsY, int numInitMines, int seed) {
-    if (numCellsX > 90) {
-      throw new IllegalArgumentException("Minefield is too wide for the screen");
-    }
-    if (numCellsY > 40) {
-      throw new IllegalArgumentException("Minefield is too high for the screen");
-    }
-    if (numCellsX < 2 || numCellsY < 2) {
-      throw new IllegalArgumentException("Field is too small");
-    }
-    if (numInitMines >= numCellsX * numCellsY) {
-      throw new IllegalArgumentException("There are too many mines in the field");
-    }
-    this.numCellsX = numCellsX;
-    this.numCellsY = numCellsY;
-    this.numInitMines = numInitMines;
-    this.worldWidth = numCellsX * Cell.CELL_SIZE;
-    this.worldHeight = numCellsY * Cell.CELL_SIZE + Cell.CELL_SIZE * 2;
-    this.numMines = numInitMines;
-    this.cellsClicked = 0;
-    rand = new Random(seed);
-    this.field = new ArrayList<ArrayList<Cell>>();
-  }
-
-  // making the field with the specified number of mines
-  ArrayList<ArrayList<Cell>> makeField() {
-    ArrayList<ArrayList<Cell>> row = new ArrayList<ArrayList<Cell>>();
-    for (int i = 0; i < this.numCellsY; i++) {
-      ArrayList<Cell> column = new ArrayList<Cell>();
-      for (int j = 0; j < this.numCellsX; j++) {
-        column.add(new Cell());
-      }
-      row.add(column);
-    }
-    return row;
+    this(numCellsX, numCellsY, numInitMines, seed, false);
   }
 
-  // adds mines at random positions on the field
-  void addMines() {
-    ArrayList<Posn> positions = new ArrayList<Posn>();
-    for (int i = 0; i < numCellsY; i++) {
-      for (int j = 0; j < this.numCellsX; j++) {
-        positions.add(new Posn(i, j));
-      }
-    }
+  // constructor for starting a game that, if asked for, can be won without guessing
+  // from the square in the middle of the field, which is then already revealed
+  // such a field needs room for the middle square and its neighbors to be clear
+  MineSweeper(int numCellsX, int numCellsY, int numInitMines, boolean noGuess) {
+    this(numCellsX, numCellsY, numInitMines, new Random().nextInt(), noGuess);
+  }
 
-    int temp = positions.size();
-    for (int i = 0; i < numMines; i++) {
-      int num = rand.nextInt(temp);
-      Posn thisPos = positions.get(num);
-      field.get(thisPos.x).get(thisPos.y).updateMine();
-      positions.remove(num);
-      temp--;
-    }
+  // convenience constructor for testing, which always lays out the same mines for
+  // the same seed
+  // every click on the field is recorded in a ReplayLog, which can play the game
+  // back from the seed
+  // same restrictions as described in the above constructor
+  MineSweeper(int numCellsX, int numCellsY, int numInitMines, int seed, boolean noGuess) {
+    this(MineSweeper.makeField(numCellsX, numCellsY, numInitMines, seed, noGuess));
+    this.log = new ReplayLog(numCellsX, numCellsY, numInitMines, seed, noGuess);
   }
 
-  // links each Cell in the field to its neighbor Cells
-  void linkCells() {
-    for (int i = 0; i < numCellsY; i++) {
-      for (int j = 0; j < numCellsX; j++) {
-        this.field.get(i).get(j).linkCellsHelp(i, j, this.field);
-      }
+  // returns a new game laid out from the given seed, which can be won without
+  // guessing if asked for
+  static Minefield makeField(int numCellsX, int numCellsY, int numInitMines, int seed,
+      boolean noGuess) {
+    if (noGuess) {
+      return NoGuessGenerator.generate(numCellsX, numCellsY, numInitMines, new Random(seed));
     }
+    return new Minefield(numCellsX, numCellsY, numInitMines, new Random(seed));
+  }
+
+  // constructor for playing the given game
+  // the world is as big as the field, up to the biggest window a Camera shows, and
+  // bigger fields are scrolled around in it
+  MineSweeper(Minefield field) {
+    this.field = field;
+    this.camera = new Camera(field.board.width, field.board.height);
+    this.worldWidth = this.camera.width;
+    this.worldHeight = this.camera.height + Cell.CELL_SIZE * 2;
+    this.ticks = 0;
+  }
+
+  // constructor for picking a saved game back up where it was left, which reads the
+  // whole field out of the store into memory
+  MineSweeper(BoardStore store) {
+    this(store.load());
+    this.ticks = store.ticks();
   }
 
   // keeps track of how much time has passed since the game started
+  // EFFECT: Moves the version of the game on
   public void onTick() {
     this.ticks++;
+    this.version++;
+  }
+
+  // turns this game into a practice game, whose moves can be taken back with the u key
+  // and made again with the r key
+  // practice games aren't recorded, since their ReplayLog couldn't play them back
+  // EFFECT: Starts a Journal of the moves, and drops the ReplayLog
+  void practice() {
+    if (this.journal == null) {
+      this.journal = new Journal(this.field);
+      this.log = null;
+    }
+  }
+
+  // paints the field into a single image of pixels from the next frame on if given
+  // true, or builds it from the images of its squares if given false
+  // EFFECT: Drops the renderer, so the next frame starts the right kind
+  void useRaster(boolean raster) {
+    if (raster != this.raster && this.renderer != null) {
+      this.renderer.board.listeners.remove(this.renderer);
+      this.renderer = null;
+    }
+    this.raster = raster;
+  }
+
+  // scrolls the window around the field with the arrow keys, zooms in and out with
+  // the + and - keys, and takes back or makes again a move in a practice game
+  // the arrow keys scroll a quarter of the window at a time
+  // EFFECT: Moves the Camera, or changes the field to how it was before or after a move,
+  // and moves the version of the game on
+  public void onKeyEvent(String key) {
+    this.version++;
+    int rowStep = Math.max(this.camera.rows() / 4, 1);
+    int colStep = Math.max(this.camera.cols() / 4, 1);
+    if (key.equals("up")) {
+      this.camera.scroll(-rowStep, 0);
+    }
+    else if (key.equals("down")) {
+      this.camera.scroll(rowStep, 0);
+    }
+    else if (key.equals("left")) {
+      this.camera.scroll(0, colStep);
+    }
+    else if (key.equals("right")) {
+      this.camera.scroll(0, -colStep);
+    }
+    else if (key.equals("+") || key.equals("=")) {
+      this.camera.zoomIn();
+    }
+    else if (key.equals("-")) {
+      this.camera.zoomOut();
+    }
+    else if (this.journal != null && key.equals("u")) {
+      this.journal.undo();
+    }
+    else if (this.journal != null && key.equals("r")) {
+      this.journal.redo();
+    }
   }
 
   // implements the correct behavior based on what cell is pressed with which
   // mouse button
   // EFFECT: Changes the state of the board by making the cell clicked change
   public void onMouseClicked(Posn pos, String buttonName) {
+    this.record(pos, buttonName);
     if (buttonName.equals("LeftButton")) {
       this.handleLeftClick(pos);
     }
@@ -288,72 +314,77 @@ class MineSweeper extends World {
     }
   }
 
+  // adds a click on the field with the left or right button to the ReplayLog, if
+  // the game has one
+  // EFFECT: Appends the click to the log
+  void record(Posn pos, String buttonName) {
+    int idx = this.cellIndex(pos);
+    if (this.log == null || idx < 0) {
+      return;
+    }
+    if (buttonName.equals("LeftButton")) {
+      this.log.record(this.ticks, idx, ReplayLog.LEFT);
+    }
+    else if (buttonName.equals("RightButton")) {
+      this.log.record(this.ticks, idx, ReplayLog.RIGHT);
+    }
+  }
+
   // handles the case that a Cell is right-clicked
   // EFFECT: Makes the appropriate Cell right-clicked
   public void handleRightClick(Posn pos) {
-    Posn temp = this.getCell(pos);
-    int wantI = temp.x;
-    int wantJ = temp.y;
-    for (int i = 0; i < this.numCellsY; i++) {
-      for (int j = 0; j < this.numCellsX; j++) {
-        if (wantI == i && wantJ == j) {
-          if (field.get(i).get(j).alreadyClicked()) {
-            if (field.get(i).get(j).isRightClicked) {
-              this.numMines++;
-            }
-            field.get(i).get(j).changeRightClicked(false);
-          }
-          else {
-            field.get(i).get(j).changeRightClicked(true);
-            this.numMines--;
-          }
-        }
-      }
+    this.version++;
+    int idx = this.cellIndex(pos);
+    if (idx >= 0 && this.journal != null) {
+      this.journal.flag(idx);
+    }
+    else if (idx >= 0) {
+      this.field.flagCell(idx);
     }
   }
 
   // handle the case that a Cell is left-clicked
-  // EFFECT: Makes the clicked Cell and surrounding Cells possibly left-clicked
+  // EFFECT: Makes the clicked Cell and surrounding Cells possibly left-clicked, and
+  // updates the number of Cells clicked and the status of the game
   public void handleLeftClick(Posn pos) {
-    Posn temp = this.getCell(pos);
-    int wantI = temp.x;
-    int wantJ = temp.y;
-    for (int i = 0; i < this.numCellsY; i++) {
-      for (int j = 0; j < this.numCellsX; j++) {
-        if (wantI == i && wantJ == j) {
-          if (field.get(i).get(j).alreadyClicked()) {
-            return;
-          }
-          else {
-            this.cellsClicked += this.field.get(i).get(j).makeLeftClicked();
-          }
-        }
-      }
+    this.version++;
+    int idx = this.cellIndex(pos);
+    if (idx >= 0 && this.journal != null) {
+      this.journal.reveal(idx);
+    }
+    else if (idx >= 0) {
+      this.field.revealCell(idx);
     }
   }
 
-  // turns the given position into the appropriate Cell in the field
+  // turns the given position into the appropriate Cell in the field, through the
+  // window the field is seen through
   public Posn getCell(Posn p) {
-    return new Posn((p.y - Cell.CELL_SIZE * 2) / Cell.CELL_SIZE,
-        (this.worldWidth - p.x) / Cell.CELL_SIZE);
+    return this.camera.squareAt(p);
+  }
+
+  // turns the given position into the index of the appropriate Cell in the field,
+  // or -1 if the position is on the header or off the field
+  public int cellIndex(Posn p) {
+    if (p.y < Cell.CELL_SIZE * 2 || p.y >= this.worldHeight || p.x <= 0
+        || p.x > this.worldWidth) {
+      return -1;
+    }
+    Posn cell = this.getCell(p);
+    if (!this.field.board.onBoard(cell.x, cell.y)) {
+      return -1;
+    }
+    return this.field.board.index(cell.x, cell.y);
   }
 
   // are anything in the field left-clicked and mines?
   public boolean anyMinesClicked() {
-    boolean result = false;
-    for (int i = 0; i < this.numCellsY; i++) {
-      for (int j = 0; j < this.numCellsX; j++) {
-        if (!result) {
-          result = field.get(i).get(j).worldEndCell();
-        }
-      }
-    }
-    return result;
+    return this.field.status() == GameStatus.LOST;
   }
 
   // determines if the game has been won
   public boolean wonGame() {
-    return cellsClicked == this.numCellsX * this.numCellsY - this.numInitMines;
+    return this.field.status() == GameStatus.WON;
   }
 
   // determines whether the world is ending or not
@@ -378,25 +409,88 @@ class MineSweeper extends World {
   }
 
   // renders an image of the game
+  // the field is drawn by a BoardRenderer, or a RasterRenderer if asked for, which
+  // only draws the Cells inside the Camera's window, and only redraws the Cells that
+  // changed since the last frame
+  // the field is drawn from the top right corner below the header, where the Camera
+  // counts its rows and columns from
+  // a RasterRenderer paints its squares at the Camera's size, and a BoardRenderer's
+  // window is scaled to it
+  // the last scene is drawn again if the version of the game hasn't moved on, and
+  // neither the squares in the window nor the window itself have changed since, so a
+  // game that is left alone costs almost nothing to draw
+  // EFFECT: Starts a new renderer if the field has been replaced or a RasterRenderer
+  // has to paint at a new size, or moves it along with the Camera, and keeps the scene
   public WorldScene makeScene() {
-    WorldScene scene = new WorldScene(this.worldWidth, this.worldHeight);
-    WorldImage row = new EmptyImage();
-    for (int i = 0; i < this.numCellsY; i++) {
-      WorldImage column = new EmptyImage();
-      for (int j = 0; j < this.numCellsX; j++) {
-        column = new BesideImage(this.field.get(i).get(j).drawCell(), column);
-      }
-      row = new AboveImage(row, column);
+    Camera camera = this.camera;
+    boolean moved = true;
+    if (this.renderer == null || this.renderer.board != this.field.board) {
+      this.renderer = this.newRenderer();
+    }
+    else if (this.raster && this.renderer.cellSize != camera.cellSize) {
+      this.renderer.board.listeners.remove(this.renderer);
+      this.renderer = this.newRenderer();
+    }
+    else {
+      moved = this.renderer.moveTo(camera.firstRow, camera.firstCol, camera.rows(),
+          camera.cols());
+    }
+    if (!moved && this.scene != null && this.sceneVersion == this.version
+        && this.sceneCellSize == camera.cellSize && this.renderer.dirtyCells.isEmpty()) {
+      return this.scene;
     }
-    row = new AboveImage(this.drawHeader(), row);
-    scene.placeImageXY(row, this.worldWidth / 2, this.worldHeight / 2);
+    WorldImage window = this.renderer.draw();
+    if (this.renderer.cellSize != camera.cellSize) {
+      window = new ScaleImage(window, (double) camera.cellSize / this.renderer.cellSize);
+    }
+    WorldScene scene = new WorldScene(this.worldWidth, this.worldHeight);
+    scene.placeImageXY(this.drawHeader(), this.worldWidth / 2, Cell.CELL_SIZE);
+    scene.placeImageXY(window, this.worldWidth - camera.cols() * camera.cellSize / 2,
+        Cell.CELL_SIZE * 2 + camera.rows() * camera.cellSize / 2);
+    this.scene = scene;
+    this.sceneVersion = this.version;
+    this.sceneCellSize = camera.cellSize;
     return scene;
   }
 
+  // returns a renderer for the Camera's window of the field, of the kind asked for
+  // EFFECT: The renderer starts listening to the field's Board
+  AWindowRenderer newRenderer() {
+    Camera camera = this.camera;
+    if (this.raster) {
+      return new RasterRenderer(this.field.board, camera.firstRow, camera.firstCol,
+          camera.rows(), camera.cols(), camera.cellSize);
+    }
+    return new BoardRenderer(this.field.board, camera.firstRow, camera.firstCol, camera.rows(),
+        camera.cols());
+  }
+
   // draws the header of the game as a WorldImage
+  // each piece of the last header is kept until the number it shows changes, so a tick
+  // only draws the timer again
+  // EFFECT: Keeps the header and its pieces
   public WorldImage drawHeader() {
-    return new BesideImage(this.drawGameNum(this.numMines),
-        new BesideImage(this.drawTitle(), this.drawGameNum(this.ticks)));
+    boolean changed = this.header == null;
+    if (this.minesImage == null || this.minesShown != this.field.numMines) {
+      this.minesImage = this.drawGameNum(this.field.numMines);
+      this.minesShown = this.field.numMines;
+      changed = true;
+    }
+    if (this.titleImage == null || this.titleWidth != this.field.board.width) {
+      this.titleImage = this.drawTitle();
+      this.titleWidth = this.field.board.width;
+      changed = true;
+    }
+    if (this.ticksImage == null || this.ticksShown != this.ticks) {
+      this.ticksImage = this.drawGameNum(this.ticks);
+      this.ticksShown = this.ticks;
+      changed = true;
+    }
+    if (changed) {
+      this.header = new BesideImage(this.minesImage,
+          new BesideImage(this.titleImage, this.ticksImage));
+    }
+    return this.header;
   }
 
   // renders the given number as an image
@@ -410,6 +504,7 @@ class MineSweeper extends World {
   // if statement is so that when minefield gets below a threshold size
   // we can still format the game (due to the way font width/height is made)
   public WorldImage drawTitle() {
+    int numCellsX = this.field.board.width;
     if (numCellsX < 10) {
       return new OverlayImage(new TextImage("MINESWEEPER", numCellsX, FontStyle.BOLD, Color.BLACK),
           new RectangleImage(this.worldWidth / 2, Cell.CELL_SIZE * 2, OutlineMode.SOLID,
@@ -461,10 +556,10 @@ class ExamplesMineSweeper {
   // when called, sets the examples to their original implementations
   // in order to get rid of any mutation done on them
   void reset() {
-    game1 = new MineSweeper(3, 3, 2, 50);
+    game1 = new MineSweeper(3, 3, 2, 52);
     game2 = new MineSweeper(5, 5, 3);
-    game3 = new MineSweeper(2, 2, 2, 50);
-    game4 = new MineSweeper(2, 2, 2, 1);
+    game3 = new MineSweeper(2, 2, 2, 5);
+    game4 = new MineSweeper(2, 2, 2, 7);
     game5 = new MineSweeper(2, 2, 2);
     game6 = new MineSweeper(15, 15, 99);
     cell1 = new Cell();
@@ -490,6 +585,26 @@ class ExamplesMineSweeper {
         false, false, true);
   }
 
+  // makes a grid of unlinked Cells with the given number of rows and columns
+  ArrayList<ArrayList<Cell>> makeCells(int rows, int cols) {
+    ArrayList<ArrayList<Cell>> cells = new ArrayList<ArrayList<Cell>>();
+    for (int i = 0; i < rows; i++) {
+      ArrayList<Cell> row = new ArrayList<Cell>();
+      for (int j = 0; j < cols; j++) {
+        row.add(new Cell());
+      }
+      cells.add(row);
+    }
+    return cells;
+  }
+
+  // returns a position in the middle of the Cell at the given row and column of
+  // the given game
+  Posn posnOf(MineSweeper game, int row, int col) {
+    return new Posn(game.worldWidth - col * Cell.CELL_SIZE - Cell.CELL_SIZE / 2,
+        Cell.CELL_SIZE * 2 + row * Cell.CELL_SIZE + Cell.CELL_SIZE / 2);
+  }
+
   // CELL ----------------------------------------------------------------
 
   // tests updateMine
@@ -505,22 +620,14 @@ class ExamplesMineSweeper {
   // test countMines
   void testCountMines(Tester t) {
     reset();
-    game4.field = game4.makeField();
-    t.checkExpect(game4.field.get(0).get(0).countMines(), 0);
-    game4.addMines();
-    t.checkExpect(game4.field.get(0).get(0).countMines(), 0);
-    game4.linkCells();
-    t.checkExpect(game4.field.get(0).get(0).countMines(), 2);
-    t.checkExpect(game4.field.get(0).get(1).countMines(), 1);
-    t.checkExpect(game4.field.get(1).get(0).countMines(), 1);
-    t.checkExpect(game4.field.get(1).get(1).countMines(), 2);
-
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    t.checkExpect(game1.field.get(0).get(0).countMines(), 1);
-    t.checkExpect(game1.field.get(1).get(1).countMines(), 1);
-    t.checkExpect(game1.field.get(2).get(2).countMines(), 2);
+    t.checkExpect(game4.field.board.adjacentMines(game4.field.board.index(0, 0)), 2);
+    t.checkExpect(game4.field.board.adjacentMines(game4.field.board.index(0, 1)), 1);
+    t.checkExpect(game4.field.board.adjacentMines(game4.field.board.index(1, 0)), 1);
+    t.checkExpect(game4.field.board.adjacentMines(game4.field.board.index(1, 1)), 2);
+
+    t.checkExpect(game1.field.board.adjacentMines(game1.field.board.index(0, 0)), 1);
+    t.checkExpect(game1.field.board.adjacentMines(game1.field.board.index(1, 1)), 1);
+    t.checkExpect(game1.field.board.adjacentMines(game1.field.board.index(2, 2)), 2);
   }
 
   // tests drawCell
@@ -584,26 +691,26 @@ class ExamplesMineSweeper {
   void testDrawClickedCell(Tester t) {
     reset();
     t.checkExpect(
-        cell2.drawClickedCell(new CircleImage(5, OutlineMode.SOLID, Color.RED),
+        Cell.drawClickedCell(new CircleImage(5, OutlineMode.SOLID, Color.RED),
             new FrameImage(new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID,
                 Color.DARK_GRAY))),
         new OverlayImage(new CircleImage(5, OutlineMode.SOLID, Color.RED),
             new FrameImage(new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID,
                 Color.DARK_GRAY))));
     t.checkExpect(
-        cell2.drawClickedCell(new CircleImage(5, OutlineMode.SOLID, Color.GREEN),
+        Cell.drawClickedCell(new CircleImage(5, OutlineMode.SOLID, Color.GREEN),
             new FrameImage(
                 new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY))),
         new OverlayImage(new CircleImage(5, OutlineMode.SOLID, Color.GREEN), new FrameImage(
             new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY))));
     t.checkExpect(
-        cell2.drawClickedCell(new TextImage(Integer.toString(1), Color.BLUE),
+        Cell.drawClickedCell(new TextImage(Integer.toString(1), Color.BLUE),
             new FrameImage(
                 new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY))),
         new OverlayImage(new TextImage(Integer.toString(1), Color.BLUE), new FrameImage(
             new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY))));
     t.checkExpect(
-        cell2.drawClickedCell(new TextImage(Integer.toString(3), Color.RED),
+        Cell.drawClickedCell(new TextImage(Integer.toString(3), Color.RED),
             new FrameImage(
                 new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY))),
         new OverlayImage(new TextImage(Integer.toString(3), Color.RED), new FrameImage(
@@ -614,105 +721,105 @@ class ExamplesMineSweeper {
   void testLinkCellsHelp(Tester t) {
     reset();
     reset();
-    game1.field = game1.makeField();
+    ArrayList<ArrayList<Cell>> cells = makeCells(3, 3);
     t.checkExpect(cell1.neighbors.size(), 0);
     t.checkExpect(cell2.neighbors.size(), 0);
     t.checkExpect(cell3.neighbors.size(), 0);
-    cell1.linkCellsHelp(0, 0, game1.field);
-    cell2.linkCellsHelp(1, 1, game1.field);
-    cell3.linkCellsHelp(0, 1, game1.field);
+    cell1.linkCellsHelp(0, 0, cells);
+    cell2.linkCellsHelp(1, 1, cells);
+    cell3.linkCellsHelp(0, 1, cells);
     t.checkExpect(cell1.neighbors.size(), 3);
     t.checkExpect(cell2.neighbors.size(), 8);
     t.checkExpect(cell3.neighbors.size(), 5);
 
     // checking the first corner cell has its neighbors in its list
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(0).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(0)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(0).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(0)), true);
     // checking the first edge cell has all its neighbors
-    t.checkExpect(cell3.neighbors.contains(game1.field.get(0).get(0)), true);
-    t.checkExpect(cell3.neighbors.contains(game1.field.get(0).get(2)), true);
-    t.checkExpect(cell3.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell3.neighbors.contains(game1.field.get(1).get(2)), true);
-    t.checkExpect(cell3.neighbors.contains(game1.field.get(1).get(0)), true);
+    t.checkExpect(cell3.neighbors.contains(cells.get(0).get(0)), true);
+    t.checkExpect(cell3.neighbors.contains(cells.get(0).get(2)), true);
+    t.checkExpect(cell3.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell3.neighbors.contains(cells.get(1).get(2)), true);
+    t.checkExpect(cell3.neighbors.contains(cells.get(1).get(0)), true);
     // checking the middle cell has all 8 neighbors
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(0)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(2)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(1).get(2)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(1).get(0)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(2)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(2)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(1).get(2)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(1).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(2)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(0)), true);
 
     reset();
 
-    game1.field = game1.makeField();
-    cell1.linkCellsHelp(2, 0, game1.field);
-    cell2.linkCellsHelp(1, 0, game1.field);
+    cells = makeCells(3, 3);
+    cell1.linkCellsHelp(2, 0, cells);
+    cell2.linkCellsHelp(1, 0, cells);
 
     // checking the second corner cell has its neighbors in its list
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(2).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(0)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(2).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(0)), true);
     // checking the second edge cell has all its neighbors
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(0)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(0)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(1)), true);
 
     reset();
 
-    game1.field = game1.makeField();
-    cell1.linkCellsHelp(0, 2, game1.field);
-    cell2.linkCellsHelp(2, 1, game1.field);
+    cells = makeCells(3, 3);
+    cell1.linkCellsHelp(0, 2, cells);
+    cell2.linkCellsHelp(2, 1, cells);
 
     // checking the third corner cell has its neighbors in its list
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(0).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(2)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(0).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(2)), true);
     // checking the third edge cell has all its neighbors
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(2)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(0)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(1).get(0)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(2)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(1).get(0)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(0)), true);
 
     reset();
 
-    game1.field = game1.makeField();
-    cell1.linkCellsHelp(2, 2, game1.field);
-    cell2.linkCellsHelp(1, 2, game1.field);
+    cells = makeCells(3, 3);
+    cell1.linkCellsHelp(2, 2, cells);
+    cell2.linkCellsHelp(1, 2, cells);
 
     // checking the fourth corner cell has its neighbors in its list
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(2).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell1.neighbors.contains(game1.field.get(1).get(2)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(2).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell1.neighbors.contains(cells.get(1).get(2)), true);
     // checking the fourth edge cell has all its neighbors
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(2)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(2)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(2).get(1)), true);
-    t.checkExpect(cell2.neighbors.contains(game1.field.get(0).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(2)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(1).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(2)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(2).get(1)), true);
+    t.checkExpect(cell2.neighbors.contains(cells.get(0).get(1)), true);
   }
 
   // tests coordOnBoard
   void testCoordOnBoard(Tester t) {
     reset();
-    game1.field = game1.makeField();
-    t.checkExpect(game1.field.size(), 3);
-    t.checkExpect(game1.field.get(0).size(), 3);
-    t.checkExpect(cell1.coordOnBoard(0, 1, game1.field), true);
-    t.checkExpect(cell1.coordOnBoard(1, 0, game1.field), true);
-    t.checkExpect(cell1.coordOnBoard(-1, 0, game1.field), false);
-    t.checkExpect(cell1.coordOnBoard(0, -1, game1.field), false);
-    t.checkExpect(cell1.coordOnBoard(4, 2, game1.field), false);
-    t.checkExpect(cell1.coordOnBoard(2, 4, game1.field), false);
-    t.checkExpect(cell1.coordOnBoard(3, 2, game1.field), false);
-    t.checkExpect(cell1.coordOnBoard(2, 3, game1.field), false);
-    t.checkExpect(cell1.coordOnBoard(2, 2, game1.field), true);
-    t.checkExpect(cell1.coordOnBoard(2, 2, game1.field), true);
+    ArrayList<ArrayList<Cell>> cells = makeCells(3, 3);
+    t.checkExpect(cells.size(), 3);
+    t.checkExpect(cells.get(0).size(), 3);
+    t.checkExpect(cell1.coordOnBoard(0, 1, cells), true);
+    t.checkExpect(cell1.coordOnBoard(1, 0, cells), true);
+    t.checkExpect(cell1.coordOnBoard(-1, 0, cells), false);
+    t.checkExpect(cell1.coordOnBoard(0, -1, cells), false);
+    t.checkExpect(cell1.coordOnBoard(4, 2, cells), false);
+    t.checkExpect(cell1.coordOnBoard(2, 4, cells), false);
+    t.checkExpect(cell1.coordOnBoard(3, 2, cells), false);
+    t.checkExpect(cell1.coordOnBoard(2, 3, cells), false);
+    t.checkExpect(cell1.coordOnBoard(2, 2, cells), true);
+    t.checkExpect(cell1.coordOnBoard(2, 2, cells), true);
   }
 
   // test worldEndCell
@@ -757,20 +864,41 @@ class ExamplesMineSweeper {
   }
 
   // test makeLeftClicked
-  void tesMakeLeftClicked(Tester t) {
+  void testMakeLeftClicked(Tester t) {
     reset();
     t.checkExpect(cell4.isLeftClicked, false);
-    cell4.makeLeftClicked();
+    t.checkExpect(cell4.makeLeftClicked(), 1);
     t.checkExpect(cell4.isLeftClicked, true);
+    // clicking it again does not count it twice
+    t.checkExpect(cell4.makeLeftClicked(), 0);
     reset();
+    // neighbors that are already left clicked are not counted again
     cell4.neighbors.add(cell6);
     cell4.neighbors.add(cell8);
     cell6.neighbors.add(cell7);
-    t.checkExpect(cell4.makeLeftClicked(), 3);
+    t.checkExpect(cell4.makeLeftClicked(), 1);
     t.checkExpect(cell4.isLeftClicked, true);
-    t.checkExpect(cell8.isLeftClicked, false);
     t.checkExpect(cell6.isLeftClicked, true);
-    t.checkExpect(cell7.isLeftClicked, true);
+    t.checkExpect(cell8.isLeftClicked, true);
+    reset();
+    // a chain of empty Cells opens up to the first Cell next to a mine
+    cell1.neighbors.add(cell4);
+    cell4.neighbors.add(cell1);
+    cell4.neighbors.add(cell3);
+    cell3.neighbors.add(cell4);
+    cell3.neighbors.add(cell15);
+    cell15.neighbors.add(cell3);
+    t.checkExpect(cell1.makeLeftClicked(), 2);
+    t.checkExpect(cell1.isLeftClicked, true);
+    t.checkExpect(cell4.isLeftClicked, true);
+    // the flagged Cell stops the fill
+    t.checkExpect(cell3.isLeftClicked, false);
+    cell3.changeRightClicked(false);
+    t.checkExpect(cell1.makeLeftClicked(), 1);
+    t.checkExpect(cell3.isLeftClicked, true);
+    // a Cell next to a mine doesn't open its neighbors
+    t.checkExpect(cell2.isLeftClicked, false);
+    t.checkExpect(cell2.makeLeftClicked(), 1);
   }
 
   // test floodFill
@@ -781,20 +909,32 @@ class ExamplesMineSweeper {
     cell4.neighbors.add(cell6);
     cell6.neighbors.add(cell7);
     cell6.neighbors.add(cell8);
-    t.checkExpect(cell4.floodFill(new ArrayList<Cell>(Arrays.asList(cell4)),
-        new ArrayList<Cell>(Arrays.asList(cell4))), 2);
+    // every neighbor was already left clicked, so nothing new is counted
+    t.checkExpect(cell4.floodFill(), 0);
     t.checkExpect(cell4.isLeftClicked, true);
     t.checkExpect(cell8.isLeftClicked, true);
     t.checkExpect(cell6.isLeftClicked, true);
     t.checkExpect(cell7.isLeftClicked, true);
     t.checkExpect(cell1.isLeftClicked, false);
     cell1.neighbors.add(cell6);
-    t.checkExpect(cell1.floodFill(new ArrayList<Cell>(Arrays.asList(cell1, cell6)),
-        new ArrayList<Cell>(Arrays.asList(cell1, cell6))), 2);
+    t.checkExpect(cell1.floodFill(), 0);
     t.checkExpect(cell1.isLeftClicked, false);
     t.checkExpect(cell6.isLeftClicked, true);
-    t.checkExpect(cell7.isLeftClicked, true);
-    t.checkExpect(cell8.isLeftClicked, true);
+
+    // a loop of empty Cells is only visited once
+    reset();
+    Cell a = new Cell();
+    Cell b = new Cell();
+    Cell c = new Cell(new ArrayList<Cell>(Arrays.asList(cell7)), false, false, false);
+    a.neighbors.add(b);
+    b.neighbors.add(a);
+    b.neighbors.add(c);
+    c.neighbors.add(b);
+    t.checkExpect(a.floodFill(), 3);
+    t.checkExpect(a.isLeftClicked, true);
+    t.checkExpect(b.isLeftClicked, true);
+    t.checkExpect(c.isLeftClicked, true);
+    t.checkExpect(a.floodFill(), 0);
   }
 
   // MINESWEEP ------------------------------------------------------
@@ -802,15 +942,12 @@ class ExamplesMineSweeper {
   // test constructor restrictions
   void testConstructor(Tester t) {
     // for constructor without random seed
-    t.checkConstructorException(
-        new IllegalArgumentException("Minefield is too wide for the screen"), "MineSweeper", 91, 5,
-        0);
-    t.checkConstructorException(
-        new IllegalArgumentException("Minefield is too high for the screen"), "MineSweeper", 5, 41,
-        0);
-    t.checkConstructorException(
-        new IllegalArgumentException("Minefield is too high for the screen"), "MineSweeper", 1, 41,
-        0);
+    t.checkConstructorException(new IllegalArgumentException("Minefield is too large"),
+        "MineSweeper", 50000, 50000, 0);
+    t.checkConstructorException(new IllegalArgumentException("Minefield is too large"),
+        "MineSweeper", 2, Integer.MAX_VALUE, 0);
+    t.checkConstructorException(new IllegalArgumentException("Field is too small"), "MineSweeper",
+        1, 41, 0);
     t.checkConstructorException(new IllegalArgumentException("Field is too small"), "MineSweeper",
         23, 1, 0);
     t.checkConstructorException(new IllegalArgumentException("Field is too small"), "MineSweeper",
@@ -823,15 +960,12 @@ class ExamplesMineSweeper {
         30);
 
     // for constructor with random seed
-    t.checkConstructorException(
-        new IllegalArgumentException("Minefield is too wide for the screen"), "MineSweeper", 91, 5,
-        0, 10);
-    t.checkConstructorException(
-        new IllegalArgumentException("Minefield is too high for the screen"), "MineSweeper", 5, 41,
-        0, 10);
-    t.checkConstructorException(
-        new IllegalArgumentException("Minefield is too high for the screen"), "MineSweeper", 1, 41,
-        0, 10);
+    t.checkConstructorException(new IllegalArgumentException("Minefield is too large"),
+        "MineSweeper", 50000, 50000, 0, 10);
+    t.checkConstructorException(new IllegalArgumentException("Minefield is too large"),
+        "MineSweeper", 2, Integer.MAX_VALUE, 0, 10);
+    t.checkConstructorException(new IllegalArgumentException("Field is too small"), "MineSweeper",
+        1, 41, 0, 10);
     t.checkConstructorException(new IllegalArgumentException("Field is too small"), "MineSweeper",
         23, 1, 0, 10);
     t.checkConstructorException(new IllegalArgumentException("Field is too small"), "MineSweeper",
@@ -844,80 +978,41 @@ class ExamplesMineSweeper {
         30, 10);
   }
 
-  // tests makeField
-  void testMakeField(Tester t) {
+  // tests the constructor that plays a given Minefield
+  void testFieldConstructor(Tester t) {
     reset();
-    t.checkExpect(game1.field.size(), 0);
-    game1.field = game1.makeField();
-    t.checkExpect(game1.field.size(), 3);
-    t.checkExpect(game1.field.get(0).size(), 3);
-    t.checkExpect(game1.field.get(1).size(), 3);
-    t.checkExpect(game1.field.get(2).size(), 3);
-    t.checkExpect(game1.field.get(0).get(0), new Cell());
-    t.checkExpect(game1.field.get(1).get(1), new Cell());
-    t.checkExpect(game1.field.get(2).get(2), new Cell());
-    t.checkExpect(game1.field.get(1).get(2), new Cell());
-    t.checkExpect(game2.field.size(), 5);
-    t.checkExpect(game2.field.get(1).size(), 5);
-  }
-
-  // tests addMines
-  void testAddMines(Tester t) {
-    reset();
-    game3.field = game3.makeField();
-    t.checkExpect(game3.field.get(0).get(0).isMine, false);
-    t.checkExpect(game3.field.get(1).get(0).isMine, false);
-    t.checkExpect(game3.field.get(0).get(1).isMine, false);
-    t.checkExpect(game3.field.get(1).get(1).isMine, false);
-    game3.addMines();
-    t.checkExpect(game3.field.get(0).get(0).isMine, true);
-    t.checkExpect(game3.field.get(1).get(0).isMine, true);
-    t.checkExpect(game3.field.get(0).get(1).isMine, false);
-    t.checkExpect(game3.field.get(1).get(1).isMine, false);
-
-    game4.field = game4.makeField();
-    t.checkExpect(game4.field.get(0).get(0).isMine, false);
-    t.checkExpect(game4.field.get(1).get(0).isMine, false);
-    t.checkExpect(game4.field.get(0).get(1).isMine, false);
-    t.checkExpect(game4.field.get(1).get(1).isMine, false);
-    game4.addMines();
-    t.checkExpect(game4.field.get(0).get(0).isMine, false);
-    t.checkExpect(game4.field.get(1).get(0).isMine, true);
-    t.checkExpect(game4.field.get(0).get(1).isMine, true);
-    t.checkExpect(game4.field.get(1).get(1).isMine, false);
-  }
-
-  // testsLinkCells for MineSweeper
-  void testLinkCells(Tester t) {
-    reset();
-    game1.field = game1.makeField();
-    game1.addMines();
-    t.checkExpect(game1.field.get(0).get(0).neighbors.size(), 0);
-    t.checkExpect(game1.field.get(0).get(1).neighbors.size(), 0);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.size(), 0);
-    game1.linkCells();
-    t.checkExpect(game1.field.get(0).get(0).neighbors.size(), 3);
-    t.checkExpect(game1.field.get(0).get(1).neighbors.size(), 5);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.size(), 8);
-    // checking the corner cells has its neighbors in its list
-    t.checkExpect(game1.field.get(0).get(0).neighbors.contains(game1.field.get(0).get(1)), true);
-    t.checkExpect(game1.field.get(0).get(0).neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(game1.field.get(0).get(0).neighbors.contains(game1.field.get(1).get(0)), true);
-    // checking this cell has all its neighbors
-    t.checkExpect(game1.field.get(0).get(1).neighbors.contains(game1.field.get(0).get(0)), true);
-    t.checkExpect(game1.field.get(0).get(1).neighbors.contains(game1.field.get(0).get(2)), true);
-    t.checkExpect(game1.field.get(0).get(1).neighbors.contains(game1.field.get(1).get(1)), true);
-    t.checkExpect(game1.field.get(0).get(1).neighbors.contains(game1.field.get(1).get(2)), true);
-    t.checkExpect(game1.field.get(0).get(1).neighbors.contains(game1.field.get(1).get(0)), true);
-    // checking middle cell has all 8 neighbors
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(0).get(0)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(2).get(2)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(1).get(2)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(2).get(1)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(1).get(0)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(0).get(1)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(0).get(2)), true);
-    t.checkExpect(game1.field.get(1).get(1).neighbors.contains(game1.field.get(2).get(0)), true);
+    t.checkExpect(game1.field.board.size(), 9);
+    t.checkExpect(game1.worldWidth, 60);
+    t.checkExpect(game1.worldHeight, 100);
+    t.checkExpect(game2.field.board.width, 5);
+    Minefield field = new Minefield(new Board(4, 3), 0);
+    MineSweeper game = new MineSweeper(field);
+    t.checkExpect(game.field == field, true);
+    t.checkExpect(game.worldWidth, 80);
+    t.checkExpect(game.worldHeight, 100);
+    t.checkExpect(game.ticks, 0);
+    t.checkExpect(game.camera.rows(), 3);
+    // fields bigger than the screen are seen through a window
+    MineSweeper big = new MineSweeper(new Minefield(new Board(500, 300), 0));
+    t.checkExpect(big.worldWidth, Camera.MAX_COLS * Cell.CELL_SIZE);
+    t.checkExpect(big.worldHeight, (Camera.MAX_ROWS + 2) * Cell.CELL_SIZE);
+  }
+
+  // tests the constructors for games that can be won without guessing
+  void testNoGuessConstructor(Tester t) {
+    MineSweeper game = new MineSweeper(9, 9, 10, 3, true);
+    t.checkExpect(game.field.board.isRevealed(game.field.board.index(4, 4)), true);
+    new Solver(game.field.board).autoPlay(game.field);
+    t.checkExpect(game.wonGame(), true);
+    t.checkExpect(new MineSweeper(9, 9, 10, 3, true).field.board,
+        new MineSweeper(9, 9, 10, 3, true).field.board);
+    t.checkExpect(new MineSweeper(9, 9, 10, 3, false).field.board,
+        new MineSweeper(9, 9, 10, 3).field.board);
+    t.checkExpect(new MineSweeper(16, 16, 40, true).field.cellsClicked > 0, true);
+    t.checkExpect(new MineSweeper(16, 16, 40, false).field.cellsClicked, 0);
+    t.checkConstructorException(
+        new IllegalArgumentException("There are too many mines in the field"), "MineSweeper", 3,
+        3, 1, true);
   }
 
   // test onTick
@@ -928,7 +1023,6 @@ class ExamplesMineSweeper {
     t.checkExpect(game2.ticks, 1);
     game2.onTick();
     t.checkExpect(game2.ticks, 2);
-    game1.field = game1.makeField();
     t.checkExpect(game1.ticks, 0);
     game1.onTick();
     t.checkExpect(game1.ticks, 1);
@@ -939,76 +1033,134 @@ class ExamplesMineSweeper {
   void testOnMouseClicked(Tester t) {
     // tests when the mouse right clicked
     reset();
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    t.checkExpect(game1.field.get(0).get(0).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), false);
     game1.onMouseClicked(new Posn(45, 45), "RightButton");
-    t.checkExpect(game1.field.get(0).get(0).isRightClicked, true);
-    t.checkExpect(game1.field.get(1).get(1).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), true);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(1, 1)), false);
     game1.onMouseClicked(new Posn(40, 75), "RightButton");
-    t.checkExpect(game1.field.get(1).get(1).isRightClicked, true);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(1, 1)), true);
     game1.onMouseClicked(new Posn(40, 75), "RightButton");
-    t.checkExpect(game1.field.get(1).get(1).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(1, 1)), false);
     // tests the else
 
     game1.onMouseClicked(new Posn(45, 45), "RightButton");
-    t.checkExpect(game1.field.get(0).get(0).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), false);
     game1.onMouseClicked(new Posn(45, 45), "Hehe!");
-    t.checkExpect(game1.field.get(0).get(0).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), false);
 
     game1.onMouseClicked(new Posn(45, 45), "LeftButton");
-    t.checkExpect(game1.field.get(0).get(0).isLeftClicked, true);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), true);
     game1.onMouseClicked(new Posn(45, 45), "Hehe!");
-    t.checkExpect(game1.field.get(0).get(0).isLeftClicked, true);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), true);
 
     game1.onMouseClicked(new Posn(45, 45), "LeftButton");
-    t.checkExpect(game1.field.get(1).get(1).isLeftClicked, false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), false);
     game1.onMouseClicked(new Posn(45, 45), "Hehe!");
-    t.checkExpect(game1.field.get(1).get(1).isLeftClicked, false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), false);
 
     // tests when the mouse left clicked
     reset();
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    t.checkExpect(game1.field.get(0).get(0).isLeftClicked, false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), false);
     game1.onMouseClicked(new Posn(45, 45), "LeftButton");
-    t.checkExpect(game1.field.get(0).get(0).isLeftClicked, true);
-    t.checkExpect(game1.field.get(1).get(1).isLeftClicked, false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), true);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), false);
     game1.onMouseClicked(new Posn(40, 75), "LeftButton");
-    t.checkExpect(game1.field.get(1).get(1).isLeftClicked, true);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), true);
+  }
+
+  // test practice and onKeyEvent
+  void testPractice(Tester t) {
+    reset();
+    // keys do nothing outside of practice games
+    game1.onMouseClicked(new Posn(45, 45), "LeftButton");
+    game1.onKeyEvent("u");
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), true);
+    game1.practice();
+    t.checkExpect(game1.log, null);
+    game1.onMouseClicked(new Posn(30, 45), "RightButton");
+    game1.onMouseClicked(new Posn(40, 75), "LeftButton");
+    t.checkExpect(game1.anyMinesClicked(), true);
+    game1.onKeyEvent("u");
+    t.checkExpect(game1.anyMinesClicked(), false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), false);
+    game1.onKeyEvent("u");
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 1)), false);
+    // moves made before practice started can't be taken back
+    game1.onKeyEvent("u");
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), true);
+    game1.onKeyEvent("r");
+    game1.onKeyEvent("x");
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 1)), true);
+    t.checkExpect(game1.field.flagCount(), 1);
+  }
+
+  // tests onKeyEvent moving the Camera, and clicks going through it
+  void testOnKeyEvent(Tester t) {
+    MineSweeper big = new MineSweeper(new Minefield(new Board(500, 300), 0));
+    big.onKeyEvent("down");
+    big.onKeyEvent("left");
+    big.onKeyEvent("left");
+    t.checkExpect(big.camera.firstRow, 10);
+    t.checkExpect(big.camera.firstCol, 44);
+    big.onKeyEvent("up");
+    big.onKeyEvent("right");
+    t.checkExpect(big.camera.firstRow, 0);
+    t.checkExpect(big.camera.firstCol, 22);
+    t.checkExpect(big.getCell(new Posn(big.worldWidth - 5, 45)), new Posn(0, 22));
+    big.onKeyEvent("+");
+    t.checkExpect(big.camera.cellSize, 40);
+    big.onKeyEvent("-");
+    big.onKeyEvent("-");
+    t.checkExpect(big.camera.cellSize, 10);
+    // keys for practice games do nothing to the Camera
+    big.onKeyEvent("u");
+    t.checkExpect(big.camera.cellSize, 10);
+    big.camera.centerOn(150, 250);
+    big.handleRightClick(big.camera.posnOf(150, 250));
+    t.checkExpect(big.field.board.isFlagged(big.field.board.index(150, 250)), true);
+    t.checkExpect(big.cellIndex(new Posn(0, 45)), -1);
   }
 
   // test handleRightClick
   void testHandleRight(Tester t) {
     reset();
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    t.checkExpect(game1.field.get(0).get(0).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), false);
     game1.handleRightClick(new Posn(45, 45));
-    t.checkExpect(game1.field.get(0).get(0).isRightClicked, true);
-    t.checkExpect(game1.field.get(1).get(1).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), true);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(1, 1)), false);
     game1.handleRightClick(new Posn(40, 75));
-    t.checkExpect(game1.field.get(1).get(1).isRightClicked, true);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(1, 1)), true);
     game1.handleRightClick(new Posn(40, 75));
-    t.checkExpect(game1.field.get(1).get(1).isRightClicked, false);
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(1, 1)), false);
+    t.checkExpect(game1.field.numMines, 1);
+    // clicks on the header or off the field are ignored
+    game1.handleRightClick(new Posn(45, 30));
+    t.checkExpect(game1.field.board.isFlagged(game1.field.board.index(0, 0)), true);
+    t.checkExpect(game1.field.numMines, 1);
+    game1.handleRightClick(new Posn(0, 75));
+    game1.handleRightClick(new Posn(45, 105));
+    t.checkExpect(game1.field.numMines, 1);
   }
 
   // test handleLeftClick
   void testHandleLeft(Tester t) {
     reset();
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    t.checkExpect(game1.field.get(0).get(0).isLeftClicked, false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), false);
     game1.handleLeftClick(new Posn(45, 45));
-    t.checkExpect(game1.field.get(0).get(0).isLeftClicked, true);
-    t.checkExpect(game1.field.get(1).get(1).isLeftClicked, false);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 0)), true);
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), false);
+    t.checkExpect(game1.field.cellsClicked, 1);
+    // clicks on the header or off the field are ignored
+    game1.handleLeftClick(new Posn(15, 30));
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(0, 2)), false);
+    game1.handleLeftClick(new Posn(70, 45));
+    game1.handleLeftClick(new Posn(15, 105));
+    t.checkExpect(game1.field.cellsClicked, 1);
+    // clicking a mine reveals it and loses the game, without counting it
     game1.handleLeftClick(new Posn(40, 75));
-    t.checkExpect(game1.field.get(1).get(1).isLeftClicked, true);
-
+    t.checkExpect(game1.field.board.isRevealed(game1.field.board.index(1, 1)), true);
+    t.checkExpect(game1.field.cellsClicked, 1);
+    t.checkExpect(game1.field.status, GameStatus.LOST);
   }
 
   // test getCell
@@ -1019,63 +1171,90 @@ class ExamplesMineSweeper {
     t.checkExpect(this.game5.getCell(new Posn(31, 39)), new Posn(0, 0));
   }
 
+  // test cellIndex
+  void testCellIndex(Tester t) {
+    reset();
+    t.checkExpect(game1.cellIndex(new Posn(45, 45)), 0);
+    t.checkExpect(game1.cellIndex(new Posn(40, 75)), 4);
+    t.checkExpect(game1.cellIndex(new Posn(5, 95)), 8);
+    t.checkExpect(game1.cellIndex(new Posn(60, 40)), 0);
+    // the header
+    t.checkExpect(game1.cellIndex(new Posn(43, 1)), -1);
+    t.checkExpect(game1.cellIndex(new Posn(45, 39)), -1);
+    // past the edges of the field
+    t.checkExpect(game1.cellIndex(new Posn(61, 45)), -1);
+    t.checkExpect(game1.cellIndex(new Posn(0, 45)), -1);
+    t.checkExpect(game1.cellIndex(new Posn(45, 100)), -1);
+  }
+
   // test anyMinesClicked
   void testAnyMinesClicked(Tester t) {
     reset();
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
     t.checkExpect(game1.anyMinesClicked(), false);
-    game1.field.get(1).get(1).makeLeftClicked();
+    game1.handleLeftClick(this.posnOf(game1, 1, 1));
     t.checkExpect(game1.anyMinesClicked(), true);
-    game4.field = game4.makeField();
-    game4.addMines();
-    game4.linkCells();
-    game4.field.get(0).get(0).makeLeftClicked();
+    t.checkExpect(game1.field.status, GameStatus.LOST);
+    t.checkExpect(game1.field.cellsClicked, 0);
+    // once the game is lost, clicks are ignored
+    game1.handleLeftClick(this.posnOf(game1, 0, 0));
+    t.checkExpect(game1.field.board.isRevealed(0), false);
+    game4.handleLeftClick(this.posnOf(game4, 0, 0));
     t.checkExpect(game4.anyMinesClicked(), false);
   }
 
   // test wonGame
   void testWonGame(Tester t) {
     reset();
-    game2.cellsClicked = 22;
-    t.checkExpect(game2.wonGame(), true);
-    game2.cellsClicked = 21;
     t.checkExpect(game2.wonGame(), false);
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    game1.cellsClicked++;
-    game1.cellsClicked++;
-    game1.cellsClicked++;
-    game1.cellsClicked++;
-    game1.cellsClicked++;
-    game1.cellsClicked++;
-    game1.cellsClicked++;
-    t.checkExpect(game1.wonGame(), true);
-    game1.cellsClicked--;
+    game1.handleLeftClick(this.posnOf(game1, 0, 0));
+    game1.handleLeftClick(this.posnOf(game1, 0, 1));
+    game1.handleLeftClick(this.posnOf(game1, 0, 2));
+    game1.handleLeftClick(this.posnOf(game1, 1, 0));
+    game1.handleLeftClick(this.posnOf(game1, 2, 0));
+    game1.handleLeftClick(this.posnOf(game1, 2, 1));
+    t.checkExpect(game1.wonGame(), false);
+    // clicking an already revealed Cell doesn't count it again
+    game1.handleLeftClick(this.posnOf(game1, 2, 1));
+    t.checkExpect(game1.field.cellsClicked, 6);
     t.checkExpect(game1.wonGame(), false);
+    game1.handleLeftClick(this.posnOf(game1, 2, 2));
+    t.checkExpect(game1.wonGame(), true);
+    t.checkExpect(game1.field.status, GameStatus.WON);
 
+    // a field split in two by a wall of mines is won by two flood fills
+    Board wall = new Board(5, 5);
+    for (int i = 0; i < 5; i++) {
+      wall.placeMine(wall.index(i, 2));
+    }
+    MineSweeper walled = new MineSweeper(new Minefield(wall, 5));
+    walled.handleLeftClick(this.posnOf(walled, 0, 0));
+    t.checkExpect(walled.field.cellsClicked, 10);
+    t.checkExpect(walled.wonGame(), false);
+    walled.handleLeftClick(this.posnOf(walled, 4, 0));
+    t.checkExpect(walled.field.cellsClicked, 10);
+    walled.handleLeftClick(this.posnOf(walled, 4, 4));
+    t.checkExpect(walled.field.cellsClicked, 20);
+    t.checkExpect(walled.wonGame(), true);
   }
 
   // test worldEnds
   void testWorldEnd(Tester t) {
     reset();
-    game3.field = game3.makeField();
-    game3.addMines();
-    game3.linkCells();
     t.checkExpect(game3.worldEnds(), new WorldEnd(false, game3.makeScene()));
-    game3.field.get(0).get(0).changeRightClicked(true);
+    game3.field.board.setFlagged(game3.field.board.index(0, 0), true);
     t.checkExpect(game3.worldEnds(), new WorldEnd(false, game3.makeScene()));
-    game3.field.get(0).get(0).makeLeftClicked();
+    game3.field.board.setFlagged(game3.field.board.index(0, 0), false);
+    game3.handleLeftClick(this.posnOf(game3, 0, 0));
     t.checkExpect(game3.worldEnds(),
         new WorldEnd(true, game3.makeFinalScene("You clicked a mine, you lost!")));
-    game1.field = game1.makeField();
-    game1.addMines();
-    game1.linkCells();
-    game1.cellsClicked = 6;
+    game1.handleLeftClick(this.posnOf(game1, 0, 0));
+    game1.handleLeftClick(this.posnOf(game1, 0, 1));
+    game1.handleLeftClick(this.posnOf(game1, 0, 2));
+    game1.handleLeftClick(this.posnOf(game1, 1, 0));
+    game1.handleLeftClick(this.posnOf(game1, 2, 0));
+    game1.handleLeftClick(this.posnOf(game1, 2, 1));
     t.checkExpect(game1.worldEnds(), new WorldEnd(false, game1.makeScene()));
-    game1.cellsClicked = 7;
+    game1.handleLeftClick(this.posnOf(game1, 2, 2));
     t.checkExpect(game1.worldEnds(),
         new WorldEnd(true, game1.makeFinalScene("You cleared the field, you win!")));
   }
@@ -1100,24 +1279,128 @@ class ExamplesMineSweeper {
         new RectangleImage(20, 20, OutlineMode.SOLID, Color.GRAY));
     WorldScene scene = new WorldScene(40, 80);
     WorldScene scene2 = new WorldScene(60, 100);
-    scene.placeImageXY(
-        new AboveImage(game5.drawHeader(), new AboveImage(new EmptyImage(),
-            new AboveImage(new BesideImage(unclicked, new BesideImage(unclicked, new EmptyImage())),
-                new BesideImage(unclicked, new BesideImage(unclicked, new EmptyImage()))))),
-        20, 40);
+    scene.placeImageXY(game5.drawHeader(), 20, 20);
+    scene.placeImageXY(new AboveImage(new BesideImage(unclicked, unclicked),
+        new BesideImage(unclicked, unclicked)), 20, 60);
     t.checkExpect(game5.makeScene(), scene);
-    game1.field = game1.makeField();
-    scene2.placeImageXY(new AboveImage(game1.drawHeader(),
-        new AboveImage(new EmptyImage(), new AboveImage(
-            new BesideImage(unclicked,
-                new BesideImage(unclicked, new BesideImage(unclicked, new EmptyImage()))),
-            new AboveImage(
-                new BesideImage(unclicked,
-                    new BesideImage(unclicked, new BesideImage(unclicked, new EmptyImage()))),
-                new BesideImage(unclicked,
-                    new BesideImage(unclicked, new BesideImage(unclicked, new EmptyImage()))))))),
-        30, 50);
+    WorldImage row = new BesideImage(new BesideImage(unclicked, unclicked), unclicked);
+    scene2.placeImageXY(game1.drawHeader(), 30, 20);
+    scene2.placeImageXY(new AboveImage(row, new AboveImage(row, row)), 30, 70);
     t.checkExpect(game1.makeScene(), scene2);
+    // the renderer is kept between frames, and follows the field when it is replaced
+    AWindowRenderer renderer = game1.renderer;
+    t.checkExpect(renderer.board, game1.field.board);
+    game1.makeScene();
+    t.checkExpect(game1.renderer == renderer, true);
+    game1.field = new Minefield(3, 3, 2, new Random(52));
+    game1.makeScene();
+    t.checkExpect(game1.renderer == renderer, false);
+    t.checkExpect(game1.renderer.board == game1.field.board, true);
+    // a click only changes the clicked Cell
+    WorldScene scene3 = new WorldScene(60, 100);
+    game1.handleLeftClick(this.posnOf(game1, 0, 0));
+    scene3.placeImageXY(game1.drawHeader(), 30, 20);
+    scene3.placeImageXY(new AboveImage(
+        new BesideImage(new BesideImage(unclicked, unclicked),
+            new OverlayImage(new TextImage("1", Color.BLUE), new FrameImage(
+                new RectangleImage(20, 20, OutlineMode.SOLID, Color.DARK_GRAY)))),
+        new AboveImage(row, row)), 30, 70);
+    t.checkExpect(game1.makeScene(), scene3);
+    // a field bigger than the window only draws the window, which follows the Camera
+    MineSweeper big = new MineSweeper(new Minefield(new Board(500, 300), 0));
+    big.makeScene();
+    t.checkExpect(big.renderer.numRows, Camera.MAX_ROWS);
+    t.checkExpect(big.renderer.numCols, Camera.MAX_COLS);
+    big.onKeyEvent("down");
+    big.onKeyEvent("-");
+    WorldScene zoomed = big.makeScene();
+    t.checkExpect(big.renderer.firstRow, big.camera.firstRow);
+    t.checkExpect(big.renderer.numCols, Camera.MAX_COLS * 2);
+    WorldScene expected = new WorldScene(big.worldWidth, big.worldHeight);
+    expected.placeImageXY(big.drawHeader(), big.worldWidth / 2, 20);
+    expected.placeImageXY(new ScaleImage(big.renderer.draw(), 0.5), big.worldWidth / 2,
+        40 + Camera.MAX_ROWS * 10);
+    t.checkExpect(zoomed, expected);
+  }
+
+  // tests that the version moves on, and that scenes and headers are kept while
+  // nothing they show changes
+  void testKeepScene(Tester t) {
+    reset();
+    WorldScene first = game1.makeScene();
+    t.checkExpect(game1.makeScene() == first, true);
+    WorldImage mines = game1.minesImage;
+    WorldImage title = game1.titleImage;
+    game1.onTick();
+    t.checkExpect(game1.version, 1);
+    WorldScene second = game1.makeScene();
+    t.checkExpect(second == first, false);
+    t.checkExpect(game1.minesImage == mines, true);
+    t.checkExpect(game1.titleImage == title, true);
+    t.checkExpect(game1.ticksShown, 1);
+    t.checkExpect(game1.drawHeader() == game1.header, true);
+    // changes made around the clicks and keys are still drawn
+    game1.field.flagCell(0);
+    t.checkExpect(game1.makeScene() == second, false);
+    t.checkExpect(game1.minesShown, 1);
+    game1.handleLeftClick(new Posn(45, 45));
+    game1.handleRightClick(new Posn(45, 45));
+    game1.onKeyEvent("x");
+    t.checkExpect(game1.version, 4);
+    WorldScene third = game1.makeScene();
+    game1.camera.zoomOut();
+    t.checkExpect(game1.makeScene() == third, false);
+    // a new field is drawn with a new renderer
+    WorldScene fourth = game1.makeScene();
+    game1.field = new Minefield(3, 3, 2, new Random(52));
+    t.checkExpect(game1.makeScene() == fourth, false);
+  }
+
+  // tests useRaster and newRenderer
+  void testUseRaster(Tester t) {
+    reset();
+    game1.makeScene();
+    AWindowRenderer trees = game1.renderer;
+    game1.useRaster(false);
+    t.checkExpect(game1.renderer == trees, true);
+    game1.useRaster(true);
+    t.checkExpect(game1.renderer, null);
+    t.checkExpect(game1.field.board.listeners.contains(trees), false);
+    WorldScene scene = game1.makeScene();
+    t.checkExpect(game1.renderer instanceof RasterRenderer, true);
+    WorldScene expected = new WorldScene(60, 100);
+    expected.placeImageXY(game1.drawHeader(), 30, 20);
+    expected.placeImageXY(((RasterRenderer) game1.renderer).raster, 30, 70);
+    t.checkExpect(scene, expected);
+    // a click repaints the same image
+    game1.handleLeftClick(this.posnOf(game1, 0, 0));
+    t.checkExpect(game1.renderer.dirtyCells.size, 1);
+    game1.makeScene();
+    t.checkExpect(game1.renderer.dirtyCells.isEmpty(), true);
+    t.checkExpect(game1.newRenderer() instanceof RasterRenderer, true);
+    // zooming paints a new image at the new size, which isn't scaled
+    MineSweeper big = new MineSweeper(new Minefield(new Board(500, 300), 0));
+    big.useRaster(true);
+    big.makeScene();
+    AWindowRenderer normal = big.renderer;
+    big.onKeyEvent("-");
+    big.onKeyEvent("-");
+    WorldScene zoomed = big.makeScene();
+    t.checkExpect(big.renderer == normal, false);
+    t.checkExpect(big.field.board.listeners.contains(normal), false);
+    t.checkExpect(big.renderer.cellSize, 5);
+    t.checkExpect(big.renderer.numCols, Camera.MAX_COLS * 4);
+    RasterRenderer painted = (RasterRenderer) big.renderer;
+    t.checkExpect(painted.numCols * painted.cellSize, big.camera.width);
+    WorldScene expected2 = new WorldScene(big.worldWidth, big.worldHeight);
+    expected2.placeImageXY(big.drawHeader(), big.worldWidth / 2, 20);
+    expected2.placeImageXY(painted.raster, big.worldWidth / 2, 40 + Camera.MAX_ROWS * 10);
+    t.checkExpect(zoomed, expected2);
+    big.onKeyEvent("right");
+    big.makeScene();
+    t.checkExpect(big.renderer == painted, true);
+    game1.useRaster(false);
+    t.checkExpect(game1.newRenderer() instanceof BoardRenderer, true);
   }
 
   // tests drawHeader
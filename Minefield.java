@@ -0,0 +1,429 @@
+import tester.*;
+
+import java.util.Random;
+
+// representing how far along a game of MineSweeper is
+enum GameStatus {
+  PLAYING, LOST, WON
+}
+
+// representing a game of MineSweeper without any drawing: the field, the rules for
+// revealing and flagging its squares, and how far along the game is
+// moves are given as rows and columns, so bots and simulations can play without a World
+class Minefield {
+  Board board;
+  int numInitMines;
+  int numMines;
+  int cellsClicked;
+  GameStatus status;
+  // the openings of the field, found the first time a square is revealed, or null if
+  // they haven't been needed since the mines were laid out
+  OpeningIndex openings;
+  // the fewest squares an opening needs for clicking it to be spread over threads
+  int parallelThreshold;
+
+  // basic constructor for a new game with the given number of mines placed at random
+  // certain restrictions put on the inputs for the game-
+  // the field has to be at least 2 cells in each direction, and can't have more
+  // cells than fit in a single array
+  // and the player can't input an initial number of mines that is greater
+  // than or equal to the total number of cells, else the player would not be able
+  // to win or there would not be enough cells for the mines to go into
+  Minefield(int width, int height, int numInitMines, Random rand) {
+    if ((long) width * height > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Minefield is too large");
+    }
+    if (width < 2 || height < 2) {
+      throw new IllegalArgumentException("Field is too small");
+    }
+    if (numInitMines >= width * height) {
+      throw new IllegalArgumentException("There are too many mines in the field");
+    }
+    this.board = new Board(width, height);
+    this.numInitMines = numInitMines;
+    this.numMines = numInitMines;
+    this.cellsClicked = 0;
+    this.status = GameStatus.PLAYING;
+    this.parallelThreshold = ParallelReveal.threshold();
+    this.addMines(rand);
+  }
+
+  // constructor for a new game on a Board whose mines are already placed
+  Minefield(Board board, int numInitMines) {
+    this.board = board;
+    this.numInitMines = numInitMines;
+    this.numMines = numInitMines;
+    this.cellsClicked = 0;
+    this.status = GameStatus.PLAYING;
+    this.parallelThreshold = ParallelReveal.threshold();
+  }
+
+  // adds mines at random positions on the field, counting each mine towards the
+  // squares around it as it is placed
+  // positions are picked with Floyd's sampling algorithm, using the field's own mine
+  // bits to remember what was already picked, so it takes one random number per mine
+  // and no extra memory
+  // when more than half of the field is mines, the field is filled with mines and
+  // the safe squares are picked the same way instead
+  // EFFECT: Places numInitMines mines on the Board, and forgets its openings
+  void addMines(Random rand) {
+    int size = this.board.size();
+    if (this.numInitMines * 2 <= size) {
+      for (int j = size - this.numInitMines; j < size; j++) {
+        int num = rand.nextInt(j + 1);
+        if (this.board.isMine(num)) {
+          this.board.placeMine(j);
+        }
+        else {
+          this.board.placeMine(num);
+        }
+      }
+    }
+    else {
+      for (int i = 0; i < size; i++) {
+        this.board.placeMine(i);
+      }
+      for (int j = this.numInitMines; j < size; j++) {
+        int num = rand.nextInt(j + 1);
+        if (this.board.isMine(num)) {
+          this.board.removeMine(num);
+        }
+        else {
+          this.board.removeMine(j);
+        }
+      }
+    }
+    this.forgetOpenings();
+  }
+
+  // forgets the openings of the field, which has to be done whenever its mines are
+  // moved, so they are found again the next time they are needed
+  // EFFECT: Drops the OpeningIndex
+  void forgetOpenings() {
+    this.openings = null;
+  }
+
+  // returns the openings of the field, finding them first if they haven't been
+  // the index is only made once it is needed, so games that are never clicked, or are
+  // played straight on the Board, don't pay for it
+  // EFFECT: May make the OpeningIndex
+  OpeningIndex openings() {
+    if (this.openings == null) {
+      this.openings = new OpeningIndex(this.board);
+    }
+    return this.openings;
+  }
+
+  // returns the least number of clicks that clears the field
+  int threeBV() {
+    return this.openings().threeBV;
+  }
+
+  // reveals the square at the given row and column, and returns how many squares
+  // were newly revealed
+  // EFFECT: Reveals the square and possibly the squares around it, and updates the
+  // number of squares revealed and the status of the game
+  int reveal(int row, int col) {
+    if (!this.board.onBoard(row, col)) {
+      return 0;
+    }
+    return this.revealCell(this.board.index(row, col));
+  }
+
+  // reveals the square at the given index, and returns how many squares were newly
+  // revealed
+  // the game is lost as soon as a mine is revealed, and won as soon as the last
+  // square without a mine is revealed, after which nothing more is revealed
+  // EFFECT: Reveals the square and possibly the squares around it, and updates the
+  // number of squares revealed and the status of the game
+  int revealCell(int idx) {
+    if (this.status != GameStatus.PLAYING) {
+      return 0;
+    }
+    int revealed = this.revealSquares(idx);
+    if (revealed == 0) {
+      return 0;
+    }
+    if (this.board.isMine(idx)) {
+      this.status = GameStatus.LOST;
+    }
+    else {
+      this.cellsClicked += revealed;
+      if (this.cellsClicked == this.board.size() - this.numInitMines) {
+        this.status = GameStatus.WON;
+      }
+    }
+    return revealed;
+  }
+
+  // reveals the squares that a click on the square at the given index reveals, and
+  // returns how many were newly revealed
+  // a click inside an opening reveals the whole opening from the OpeningIndex in one
+  // sweep, unless one of its squares is flagged, in which case it is searched out
+  // openings of at least parallelThreshold squares are searched out by a
+  // ParallelReveal instead
+  // fields of more than OpeningIndex.MAX_SQUARES squares are never indexed, since the
+  // index takes several ints for each one-byte square, so they are always searched
+  // out, over threads if there is more than one
+  // EFFECT: Marks the squares as revealed, and may make the OpeningIndex
+  int revealSquares(int idx) {
+    if (this.board.size() > OpeningIndex.MAX_SQUARES) {
+      if (this.parallelThreshold < Integer.MAX_VALUE) {
+        return new ParallelReveal(this.board).reveal(idx);
+      }
+      return this.board.reveal(idx);
+    }
+    OpeningIndex index = this.openings();
+    if (index.inOpening(idx) && (this.board.cells[idx] & (Board.REVEALED | Board.FLAG)) == 0) {
+      if (index.openingSize(index.openingOf[idx]) >= this.parallelThreshold) {
+        return new ParallelReveal(this.board).reveal(idx);
+      }
+      int swept = index.reveal(this.board, idx);
+      if (swept >= 0) {
+        return swept;
+      }
+    }
+    return this.board.reveal(idx);
+  }
+
+  // flags the square at the given row and column, or takes the flag off if it
+  // already has one, and returns whether the square is flagged afterwards
+  // EFFECT: Changes the flag on the square and the number of mines left to flag
+  boolean flag(int row, int col) {
+    if (!this.board.onBoard(row, col)) {
+      return false;
+    }
+    return this.flagCell(this.board.index(row, col));
+  }
+
+  // flags the square at the given index, or takes the flag off if it already has one,
+  // and returns whether the square is flagged afterwards
+  // revealed squares can't be flagged
+  // EFFECT: Changes the flag on the square and the number of mines left to flag
+  boolean flagCell(int idx) {
+    if (this.board.isFlagged(idx)) {
+      this.board.setFlagged(idx, false);
+      this.numMines++;
+      return false;
+    }
+    else if (this.board.isRevealed(idx)) {
+      return false;
+    }
+    else {
+      this.board.setFlagged(idx, true);
+      this.numMines--;
+      return true;
+    }
+  }
+
+  // returns how far along the game is
+  GameStatus status() {
+    return this.status;
+  }
+
+  // returns how many squares without a mine have been revealed
+  int revealedCount() {
+    return this.cellsClicked;
+  }
+
+  // returns how many flags are on the field
+  int flagCount() {
+    return this.numInitMines - this.numMines;
+  }
+}
+
+class ExamplesMinefield {
+  Minefield field1;
+  Minefield field2;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 3x3 field with mines at (1, 1) and (1, 2)
+    field1 = new Minefield(3, 3, 2, new Random(52));
+    // 5x5 field split in two by a wall of mines down the middle column
+    Board walled = new Board(5, 5);
+    for (int i = 0; i < 5; i++) {
+      walled.placeMine(walled.index(i, 2));
+    }
+    field2 = new Minefield(walled, 5);
+  }
+
+  // tests the constructors
+  void testConstructor(Tester t) {
+    reset();
+    t.checkExpect(field1.board.size(), 9);
+    t.checkExpect(field1.board.isMine(field1.board.index(1, 1)), true);
+    t.checkExpect(field1.board.isMine(field1.board.index(1, 2)), true);
+    t.checkExpect(field1.status(), GameStatus.PLAYING);
+    t.checkExpect(field2.numMines, 5);
+    t.checkConstructorException(new IllegalArgumentException("Minefield is too large"),
+        "Minefield", 50000, 50000, 0, new Random());
+    t.checkConstructorException(new IllegalArgumentException("Field is too small"), "Minefield",
+        1, 41, 0, new Random());
+    t.checkConstructorException(
+        new IllegalArgumentException("There are too many mines in the field"), "Minefield", 5, 5,
+        25, new Random());
+  }
+
+  // tests addMines
+  void testAddMines(Tester t) {
+    reset();
+    Minefield small = new Minefield(new Board(2, 2), 2);
+    t.checkExpect(this.countMines(small.board), 0);
+    small.addMines(new Random(5));
+    t.checkExpect(small.board.isMine(small.board.index(0, 0)), true);
+    t.checkExpect(small.board.isMine(small.board.index(1, 0)), true);
+    t.checkExpect(small.board.isMine(small.board.index(0, 1)), false);
+    t.checkExpect(small.board.isMine(small.board.index(1, 1)), false);
+
+    small = new Minefield(new Board(2, 2), 2);
+    small.addMines(new Random(7));
+    t.checkExpect(small.board.isMine(small.board.index(0, 0)), false);
+    t.checkExpect(small.board.isMine(small.board.index(1, 0)), true);
+    t.checkExpect(small.board.isMine(small.board.index(0, 1)), true);
+    t.checkExpect(small.board.isMine(small.board.index(1, 1)), false);
+    // the mines are counted by the squares around them as they are placed
+    t.checkExpect(small.board.adjacentMines(small.board.index(0, 0)), 2);
+    t.checkExpect(small.board.adjacentMines(small.board.index(1, 0)), 1);
+
+    // checking the corner squares count their neighbors
+    t.checkExpect(field1.board.adjacentMines(field1.board.index(0, 0)), 1);
+    t.checkExpect(field1.board.adjacentMines(field1.board.index(2, 2)), 2);
+    // checking this edge square counts all its neighbors
+    t.checkExpect(field1.board.adjacentMines(field1.board.index(0, 1)), 2);
+    // checking middle square counts all 8 neighbors
+    t.checkExpect(field1.board.adjacentMines(field1.board.index(1, 1)), 1);
+
+    // the same seed always gives the same field
+    Minefield big1 = new Minefield(300, 200, 5000, new Random(3));
+    Minefield big2 = new Minefield(300, 200, 5000, new Random(3));
+    t.checkExpect(big1.board, big2.board);
+    t.checkExpect(this.countMines(big1.board), 5000);
+
+    // a field that is mostly mines gets exactly the right number of mines, and every
+    // square still counts its neighbors correctly
+    Minefield dense = new Minefield(10, 10, 97, new Random(4));
+    t.checkExpect(this.countMines(dense.board), 97);
+    Board check = new Board(10, 10);
+    for (int i = 0; i < 100; i++) {
+      if (dense.board.isMine(i)) {
+        check.placeMine(i);
+      }
+    }
+    t.checkExpect(dense.board, check);
+  }
+
+  // counts the mines on the given Board
+  int countMines(Board board) {
+    int count = 0;
+    for (int i = 0; i < board.size(); i++) {
+      if (board.isMine(i)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // tests reveal and revealCell
+  void testReveal(Tester t) {
+    reset();
+    t.checkExpect(field2.reveal(0, 0), 10);
+    t.checkExpect(field2.revealedCount(), 10);
+    t.checkExpect(field2.reveal(4, 1), 0);
+    t.checkExpect(field2.reveal(-1, 0), 0);
+    t.checkExpect(field2.reveal(0, 5), 0);
+    t.checkExpect(field2.status(), GameStatus.PLAYING);
+    t.checkExpect(field2.revealCell(field2.board.index(4, 4)), 10);
+    t.checkExpect(field2.status(), GameStatus.WON);
+    // once the game is over, nothing more is revealed
+    t.checkExpect(field2.reveal(0, 2), 0);
+    t.checkExpect(field2.board.isRevealed(field2.board.index(0, 2)), false);
+
+    t.checkExpect(field1.reveal(0, 0), 1);
+    t.checkExpect(field1.reveal(1, 1), 1);
+    t.checkExpect(field1.status(), GameStatus.LOST);
+    t.checkExpect(field1.revealedCount(), 1);
+    t.checkExpect(field1.reveal(2, 0), 0);
+  }
+
+  // tests flag and flagCell
+  void testFlag(Tester t) {
+    reset();
+    t.checkExpect(field1.flag(1, 1), true);
+    t.checkExpect(field1.board.isFlagged(field1.board.index(1, 1)), true);
+    t.checkExpect(field1.flagCount(), 1);
+    t.checkExpect(field1.numMines, 1);
+    // a flagged square can't be revealed
+    t.checkExpect(field1.reveal(1, 1), 0);
+    t.checkExpect(field1.flagCell(field1.board.index(1, 1)), false);
+    t.checkExpect(field1.flagCount(), 0);
+    // revealed squares and squares off the field can't be flagged
+    field1.reveal(0, 0);
+    t.checkExpect(field1.flag(0, 0), false);
+    t.checkExpect(field1.flag(3, 0), false);
+    t.checkExpect(field1.flagCount(), 0);
+  }
+
+  // tests status, revealedCount and flagCount
+  void testCounts(Tester t) {
+    reset();
+    t.checkExpect(field2.status(), GameStatus.PLAYING);
+    t.checkExpect(field2.revealedCount(), 0);
+    t.checkExpect(field2.flagCount(), 0);
+    field2.flag(0, 2);
+    field2.flag(1, 2);
+    field2.reveal(4, 0);
+    t.checkExpect(field2.flagCount(), 2);
+    t.checkExpect(field2.revealedCount(), 10);
+  }
+
+  // tests forgetOpenings, openings, threeBV and revealSquares
+  void testOpenings(Tester t) {
+    reset();
+    t.checkExpect(field2.openings, null);
+    t.checkExpect(field2.threeBV(), 2);
+    t.checkExpect(field2.openings.numOpenings, 2);
+    // a new game doesn't find its openings until they're needed
+    t.checkExpect(field1.openings, null);
+    t.checkExpect(field1.threeBV(), 7);
+    t.checkExpect(field1.openings.numOpenings, 0);
+    // a click in an opening is swept from the index, and a flag in it makes it be
+    // searched out instead, stopping at the flag
+    t.checkExpect(field2.revealSquares(0), 10);
+    t.checkExpect(field2.revealSquares(0), 0);
+    field2.flag(0, 4);
+    field2.flag(1, 4);
+    field2.flag(1, 3);
+    t.checkExpect(field2.revealSquares(field2.board.index(4, 4)), 6);
+    t.checkExpect(field2.board.isRevealed(field2.board.index(0, 3)), false);
+    // moving mines and finding the openings again
+    Minefield small = new Minefield(new Board(2, 2), 2);
+    t.checkExpect(small.threeBV(), 1);
+    small.addMines(new Random(5));
+    t.checkExpect(small.openings, null);
+    t.checkExpect(small.threeBV(), 2);
+    t.checkExpect(small.openings.numOpenings, 0);
+    small.forgetOpenings();
+    t.checkExpect(small.openings, null);
+    // a field too big to index is searched out without ever making the index
+    Board huge = new Board(4097, 4097);
+    huge.placeMine(2);
+    huge.placeMine(4097 + 2);
+    huge.placeMine(2 * 4097);
+    huge.placeMine(2 * 4097 + 1);
+    huge.placeMine(2 * 4097 + 2);
+    Minefield hugeField = new Minefield(huge, 5);
+    t.checkExpect(hugeField.revealSquares(0), 4);
+    hugeField.parallelThreshold = 1;
+    t.checkExpect(hugeField.revealSquares(huge.index(3, 3)), 1);
+    t.checkExpect(hugeField.openings, null);
+    // openings past the threshold are spread over threads, and count the same
+    reset();
+    t.checkExpect(field2.parallelThreshold >= ParallelReveal.THRESHOLD, true);
+    field2.parallelThreshold = 1;
+    t.checkExpect(field2.revealCell(0), 10);
+    t.checkExpect(field2.revealedCount(), 10);
+    t.checkExpect(field2.board.isRevealed(field2.board.index(4, 1)), true);
+  }
+}
@@ -0,0 +1,180 @@
+import tester.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// representing a way to make fields that can be won from the square in the middle
+// without ever guessing
+// candidate layouts are made with the usual random mines, moved off the middle square
+// and its neighbors so the first click opens up, and each one is played out by a
+// Solver from that click
+// a batch of candidates is checked at once on every core, and the first one in the
+// batch that the Solver wins is kept, so the same Random always gives the same field
+// however many cores there are
+class NoGuessGenerator {
+  // how many candidates are checked at once
+  static final int BATCH = Math.max(2, Runtime.getRuntime().availableProcessors());
+  // how many candidates are tried before giving up
+  static final int MAX_CANDIDATES = 100000;
+
+  // returns a new game with the given number of mines that can be won without
+  // guessing, with the middle square already revealed
+  // the field needs room for the middle square and its neighbors to be clear
+  static Minefield generate(int width, int height, int numInitMines, Random rand) {
+    if ((long) width * height - 9 < numInitMines) {
+      throw new IllegalArgumentException("There are too many mines in the field");
+    }
+    for (int tried = 0; tried < MAX_CANDIDATES; tried += BATCH) {
+      ArrayList<CandidateTask> batch = new ArrayList<CandidateTask>();
+      for (int i = 0; i < BATCH; i++) {
+        batch.add(new CandidateTask(width, height, numInitMines, rand.nextLong()));
+      }
+      ForkJoinTask.invokeAll(batch);
+      for (CandidateTask task : batch) {
+        Minefield field = task.join();
+        if (field != null) {
+          field.revealCell(NoGuessGenerator.start(field.board));
+          return field;
+        }
+      }
+    }
+    throw new IllegalArgumentException(
+        "No field could be found that can be won without guessing");
+  }
+
+  // returns the index of the square in the middle of the given Board, which is the
+  // first square clicked
+  static int start(Board board) {
+    return board.index(board.height / 2, board.width / 2);
+  }
+
+  // returns a random field with the given number of mines, none of them on the middle
+  // square or next to it
+  static Minefield candidate(int width, int height, int numInitMines, Random rand) {
+    Minefield field = new Minefield(width, height, numInitMines, rand);
+    Board board = field.board;
+    int row = board.height / 2;
+    int col = board.width / 2;
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if (board.onBoard(r, c) && board.isMine(board.index(r, c))) {
+          int to = rand.nextInt(board.size());
+          while (board.isMine(to) || NoGuessGenerator.nearStart(board, to)) {
+            to = rand.nextInt(board.size());
+          }
+          board.moveMine(board.index(r, c), to);
+        }
+      }
+    }
+    field.forgetOpenings();
+    return field;
+  }
+
+  // is the square at the given index the middle square or next to it?
+  static boolean nearStart(Board board, int idx) {
+    return Math.abs(idx / board.width - board.height / 2) <= 1
+        && Math.abs(idx % board.width - board.width / 2) <= 1;
+  }
+
+  // can the given field be won without guessing from the middle square? it is played
+  // out on a copy, so the field itself is left alone
+  static boolean solvable(Minefield field) {
+    Board copy = new Board(field.board.width, field.board.height);
+    System.arraycopy(field.board.cells, 0, copy.cells, 0, copy.cells.length);
+    Minefield game = new Minefield(copy, field.numInitMines);
+    Solver solver = new Solver(copy);
+    game.revealCell(NoGuessGenerator.start(copy));
+    solver.autoPlay(game);
+    return game.status() == GameStatus.WON;
+  }
+}
+
+// representing the making and checking of one candidate field
+class CandidateTask extends RecursiveTask<Minefield> {
+  private static final long serialVersionUID = 1L;
+
+  int width;
+  int height;
+  int mines;
+  long seed;
+
+  // basic constructor for the candidate made from the given seed
+  CandidateTask(int width, int height, int mines, long seed) {
+    this.width = width;
+    this.height = height;
+    this.mines = mines;
+    this.seed = seed;
+  }
+
+  // returns the candidate if it can be won without guessing, or null if it can't
+  protected Minefield compute() {
+    Minefield field = NoGuessGenerator.candidate(this.width, this.height, this.mines,
+        new Random(this.seed));
+    return NoGuessGenerator.solvable(field) ? field : null;
+  }
+}
+
+class ExamplesNoGuessGenerator {
+
+  // tests generate
+  void testGenerate(Tester t) {
+    Minefield field = NoGuessGenerator.generate(30, 16, 99, new Random(4));
+    t.checkExpect(field.board.isRevealed(NoGuessGenerator.start(field.board)), true);
+    t.checkExpect(field.status(), GameStatus.PLAYING);
+    // the rest of the game is won by the Solver alone
+    Solver solver = new Solver(field.board);
+    solver.autoPlay(field);
+    t.checkExpect(field.status(), GameStatus.WON);
+    // the same Random always gives the same field
+    t.checkExpect(NoGuessGenerator.generate(30, 16, 99, new Random(4)).board,
+        NoGuessGenerator.generate(30, 16, 99, new Random(4)).board);
+    t.checkException(new IllegalArgumentException("There are too many mines in the field"),
+        new NoGuessGenerator(), "generate", 3, 3, 1, new Random(4));
+  }
+
+  // tests start and nearStart
+  void testStart(Tester t) {
+    Board board = new Board(5, 4);
+    t.checkExpect(NoGuessGenerator.start(board), 12);
+    t.checkExpect(NoGuessGenerator.nearStart(board, 6), true);
+    t.checkExpect(NoGuessGenerator.nearStart(board, 18), true);
+    t.checkExpect(NoGuessGenerator.nearStart(board, 5), false);
+    t.checkExpect(NoGuessGenerator.nearStart(board, 4), false);
+  }
+
+  // tests candidate
+  void testCandidate(Tester t) {
+    for (int seed = 0; seed < 20; seed++) {
+      Minefield field = NoGuessGenerator.candidate(5, 5, 16, new Random(seed));
+      int mines = 0;
+      for (int i = 0; i < 25; i++) {
+        if (field.board.isMine(i)) {
+          mines++;
+          t.checkExpect(NoGuessGenerator.nearStart(field.board, i), false);
+        }
+      }
+      t.checkExpect(mines, 16);
+    }
+  }
+
+  // tests solvable and compute on CandidateTask
+  void testSolvable(Tester t) {
+    // a mine in the corner, which the opening in the middle walls off
+    Board board = new Board(5, 5);
+    board.placeMine(0);
+    t.checkExpect(NoGuessGenerator.solvable(new Minefield(board, 1)), true);
+    t.checkExpect(board.isRevealed(12), false);
+    // a safe square walled in by mines in the corner can't be reached without guessing
+    // 0 | . * . . . . .
+    // 1 | * * . . . . .
+    Board walled = new Board(7, 7);
+    walled.placeMine(walled.index(0, 1));
+    walled.placeMine(walled.index(1, 0));
+    walled.placeMine(walled.index(1, 1));
+    t.checkExpect(NoGuessGenerator.solvable(new Minefield(walled, 3)), false);
+    // when every square away from the middle is a mine, the opening wins at once
+    t.checkExpect(new CandidateTask(5, 5, 16, 3).compute().numInitMines, 16);
+  }
+}
@@ -0,0 +1,339 @@
+import tester.*;
+
+import java.util.Random;
+
+// representing the openings of a Board, found once when its mines are laid out
+// an opening is a group of touching squares with no mines next to them, together with
+// the numbered squares around its edge, which are all revealed by one click inside it
+// the groups are found with union-find over the squares with no mines next to them, and
+// the squares of each opening are then stored one opening after another in a single
+// array, so revealing an opening is a sweep over its squares with no neighbor search
+// a numbered square on the edge of more than one opening is stored with each of them
+// the index takes about three ints for each square, so it is only made for fields of
+// at most MAX_SQUARES squares
+class OpeningIndex {
+  // the most squares a Board can have for its openings to be indexed
+  static final int MAX_SQUARES = 1 << 24;
+
+  // the opening each square with no mines next to it is in, or -1 for other squares
+  int[] openingOf;
+  // where each opening's squares start in members, with one extra entry for the end
+  int[] starts;
+  int[] members;
+  int numOpenings;
+  // the least number of clicks that clears the Board
+  int threeBV;
+
+  // basic constructor for the openings of the given Board, whose mines are all placed
+  // the squares of all the openings are counted in a long, since a numbered square
+  // can be on the edge of several openings, and a Board with too many of them for one
+  // array can't be indexed
+  OpeningIndex(Board board) {
+    int size = board.size();
+    int[] parent = new int[size];
+    for (int i = 0; i < size; i++) {
+      parent[i] = OpeningIndex.isZero(board, i) ? i : -1;
+    }
+    for (int i = 0; i < size; i++) {
+      if (parent[i] >= 0) {
+        int row = i / board.width;
+        int col = i % board.width;
+        int firstCol = Math.max(col - 1, 0);
+        int lastCol = Math.min(col + 1, board.width - 1);
+        if (col > 0 && parent[i - 1] >= 0) {
+          OpeningIndex.union(parent, i, i - 1);
+        }
+        if (row > 0) {
+          for (int n = board.index(row - 1, firstCol); n <= board.index(row - 1, lastCol); n++) {
+            if (parent[n] >= 0) {
+              OpeningIndex.union(parent, i, n);
+            }
+          }
+        }
+      }
+    }
+    this.openingOf = new int[size];
+    this.numOpenings = 0;
+    for (int i = 0; i < size; i++) {
+      if (parent[i] < 0) {
+        this.openingOf[i] = -1;
+      }
+      else if (parent[i] == i) {
+        this.openingOf[i] = this.numOpenings;
+        this.numOpenings++;
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      if (parent[i] >= 0) {
+        this.openingOf[i] = this.openingOf[OpeningIndex.find(parent, i)];
+      }
+    }
+    this.starts = new int[this.numOpenings + 1];
+    this.threeBV = this.numOpenings;
+    int[] around = new int[8];
+    for (int i = 0; i < size; i++) {
+      if (this.openingOf[i] >= 0) {
+        this.starts[this.openingOf[i] + 1]++;
+      }
+      else if (!board.isMine(i)) {
+        int found = this.openingsAround(board, i, around);
+        for (int k = 0; k < found; k++) {
+          this.starts[around[k] + 1]++;
+        }
+        if (found == 0) {
+          this.threeBV++;
+        }
+      }
+    }
+    long total = 0;
+    for (int k = 0; k < this.numOpenings; k++) {
+      total += this.starts[k + 1];
+      if (total > Integer.MAX_VALUE - 8) {
+        throw new IllegalArgumentException("The openings of the Board are too large to index");
+      }
+      this.starts[k + 1] = (int) total;
+    }
+    this.members = new int[this.starts[this.numOpenings]];
+    int[] next = this.starts.clone();
+    for (int i = 0; i < size; i++) {
+      if (this.openingOf[i] >= 0) {
+        this.members[next[this.openingOf[i]]++] = i;
+      }
+      else if (!board.isMine(i)) {
+        int found = this.openingsAround(board, i, around);
+        for (int k = 0; k < found; k++) {
+          this.members[next[around[k]]++] = i;
+        }
+      }
+    }
+  }
+
+  // does the square at the given index have no mine on it or next to it?
+  static boolean isZero(Board board, int idx) {
+    return (board.cells[idx] & (Board.MINE | Board.ADJACENT)) == 0;
+  }
+
+  // returns the root of the group the given square is in, halving the path to it
+  // EFFECT: Points squares on the path at their grandparents
+  static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  // joins the groups the two given squares are in
+  // EFFECT: Points the root of one group at the root of the other
+  static void union(int[] parent, int a, int b) {
+    int rootA = OpeningIndex.find(parent, a);
+    int rootB = OpeningIndex.find(parent, b);
+    if (rootA != rootB) {
+      parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+    }
+  }
+
+  // puts the different openings next to the square at the given index into the given
+  // array, and returns how many there are
+  // EFFECT: Changes the start of the array
+  int openingsAround(Board board, int idx, int[] around) {
+    int found = 0;
+    int row = idx / board.width;
+    int col = idx % board.width;
+    int lastRow = Math.min(row + 1, board.height - 1);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, board.width - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int n = board.index(r, firstCol); n <= board.index(r, lastCol); n++) {
+        int opening = this.openingOf[n];
+        boolean seen = opening < 0;
+        for (int k = 0; k < found && !seen; k++) {
+          seen = around[k] == opening;
+        }
+        if (!seen) {
+          around[found] = opening;
+          found++;
+        }
+      }
+    }
+    return found;
+  }
+
+  // is the square at the given index inside an opening, so that clicking it reveals
+  // the whole opening?
+  boolean inOpening(int idx) {
+    return this.openingOf[idx] >= 0;
+  }
+
+  // returns how many squares the given opening reveals, counting its edge
+  int openingSize(int opening) {
+    return this.starts[opening + 1] - this.starts[opening];
+  }
+
+  // returns the size of the largest opening, or 0 if there are none
+  int largestOpening() {
+    int largest = 0;
+    for (int k = 0; k < this.numOpenings; k++) {
+      largest = Math.max(largest, this.openingSize(k));
+    }
+    return largest;
+  }
+
+  // returns the square of the given Board that reveals the most squares when it is
+  // clicked: the first square of its largest opening, or its first safe square if it
+  // has no openings, or -1 if every square is a mine
+  static int largestStart(Board board) {
+    OpeningIndex index = new OpeningIndex(board);
+    int best = -1;
+    for (int k = 0; k < index.numOpenings; k++) {
+      if (best < 0 || index.openingSize(k) > index.openingSize(best)) {
+        best = k;
+      }
+    }
+    for (int i = 0; i < board.size(); i++) {
+      if (best >= 0 ? index.openingOf[i] == best : !board.isMine(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // reveals the opening the square at the given index is in, and returns how many
+  // squares were newly revealed, or -1 if a square of the opening is flagged
+  // a flag stops an opening from spreading, which only a search can follow, so
+  // openings with flags are left for Board.reveal
+  // EFFECT: Marks the squares of the opening as revealed, and tells the Board's
+  // listeners about each
+  int reveal(Board board, int idx) {
+    int opening = this.openingOf[idx];
+    int end = this.starts[opening + 1];
+    for (int k = this.starts[opening]; k < end; k++) {
+      if ((board.cells[this.members[k]] & Board.FLAG) != 0) {
+        return -1;
+      }
+    }
+    int count = 0;
+    for (int k = this.starts[opening]; k < end; k++) {
+      int m = this.members[k];
+      if ((board.cells[m] & Board.REVEALED) == 0) {
+        board.cells[m] |= Board.REVEALED;
+        board.changed(m);
+        count++;
+      }
+    }
+    return count;
+  }
+}
+
+class ExamplesOpeningIndex {
+  Board board1;
+  OpeningIndex index1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 7x4 board with a wall of mines down the middle column, and a mine in the corner
+    // 0 | . . . * . . .
+    // 1 | . . . * . . .
+    // 2 | . . . * . . .
+    // 3 | . . . * . . *
+    board1 = new Board(7, 4);
+    for (int i = 0; i < 4; i++) {
+      board1.placeMine(board1.index(i, 3));
+    }
+    board1.placeMine(board1.index(3, 6));
+    index1 = new OpeningIndex(board1);
+  }
+
+  // tests the constructor, find, union and largestStart
+  void testConstructor(Tester t) {
+    reset();
+    t.checkExpect(index1.numOpenings, 2);
+    t.checkExpect(index1.openingOf[0], 0);
+    t.checkExpect(index1.openingOf[board1.index(3, 1)], 0);
+    t.checkExpect(index1.openingOf[board1.index(0, 2)], -1);
+    t.checkExpect(index1.openingOf[board1.index(0, 6)], 1);
+    t.checkExpect(index1.openingOf[board1.index(3, 3)], -1);
+    t.checkExpect(index1.openingSize(0), 12);
+    // the squares next to the corner mine in the bottom row touch no opening, and
+    // each take a click of their own
+    t.checkExpect(index1.openingSize(1), 9);
+    t.checkExpect(index1.largestOpening(), 12);
+    t.checkExpect(OpeningIndex.largestStart(board1), 0);
+    Board mines = new Board(2, 2);
+    for (int i = 0; i < 4; i++) {
+      mines.placeMine(i);
+    }
+    t.checkExpect(OpeningIndex.largestStart(mines), -1);
+    t.checkExpect(index1.threeBV, 4);
+    int[] parent = new int[] { 0, 1, 2, 3 };
+    OpeningIndex.union(parent, 3, 2);
+    OpeningIndex.union(parent, 1, 3);
+    t.checkExpect(OpeningIndex.find(parent, 3), 1);
+    t.checkExpect(OpeningIndex.find(parent, 2), 1);
+    t.checkExpect(OpeningIndex.find(parent, 0), 0);
+  }
+
+  // tests the 3BV and edges of boards where numbered squares stand alone or join
+  // up openings
+  void testThreeBV(Tester t) {
+    // every square is next to the mine in the middle, so each takes a click
+    Board middle = new Board(3, 3);
+    middle.placeMine(4);
+    OpeningIndex middleIndex = new OpeningIndex(middle);
+    t.checkExpect(middleIndex.numOpenings, 0);
+    t.checkExpect(middleIndex.threeBV, 8);
+    t.checkExpect(middleIndex.largestOpening(), 0);
+    t.checkExpect(OpeningIndex.largestStart(middle), 0);
+    // the middle column has no mines next to it, and joins the top and bottom
+    // 2 | * . . . *
+    Board between = new Board(5, 5);
+    between.placeMine(between.index(2, 0));
+    between.placeMine(between.index(2, 4));
+    OpeningIndex betweenIndex = new OpeningIndex(between);
+    t.checkExpect(betweenIndex.numOpenings, 1);
+    t.checkExpect(betweenIndex.openingSize(0), 23);
+    t.checkExpect(betweenIndex.threeBV, 1);
+    // a wall of mines with a gap at the top splits the board in two, and the square in
+    // the gap touches neither opening
+    // 0 | . . . . . . . . .
+    // 1 | . . . . * . . . .
+    // 2 | . . . . * . . . .
+    Board two = new Board(9, 3);
+    two.placeMine(two.index(1, 4));
+    two.placeMine(two.index(2, 4));
+    OpeningIndex twoIndex = new OpeningIndex(two);
+    t.checkExpect(twoIndex.numOpenings, 2);
+    t.checkExpect(twoIndex.openingSize(0), 12);
+    t.checkExpect(twoIndex.openingSize(1), 12);
+    t.checkExpect(twoIndex.threeBV, 3);
+  }
+
+  // tests inOpening and reveal
+  void testReveal(Tester t) {
+    reset();
+    t.checkExpect(index1.inOpening(0), true);
+    t.checkExpect(index1.inOpening(board1.index(0, 2)), false);
+    t.checkExpect(index1.reveal(board1, 0), 12);
+    t.checkExpect(board1.isRevealed(board1.index(3, 2)), true);
+    t.checkExpect(board1.isRevealed(board1.index(3, 3)), false);
+    t.checkExpect(index1.reveal(board1, 0), 0);
+    // a flag in the opening leaves it to Board.reveal
+    board1.setFlagged(board1.index(0, 4), true);
+    t.checkExpect(index1.reveal(board1, board1.index(0, 5)), -1);
+    t.checkExpect(board1.isRevealed(board1.index(0, 5)), false);
+    // revealing from the index matches revealing by search on random fields
+    for (int seed = 0; seed < 20; seed++) {
+      Board searched = new Minefield(40, 30, 150, new Random(seed)).board;
+      Board swept = new Board(40, 30);
+      System.arraycopy(searched.cells, 0, swept.cells, 0, swept.cells.length);
+      OpeningIndex index = new OpeningIndex(swept);
+      for (int i = 0; i < swept.size(); i += 7) {
+        if (index.inOpening(i)) {
+          t.checkExpect(index.reveal(swept, i), searched.reveal(i));
+        }
+      }
+      t.checkExpect(swept.cells, searched.cells);
+    }
+  }
+}
@@ -0,0 +1,271 @@
+import tester.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// representing one reveal of a very large opening, spread over the threads of the
+// common fork-join pool
+// the Board is cut into bands of rows, and each band walks the part of the opening
+// inside its own rows breadth-first, the same way Board.reveal does
+// a band only ever touches its own rows and the row just past each of its edges, so
+// the squares inside a band are marked with plain writes, and only the squares on the
+// edges of a band, which the band next to it can reach too, are marked with a
+// compare-and-set, making sure each square is revealed and counted by exactly one band
+// a square with no mines next to it that a band marks past its edge is handed to the
+// band it belongs to, which spreads from it in the next round, and rounds go on until
+// no band has anything handed to it
+// the Board's listeners aren't safe to call from many threads, so each band keeps the
+// squares it revealed if there are any listeners, and they are told once all the
+// bands are done
+class ParallelReveal {
+  // the fewest squares an opening has to have before a reveal is spread over threads
+  static final int THRESHOLD = 1 << 16;
+  // how many bands to cut the Board into for each thread
+  static final int BANDS_PER_THREAD = 4;
+
+  Board board;
+  ArrayList<RevealBand> bands;
+  int bandRows;
+
+  // basic constructor for revealing on the given Board with a band for each share of
+  // the threads of the common pool
+  ParallelReveal(Board board) {
+    this(board, ForkJoinPool.getCommonPoolParallelism() * BANDS_PER_THREAD);
+  }
+
+  // constructor for revealing on the given Board cut into the given number of bands,
+  // or one band for each row if there are fewer rows than that
+  ParallelReveal(Board board, int numBands) {
+    if (numBands < 1) {
+      throw new IllegalArgumentException("There has to be at least one band");
+    }
+    this.board = board;
+    this.bandRows = (board.height + Math.min(numBands, board.height) - 1)
+        / Math.min(numBands, board.height);
+    this.bands = new ArrayList<RevealBand>();
+    boolean notify = !board.listeners.isEmpty();
+    for (int first = 0; first < board.height; first += this.bandRows) {
+      this.bands.add(new RevealBand(board, first,
+          Math.min(first + this.bandRows, board.height) - 1, notify));
+    }
+  }
+
+  // returns the fewest squares an opening has to have before a reveal is spread over
+  // threads, which is never when the common pool has only one thread
+  static int threshold() {
+    if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+      return Integer.MAX_VALUE;
+    }
+    return THRESHOLD;
+  }
+
+  // reveals the square at the given index, and the squares around it if it has no
+  // neighboring mines, returning how many squares were newly revealed
+  // flagged and already revealed squares are left alone, as in Board.reveal
+  // EFFECT: Marks the square, and possibly its surroundings, as revealed, and tells
+  // the Board's listeners about each
+  int reveal(int idx) {
+    if ((this.board.cells[idx] & (Board.REVEALED | Board.FLAG)) != 0) {
+      return 0;
+    }
+    this.board.cells[idx] |= Board.REVEALED;
+    this.board.changed(idx);
+    if (!OpeningIndex.isZero(this.board, idx)) {
+      return 1;
+    }
+    this.bands.get(idx / this.board.width / this.bandRows).pending.add(idx);
+    ArrayList<RevealBand> round = new ArrayList<RevealBand>();
+    this.ready(round);
+    while (!round.isEmpty()) {
+      ForkJoinTask.invokeAll(round);
+      this.handOver();
+      this.ready(round);
+    }
+    int count = 1;
+    for (RevealBand band : this.bands) {
+      count += band.count;
+      for (int k = 0; k < band.revealed.size; k++) {
+        this.board.changed(band.revealed.get(k));
+      }
+    }
+    return count;
+  }
+
+  // puts the bands with squares to spread from into the given list, ready to be run
+  // EFFECT: Replaces the contents of the list, and resets the bands in it
+  void ready(ArrayList<RevealBand> round) {
+    round.clear();
+    for (RevealBand band : this.bands) {
+      if (!band.pending.isEmpty()) {
+        band.reinitialize();
+        round.add(band);
+      }
+    }
+  }
+
+  // hands the squares each band marked past its edges to the bands they belong to
+  // EFFECT: Empties the bands' outgoing queues into their neighbors' pending queues
+  void handOver() {
+    for (int b = 0; b < this.bands.size(); b++) {
+      RevealBand band = this.bands.get(b);
+      while (!band.above.isEmpty()) {
+        this.bands.get(b - 1).pending.add(band.above.remove());
+      }
+      while (!band.below.isEmpty()) {
+        this.bands.get(b + 1).pending.add(band.below.remove());
+      }
+    }
+  }
+}
+
+// representing the rows of a Board that one thread of a ParallelReveal spreads over
+class RevealBand extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  Board board;
+  int firstRow;
+  int lastRow;
+  // the squares with no mines next to them that this band has to spread from
+  IntQueue pending;
+  // the squares with no mines next to them that this band marked in the bands above
+  // and below it
+  IntQueue above;
+  IntQueue below;
+  // how many squares this band has revealed
+  int count;
+  // the squares this band has revealed, kept only if the Board has listeners to tell
+  IntQueue revealed;
+  boolean notify;
+
+  // basic constructor for the given rows of the given Board
+  RevealBand(Board board, int firstRow, int lastRow, boolean notify) {
+    this.board = board;
+    this.firstRow = firstRow;
+    this.lastRow = lastRow;
+    this.pending = new IntQueue();
+    this.above = new IntQueue();
+    this.below = new IntQueue();
+    this.count = 0;
+    this.revealed = new IntQueue();
+    this.notify = notify;
+  }
+
+  // spreads from every pending square until the opening is walked out of this band's
+  // rows, or is handed to the bands next to it
+  // EFFECT: Marks squares as revealed, and fills the outgoing queues
+  protected void compute() {
+    byte[] cells = this.board.cells;
+    int width = this.board.width;
+    while (!this.pending.isEmpty()) {
+      int next = this.pending.remove();
+      int row = next / width;
+      int col = next % width;
+      int lastR = Math.min(row + 1, this.board.height - 1);
+      int firstCol = Math.max(col - 1, 0);
+      int lastCol = Math.min(col + 1, width - 1);
+      for (int r = Math.max(row - 1, 0); r <= lastR; r++) {
+        boolean shared = r <= this.firstRow || r >= this.lastRow;
+        for (int n = r * width + firstCol; n <= r * width + lastCol; n++) {
+          if (shared ? SharedField.claim(cells, n) : this.mark(cells, n)) {
+            this.count++;
+            if (this.notify) {
+              this.revealed.add(n);
+            }
+            if ((cells[n] & (Board.MINE | Board.ADJACENT)) == 0) {
+              if (r < this.firstRow) {
+                this.above.add(n);
+              }
+              else if (r > this.lastRow) {
+                this.below.add(n);
+              }
+              else {
+                this.pending.add(n);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  // sets the revealed bit of a square that only this band can reach, and returns
+  // whether it wasn't already revealed or flagged
+  // EFFECT: Reveals the square
+  boolean mark(byte[] cells, int idx) {
+    if ((cells[idx] & (Board.REVEALED | Board.FLAG)) != 0) {
+      return false;
+    }
+    cells[idx] |= Board.REVEALED;
+    return true;
+  }
+}
+
+class ExamplesParallelReveal {
+  Board board1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 5x7 board with a mine in the middle of the top row, a flag below it, and a wall
+    // across row 4 with a gap at the right
+    // 0 | . . * . .
+    // 1 | . . F . .
+    // 4 | * * * * .
+    board1 = new Board(5, 7);
+    board1.placeMine(2);
+    for (int i = 0; i < 4; i++) {
+      board1.placeMine(board1.index(4, i));
+    }
+    board1.setFlagged(board1.index(1, 2), true);
+  }
+
+  // tests the constructor
+  void testConstructor(Tester t) {
+    reset();
+    ParallelReveal three = new ParallelReveal(board1, 3);
+    t.checkExpect(three.bandRows, 3);
+    t.checkExpect(three.bands.size(), 3);
+    t.checkExpect(three.bands.get(2).firstRow, 6);
+    t.checkExpect(three.bands.get(2).lastRow, 6);
+    ParallelReveal many = new ParallelReveal(board1, 100);
+    t.checkExpect(many.bands.size(), 7);
+    t.checkExpect(many.bands.get(0).notify, false);
+    t.checkExpect(new ParallelReveal(new Board(4, 4)).bands.isEmpty(), false);
+    t.checkConstructorException(new IllegalArgumentException("There has to be at least one band"),
+        "ParallelReveal", board1, 0);
+  }
+
+  // tests reveal, compute, mark, ready and handOver
+  void testReveal(Tester t) {
+    reset();
+    Board searched = new Board(5, 7);
+    System.arraycopy(board1.cells, 0, searched.cells, 0, board1.cells.length);
+    t.checkExpect(new ParallelReveal(board1, 7).reveal(board1.index(6, 0)), searched.reveal(
+        searched.index(6, 0)));
+    t.checkExpect(board1.cells, searched.cells);
+    t.checkExpect(new ParallelReveal(board1, 7).reveal(1), 1);
+    t.checkExpect(new ParallelReveal(board1, 7).reveal(board1.index(1, 2)), 0);
+    t.checkExpect(new ParallelReveal(board1, 7).reveal(board1.index(4, 0)), 1);
+    // every band count matches a search on random fields, and listeners hear about
+    // each square once
+    for (int seed = 0; seed < 20; seed++) {
+      Board base = new Minefield(60, 50, 120 + seed * 20, new Random(seed)).board;
+      Board parallel = new Board(60, 50);
+      System.arraycopy(base.cells, 0, parallel.cells, 0, base.cells.length);
+      ChangeLog log = new ChangeLog();
+      parallel.listeners.add(log);
+      int count = 0;
+      int total = 0;
+      for (int i = 0; i < base.size(); i += 11) {
+        count += new ParallelReveal(parallel, 1 + seed % 9).reveal(i);
+        total += base.reveal(i);
+      }
+      t.checkExpect(count, total);
+      t.checkExpect(log.changes.size(), total);
+      t.checkExpect(parallel.cells, base.cells);
+    }
+  }
+}
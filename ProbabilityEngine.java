@@ -0,0 +1,722 @@
+import tester.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// representing the exact chance that each hidden square of a game is a mine
+// the unknown squares next to revealed numbers are split into components that share no
+// numbers, and every way of placing mines in a component that fits its numbers is
+// counted, by how many mines it uses
+// the components are then put together, weighing each total by the number of ways to
+// place the rest of the mines on the unknown squares away from the numbers
+// a component that is exactly the same as at the last call is not counted again, and
+// the components that are counted are counted in parallel
+class ProbabilityEngine {
+  Minefield field;
+  Solver solver;
+  HashMap<ComponentKey, ComponentResult> cache;
+  int hits;
+
+  // basic constructor for the chances in the given game, using the given Solver on
+  // its Board to find the squares that are already certain
+  ProbabilityEngine(Minefield field, Solver solver) {
+    this.field = field;
+    this.solver = solver;
+    this.cache = new HashMap<ComponentKey, ComponentResult>();
+    this.hits = 0;
+  }
+
+  // returns the chance that each square of the Board is a mine, where revealed and
+  // safe squares have no chance and known mines are certain
+  // flags are only the player's guesses, so a flagged square gets its chance like any
+  // other hidden square
+  // EFFECT: Brings the Solver up to date, and keeps the counted components for the
+  // next call
+  double[] probabilities() {
+    this.solver.solve();
+    Board board = this.field.board;
+    double[] result = new double[board.size()];
+    int[] varOf = new int[board.size()];
+    Arrays.fill(varOf, -1);
+    ArrayList<Integer> vars = new ArrayList<Integer>();
+    int knownMines = 0;
+    int interior = 0;
+    for (int i = 0; i < board.size(); i++) {
+      if (this.solver.isKnownMine(i) && !board.isRevealed(i)) {
+        result[i] = 1;
+        knownMines++;
+      }
+      else if (this.solver.isUnknown(i)) {
+        if (this.solver.frontier[i]) {
+          varOf[i] = vars.size();
+          vars.add(i);
+        }
+        else {
+          interior++;
+        }
+      }
+    }
+    ArrayList<ComponentTask> tasks = this.split(vars, varOf);
+    HashMap<ComponentKey, ComponentResult> next = new HashMap<ComponentKey, ComponentResult>();
+    ArrayList<ComponentTask> toCount = new ArrayList<ComponentTask>();
+    for (ComponentTask task : tasks) {
+      ComponentResult cached = this.cache.get(task.key);
+      if (cached == null) {
+        toCount.add(task);
+      }
+      else {
+        task.result = cached;
+        this.hits++;
+      }
+    }
+    ForkJoinTask.invokeAll(toCount);
+    for (ComponentTask task : tasks) {
+      if (task.result == null) {
+        task.result = task.join();
+      }
+      next.put(task.key, task.result);
+    }
+    this.cache = next;
+    this.combine(tasks, this.field.numInitMines - knownMines, interior, result);
+    return result;
+  }
+
+  // splits the given unknown squares into the components that share numbers, with
+  // the numbers that bound each one
+  ArrayList<ComponentTask> split(ArrayList<Integer> vars, int[] varOf) {
+    Board board = this.field.board;
+    int[] parent = new int[vars.size()];
+    for (int v = 0; v < parent.length; v++) {
+      parent[v] = v;
+    }
+    ArrayList<Integer> numbers = new ArrayList<Integer>();
+    HashMap<Integer, Integer> seen = new HashMap<Integer, Integer>();
+    int[] around = new int[8];
+    for (int cell : vars) {
+      int row = cell / board.width;
+      int col = cell % board.width;
+      for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, board.height - 1); r++) {
+        for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, board.width - 1); c++) {
+          int n = board.index(r, c);
+          if (board.isRevealed(n) && !board.isMine(n) && !seen.containsKey(n)) {
+            seen.put(n, numbers.size());
+            numbers.add(n);
+            int count = this.solver.unknownAround(n, around);
+            for (int k = 1; k < count; k++) {
+              this.union(parent, varOf[around[0]], varOf[around[k]]);
+            }
+          }
+        }
+      }
+    }
+    HashMap<Integer, ComponentTask> byRoot = new HashMap<Integer, ComponentTask>();
+    ArrayList<ComponentTask> tasks = new ArrayList<ComponentTask>();
+    for (int v = 0; v < vars.size(); v++) {
+      int root = this.find(parent, v);
+      ComponentTask task = byRoot.get(root);
+      if (task == null) {
+        task = new ComponentTask();
+        byRoot.put(root, task);
+        tasks.add(task);
+      }
+      task.cells.add(vars.get(v));
+    }
+    for (int n : numbers) {
+      int count = this.solver.unknownAround(n, around);
+      ComponentTask task = byRoot.get(this.find(parent, varOf[around[0]]));
+      int[] members = new int[count];
+      for (int k = 0; k < count; k++) {
+        members[k] = around[k];
+      }
+      task.addNumber(n, this.solver.minesLeft(n), members);
+    }
+    for (ComponentTask task : tasks) {
+      task.prepare();
+    }
+    return tasks;
+  }
+
+  // returns the root of the set the given element is in, shortening the path to it
+  // EFFECT: Points the elements on the path closer to the root
+  int find(int[] parent, int v) {
+    while (parent[v] != v) {
+      parent[v] = parent[parent[v]];
+      v = parent[v];
+    }
+    return v;
+  }
+
+  // puts the sets of the two given elements together
+  // EFFECT: Points one root at the other
+  void union(int[] parent, int a, int b) {
+    int rootA = this.find(parent, a);
+    int rootB = this.find(parent, b);
+    if (rootA != rootB) {
+      parent[rootA] = rootB;
+    }
+  }
+
+  // puts the counted components together with the unknown squares away from the
+  // numbers, given how many mines are left to place among all of them
+  // EFFECT: Fills in the chances for every unknown square
+  void combine(ArrayList<ComponentTask> tasks, int minesLeft, int interior, double[] result) {
+    int parts = tasks.size();
+    double[][] before = new double[parts + 1][];
+    double[][] after = new double[parts + 1][];
+    before[0] = new double[] { 1 };
+    after[parts] = new double[] { 1 };
+    for (int i = 0; i < parts; i++) {
+      before[i + 1] = this.convolve(before[i], tasks.get(i).result.ways);
+      after[parts - 1 - i] = this.convolve(after[parts - i],
+          tasks.get(parts - 1 - i).result.ways);
+    }
+    double[] all = before[parts];
+    double[] weight = this.restWeights(minesLeft, interior, all.length);
+    double total = 0;
+    double interiorMines = 0;
+    for (int k = 0; k < all.length; k++) {
+      total += all[k] * weight[k];
+      if (interior > 0) {
+        interiorMines += all[k] * weight[k] * (minesLeft - k) / interior;
+      }
+    }
+    if (total == 0) {
+      throw new IllegalStateException("No layout of mines fits the board");
+    }
+    for (int i = 0; i < parts; i++) {
+      ComponentTask task = tasks.get(i);
+      double[] others = this.convolve(before[i], after[i + 1]);
+      double[] ways = task.result.ways;
+      double[][] mines = task.result.mines;
+      for (int k = 0; k < ways.length; k++) {
+        double rest = 0;
+        for (int j = 0; j < others.length && k + j < weight.length; j++) {
+          rest += others[j] * weight[k + j];
+        }
+        for (int v = 0; v < task.cells.size(); v++) {
+          result[task.cells.get(v)] += mines[k][v] * rest / total;
+        }
+      }
+    }
+    Board board = this.field.board;
+    for (int i = 0; i < board.size(); i++) {
+      if (this.solver.isUnknown(i) && !this.solver.frontier[i]) {
+        result[i] = interiorMines / total;
+      }
+    }
+  }
+
+  // returns the ways of getting each total from two lists of ways to get each total
+  double[] convolve(double[] a, double[] b) {
+    double[] c = new double[a.length + b.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != 0) {
+        for (int j = 0; j < b.length; j++) {
+          c[i + j] += a[i] * b[j];
+        }
+      }
+    }
+    return c;
+  }
+
+  // returns, for each number of mines k placed next to the numbers, the number of ways
+  // to place the other mines among the given number of squares away from them, all
+  // scaled by the same amount so the largest is 1
+  double[] restWeights(int minesLeft, int interior, int count) {
+    double[] logs = new double[count];
+    double best = Double.NEGATIVE_INFINITY;
+    for (int k = 0; k < count; k++) {
+      int rest = minesLeft - k;
+      if (rest < 0 || rest > interior) {
+        logs[k] = Double.NEGATIVE_INFINITY;
+      }
+      else {
+        logs[k] = this.logChoose(interior, rest);
+        best = Math.max(best, logs[k]);
+      }
+    }
+    double[] weights = new double[count];
+    for (int k = 0; k < count; k++) {
+      weights[k] = logs[k] == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logs[k] - best);
+    }
+    return weights;
+  }
+
+  // returns the log of the number of ways to pick k of n things
+  double logChoose(int n, int k) {
+    k = Math.min(k, n - k);
+    double sum = 0;
+    for (int i = 0; i < k; i++) {
+      sum += Math.log(n - i) - Math.log(i + 1);
+    }
+    return sum;
+  }
+
+  // returns the hidden square least likely to be a mine, or -1 if there isn't one
+  // EFFECT: Brings the Solver up to date
+  int safestCell() {
+    double[] chances = this.probabilities();
+    int best = -1;
+    for (int i = 0; i < chances.length; i++) {
+      if (!this.field.board.isRevealed(i) && !this.solver.isKnownMine(i)
+          && (best < 0 || chances[i] < chances[best])) {
+        best = i;
+      }
+    }
+    return best;
+  }
+}
+
+// representing the squares and numbers of one component, which identify it exactly:
+// the squares in order, then each number with how many mines it still needs
+class ComponentKey {
+  int[] data;
+
+  // basic constructor for the given squares and numbers
+  ComponentKey(int[] data) {
+    this.data = data;
+  }
+
+  // is the given object a ComponentKey for the same component?
+  public boolean equals(Object other) {
+    return other instanceof ComponentKey && Arrays.equals(this.data, ((ComponentKey) other).data);
+  }
+
+  // returns a hash code that agrees with equals
+  public int hashCode() {
+    return Arrays.hashCode(this.data);
+  }
+}
+
+// representing the counted ways of placing mines in a component: for each number of
+// mines k, how many ways there are, and how many of those put a mine on each square
+// both are scaled by the same amount, so only their ratios mean anything
+class ComponentResult {
+  double[] ways;
+  double[][] mines;
+
+  // basic constructor for the given counts
+  ComponentResult(double[] ways, double[][] mines) {
+    this.ways = ways;
+    this.mines = mines;
+  }
+}
+
+// representing the counting of one component
+// squares that touch exactly the same numbers are grouped into a box, since only how
+// many mines a box holds matters to the numbers; each box is given each number of
+// mines in turn, counted as the ways of choosing that many of its squares, and the
+// counting backs up as soon as a number can't be met
+// the boxes are visited in an order that walks along the numbers, so the numbers are
+// finished, and the wrong placements cut off, as early as possible
+class ComponentTask extends RecursiveTask<ComponentResult> {
+  private static final long serialVersionUID = 1L;
+
+  ArrayList<Integer> cells;
+  ArrayList<Integer> numbers;
+  ArrayList<Integer> needs;
+  ArrayList<int[]> members;
+  ComponentKey key;
+  ComponentResult result;
+
+  ArrayList<ArrayList<Integer>> boxes;
+  int[][] numbersOf;
+  int[] order;
+  int[] need;
+  int[] open;
+  int[] boxMines;
+  double[] ways;
+  double[][] boxWays;
+
+  // basic constructor for a component with no squares or numbers yet
+  ComponentTask() {
+    this.cells = new ArrayList<Integer>();
+    this.numbers = new ArrayList<Integer>();
+    this.needs = new ArrayList<Integer>();
+    this.members = new ArrayList<int[]>();
+  }
+
+  // adds the number at the given index, which needs the given number of mines among
+  // the given squares
+  // EFFECT: Adds the number to this component
+  void addNumber(int idx, int need, int[] squares) {
+    this.numbers.add(idx);
+    this.needs.add(need);
+    this.members.add(squares);
+  }
+
+  // works out the key of this component, once all of its squares and numbers are in
+  // EFFECT: Sets the key
+  void prepare() {
+    int[] data = new int[this.cells.size() + 2 * this.numbers.size() + 1];
+    int k = 0;
+    for (int cell : this.cells) {
+      data[k] = cell;
+      k++;
+    }
+    data[k] = -1;
+    k++;
+    for (int i = 0; i < this.numbers.size(); i++) {
+      data[k] = this.numbers.get(i);
+      data[k + 1] = this.needs.get(i);
+      k += 2;
+    }
+    this.key = new ComponentKey(data);
+  }
+
+  // counts every way of placing mines in this component that fits its numbers
+  protected ComponentResult compute() {
+    int size = this.cells.size();
+    this.makeBoxes();
+    this.need = new int[this.numbers.size()];
+    this.open = new int[this.numbers.size()];
+    for (int n = 0; n < this.numbers.size(); n++) {
+      this.need[n] = this.needs.get(n);
+      this.open[n] = this.members.get(n).length;
+    }
+    this.order = this.walkOrder();
+    this.boxMines = new int[this.boxes.size()];
+    this.ways = new double[size + 1];
+    this.boxWays = new double[size + 1][this.boxes.size()];
+    this.place(0, 0, 1);
+    double scale = 0;
+    for (double w : this.ways) {
+      scale = Math.max(scale, w);
+    }
+    if (scale == 0) {
+      scale = 1;
+    }
+    double[][] mines = new double[size + 1][size];
+    HashMap<Integer, Integer> local = this.localNumbers();
+    for (int k = 0; k <= size; k++) {
+      this.ways[k] /= scale;
+      for (int b = 0; b < this.boxes.size(); b++) {
+        double share = this.boxWays[k][b] / scale / this.boxes.get(b).size();
+        for (int cell : this.boxes.get(b)) {
+          mines[k][local.get(cell)] = share;
+        }
+      }
+    }
+    return new ComponentResult(this.ways, mines);
+  }
+
+  // returns where each square of this component is in its list of squares
+  HashMap<Integer, Integer> localNumbers() {
+    HashMap<Integer, Integer> local = new HashMap<Integer, Integer>();
+    for (int v = 0; v < this.cells.size(); v++) {
+      local.put(this.cells.get(v), v);
+    }
+    return local;
+  }
+
+  // groups the squares of this component by the numbers they touch
+  // EFFECT: Sets the boxes, and the numbers each box touches
+  void makeBoxes() {
+    HashMap<Integer, ArrayList<Integer>> byCell = new HashMap<Integer, ArrayList<Integer>>();
+    for (int cell : this.cells) {
+      byCell.put(cell, new ArrayList<Integer>());
+    }
+    for (int n = 0; n < this.numbers.size(); n++) {
+      for (int cell : this.members.get(n)) {
+        byCell.get(cell).add(n);
+      }
+    }
+    HashMap<ArrayList<Integer>, Integer> boxOf = new HashMap<ArrayList<Integer>, Integer>();
+    this.boxes = new ArrayList<ArrayList<Integer>>();
+    ArrayList<ArrayList<Integer>> touched = new ArrayList<ArrayList<Integer>>();
+    for (int cell : this.cells) {
+      ArrayList<Integer> numbers = byCell.get(cell);
+      Integer box = boxOf.get(numbers);
+      if (box == null) {
+        box = this.boxes.size();
+        boxOf.put(numbers, box);
+        this.boxes.add(new ArrayList<Integer>());
+        touched.add(numbers);
+      }
+      this.boxes.get(box).add(cell);
+    }
+    this.numbersOf = new int[this.boxes.size()][];
+    for (int b = 0; b < this.boxes.size(); b++) {
+      this.numbersOf[b] = new int[touched.get(b).size()];
+      for (int j = 0; j < this.numbersOf[b].length; j++) {
+        this.numbersOf[b][j] = touched.get(b).get(j);
+      }
+    }
+  }
+
+  // returns the boxes of this component in the order they are reached by walking
+  // from the first box through the numbers they share
+  int[] walkOrder() {
+    int count = this.boxes.size();
+    ArrayList<ArrayList<Integer>> boxesOf = new ArrayList<ArrayList<Integer>>();
+    for (int n = 0; n < this.numbers.size(); n++) {
+      boxesOf.add(new ArrayList<Integer>());
+    }
+    for (int b = 0; b < count; b++) {
+      for (int n : this.numbersOf[b]) {
+        boxesOf.get(n).add(b);
+      }
+    }
+    int[] result = new int[count];
+    boolean[] reached = new boolean[count];
+    boolean[] used = new boolean[this.numbers.size()];
+    IntQueue queue = new IntQueue();
+    queue.add(0);
+    reached[0] = true;
+    int step = 0;
+    while (!queue.isEmpty()) {
+      int b = queue.remove();
+      result[step] = b;
+      step++;
+      for (int n : this.numbersOf[b]) {
+        if (!used[n]) {
+          used[n] = true;
+          for (int other : boxesOf.get(n)) {
+            if (!reached[other]) {
+              reached[other] = true;
+              queue.add(other);
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  // gives each number of mines to the box at the given place in the walk, with the
+  // given number of mines placed so far in the given number of ways, and on to the
+  // end of the walk
+  // EFFECT: Adds every finished placement to the counts
+  void place(int step, int placed, double ways) {
+    if (step == this.order.length) {
+      this.ways[placed] += ways;
+      for (int b = 0; b < this.boxMines.length; b++) {
+        this.boxWays[placed][b] += ways * this.boxMines[b];
+      }
+      return;
+    }
+    int b = this.order[step];
+    int size = this.boxes.get(b).size();
+    double choose = 1;
+    for (int mines = 0; mines <= size; mines++) {
+      if (this.fits(b, mines)) {
+        this.boxMines[b] = mines;
+        for (int n : this.numbersOf[b]) {
+          this.open[n] -= size;
+          this.need[n] -= mines;
+        }
+        this.place(step + 1, placed + mines, ways * choose);
+        for (int n : this.numbersOf[b]) {
+          this.open[n] += size;
+          this.need[n] += mines;
+        }
+        this.boxMines[b] = 0;
+      }
+      choose = choose * (size - mines) / (mines + 1);
+    }
+  }
+
+  // can the box with the given number be given the given number of mines without
+  // going over, or leaving too few squares for, any of its numbers?
+  boolean fits(int b, int mines) {
+    int size = this.boxes.get(b).size();
+    for (int n : this.numbersOf[b]) {
+      if (this.need[n] < mines || this.need[n] - mines > this.open[n] - size) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
+
+class ExamplesProbabilityEngine {
+
+  // makes a game on a single row of four squares with a mine at the left end, where
+  // the second square is revealed and the game has the given number of mines
+  // 0 | ? 1 ? ?
+  ProbabilityEngine row(int numMines) {
+    Board board = new Board(4, 1);
+    board.placeMine(0);
+    if (numMines > 1) {
+      board.placeMine(3);
+    }
+    Minefield field = new Minefield(board, numMines);
+    ProbabilityEngine engine = new ProbabilityEngine(field, new Solver(board));
+    field.reveal(0, 1);
+    return engine;
+  }
+
+  // tests probabilities
+  void testProbabilities(Tester t) {
+    // one mine: it has to be next to the 1, on either side
+    double[] one = this.row(1).probabilities();
+    t.checkInexact(one[0], 0.5, 0.0001);
+    t.checkInexact(one[1], 0.0, 0.0001);
+    t.checkInexact(one[2], 0.5, 0.0001);
+    t.checkInexact(one[3], 0.0, 0.0001);
+    // two mines: the second one has to be on the far square
+    double[] two = this.row(2).probabilities();
+    t.checkInexact(two[0], 0.5, 0.0001);
+    t.checkInexact(two[3], 1.0, 0.0001);
+
+    // 50/50 under a pair of 1s, which a flag doesn't settle
+    // 0 | ? ?
+    // 1 | 1 1
+    // 2 | 0 0
+    Board board = new Board(2, 3);
+    board.placeMine(0);
+    Minefield field = new Minefield(board, 1);
+    ProbabilityEngine engine = new ProbabilityEngine(field, new Solver(board));
+    field.reveal(2, 0);
+    double[] chances = engine.probabilities();
+    t.checkInexact(chances[0], 0.5, 0.0001);
+    t.checkInexact(chances[1], 0.5, 0.0001);
+    t.checkInexact(chances[2], 0.0, 0.0001);
+    field.flag(0, 1);
+    chances = engine.probabilities();
+    t.checkInexact(chances[0], 0.5, 0.0001);
+    t.checkInexact(chances[1], 0.5, 0.0001);
+
+    // the chances match counting every layout by hand: on a 3x3 field with two mines
+    // and the corner revealed as a 1, the three squares next to it share one mine,
+    // and the other five squares share the other
+    Board corner = new Board(3, 3);
+    corner.placeMine(1);
+    corner.placeMine(8);
+    Minefield cornerField = new Minefield(corner, 2);
+    ProbabilityEngine cornerEngine = new ProbabilityEngine(cornerField, new Solver(corner));
+    cornerField.reveal(0, 0);
+    double[] cornerChances = cornerEngine.probabilities();
+    t.checkInexact(cornerChances[1], 1.0 / 3, 0.0001);
+    t.checkInexact(cornerChances[4], 1.0 / 3, 0.0001);
+    t.checkInexact(cornerChances[8], 1.0 / 5, 0.0001);
+    // a wrong flag on the far square is just another hidden square
+    ProbabilityEngine wrong = this.row(1);
+    wrong.field.flagCell(3);
+    double[] wrongChances = wrong.probabilities();
+    t.checkInexact(wrongChances[0], 0.5, 0.0001);
+    t.checkInexact(wrongChances[3], 0.0, 0.0001);
+    t.checkExpect(wrong.safestCell(), 3);
+    t.checkException(new IllegalStateException("No layout of mines fits the board"),
+        new ProbabilityEngine(new Minefield(new Board(2, 2), 0), new Solver(new Board(2, 2))),
+        "combine", new ArrayList<ComponentTask>(), 1, 0, new double[4]);
+  }
+
+  // tests that components are kept between calls until they change
+  void testCache(Tester t) {
+    // two 50/50s at opposite ends, split by revealed squares
+    // 0 | ? ?
+    // 1 | 1 1
+    // 2 | 0 0
+    // 3 | 1 1
+    // 4 | ? ?
+    Board board = new Board(2, 5);
+    board.placeMine(board.index(0, 0));
+    board.placeMine(board.index(4, 1));
+    Minefield field = new Minefield(board, 2);
+    ProbabilityEngine engine = new ProbabilityEngine(field, new Solver(board));
+    field.reveal(2, 0);
+    double[] chances = engine.probabilities();
+    t.checkExpect(engine.cache.size(), 2);
+    t.checkExpect(engine.hits, 0);
+    t.checkInexact(chances[board.index(4, 0)], 0.5, 0.0001);
+    engine.probabilities();
+    t.checkExpect(engine.hits, 2);
+    // flags aren't trusted, so flagging a square changes no component
+    field.flag(0, 0);
+    engine.probabilities();
+    t.checkExpect(engine.hits, 4);
+    // revealing a square settles the component it is in, and the other one is kept
+    field.reveal(0, 1);
+    chances = engine.probabilities();
+    t.checkExpect(engine.hits, 5);
+    t.checkExpect(engine.cache.size(), 1);
+    t.checkInexact(chances[board.index(0, 0)], 1.0, 0.0001);
+    t.checkInexact(chances[board.index(4, 0)], 0.5, 0.0001);
+  }
+
+  // tests split, find and union
+  void testSplit(Tester t) {
+    Board board = new Board(6, 1);
+    board.placeMine(0);
+    board.placeMine(5);
+    Minefield field = new Minefield(board, 2);
+    Solver solver = new Solver(board);
+    ProbabilityEngine engine = new ProbabilityEngine(field, solver);
+    board.cells[1] |= Board.REVEALED;
+    board.cells[2] |= Board.REVEALED;
+    board.cells[3] |= Board.REVEALED;
+    board.cells[4] |= Board.REVEALED;
+    int[] varOf = new int[] { 0, -1, -1, -1, -1, 1 };
+    ArrayList<ComponentTask> tasks = engine.split(
+        new ArrayList<Integer>(Arrays.asList(0, 5)), varOf);
+    t.checkExpect(tasks.size(), 2);
+    t.checkExpect(tasks.get(0).cells, new ArrayList<Integer>(Arrays.asList(0)));
+    t.checkExpect(tasks.get(0).numbers, new ArrayList<Integer>(Arrays.asList(1)));
+    t.checkExpect(tasks.get(0).key, new ComponentKey(new int[] { 0, -1, 1, 1 }));
+    int[] parent = new int[] { 0, 1, 2, 3 };
+    engine.union(parent, 0, 1);
+    engine.union(parent, 2, 1);
+    t.checkExpect(engine.find(parent, 2), engine.find(parent, 0));
+    t.checkExpect(engine.find(parent, 3), 3);
+  }
+
+  // tests convolve, restWeights and logChoose
+  void testWeights(Tester t) {
+    ProbabilityEngine engine = this.row(1);
+    t.checkExpect(engine.convolve(new double[] { 1, 2 }, new double[] { 1, 1, 3 }),
+        new double[] { 1, 3, 5, 6 });
+    t.checkInexact(engine.logChoose(5, 2), Math.log(10), 0.0001);
+    t.checkInexact(engine.logChoose(5, 0), 0.0, 0.0001);
+    double[] weights = engine.restWeights(3, 5, 5);
+    t.checkInexact(weights[1], 1.0, 0.0001);
+    t.checkInexact(weights[0], 1.0, 0.0001);
+    t.checkInexact(weights[2], 0.5, 0.0001);
+    t.checkInexact(weights[3], 0.1, 0.0001);
+    t.checkInexact(weights[4], 0.0, 0.0001);
+  }
+
+  // tests compute, makeBoxes, walkOrder, place and fits on ComponentTask
+  void testComponentTask(Tester t) {
+    // three squares in a line under a 1 and a 2: ? ? ? over 1 2 means the first two
+    // share one mine and the last two share two
+    ComponentTask task = new ComponentTask();
+    task.cells.addAll(Arrays.asList(10, 11, 12));
+    task.addNumber(20, 1, new int[] { 10, 11 });
+    task.addNumber(21, 2, new int[] { 10, 11, 12 });
+    task.prepare();
+    ComponentResult result = task.compute();
+    t.checkExpect(result.ways, new double[] { 0, 0, 1, 0 });
+    t.checkExpect(result.mines[2], new double[] { 0.5, 0.5, 1 });
+    // the first two squares touch the same numbers, so they are one box
+    t.checkExpect(task.boxes.size(), 2);
+    t.checkExpect(task.order, new int[] { 0, 1 });
+    t.checkExpect(task.fits(0, 1), true);
+    t.checkExpect(task.fits(0, 2), false);
+    t.checkExpect(task.fits(1, 1), true);
+  }
+
+  // tests safestCell, playing a late expert game as far as the solver goes and
+  // then asking for the best guess
+  void testSafestCell(Tester t) {
+    ProbabilityEngine engine = this.row(2);
+    t.checkOneOf(engine.safestCell(), 0, 2);
+    Minefield field = new Minefield(30, 16, 99, new Random(11));
+    Solver solver = new Solver(field.board);
+    ProbabilityEngine expert = new ProbabilityEngine(field, solver);
+    field.revealCell(OpeningIndex.largestStart(field.board));
+    solver.autoPlay(field);
+    int guess = expert.safestCell();
+    double[] chances = expert.probabilities();
+    for (int i = 0; i < chances.length; i++) {
+      if (!field.board.isRevealed(i) && !solver.isKnownMine(i) && chances[i] < chances[guess]) {
+        t.checkExpect(i, guess);
+      }
+    }
+    t.checkExpect(solver.isKnownMine(guess), false);
+  }
+}
@@ -0,0 +1,345 @@
+import tester.*;
+import javalib.worldimages.*;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+// representing a drawing of a window of a Board as one image made of pixels, which is
+// kept from frame to frame
+// the squares are painted straight into the pixels of the image, so a frame is a single
+// image for javalib to draw, however many squares the window has, and a square that
+// changes only repaints its own pixels
+// the squares are painted at the size the window is zoomed to, so the image never has
+// more pixels than the window does and never has to be scaled
+class RasterRenderer extends AWindowRenderer {
+  ComputedPixelImage raster;
+  SpritePixels sprites;
+
+  // basic constructor for a RasterRenderer that draws the whole of the given Board at
+  // the normal size and follows the changes to it
+  RasterRenderer(Board board) {
+    this(board, 0, 0, board.height, board.width, Cell.CELL_SIZE);
+  }
+
+  // constructor for a RasterRenderer that draws the given window of the given Board
+  // with squares of the given size, and follows the changes to it
+  RasterRenderer(Board board, int firstRow, int firstCol, int numRows, int numCols,
+      int cellSize) {
+    super(board, firstRow, firstCol, numRows, numCols, cellSize);
+  }
+
+  // sets the window to the given rows and columns of the Board, making a new image if
+  // its size changed
+  // EFFECT: Changes the window, and may replace the image and the sprites
+  void resize(int firstRow, int firstCol, int numRows, int numCols) {
+    if (this.raster == null || numRows != this.numRows || numCols != this.numCols) {
+      this.raster = new ComputedPixelImage(Math.max(numCols, 1) * this.cellSize,
+          Math.max(numRows, 1) * this.cellSize);
+      this.sprites = SpritePixels.forSize(this.cellSize);
+    }
+    super.resize(firstRow, firstCol, numRows, numCols);
+  }
+
+  // returns the image of the window, first repainting any squares that changed since
+  // the last time it was drawn
+  // EFFECT: Repaints the pixels of the changed squares
+  WorldImage draw() {
+    while (!this.dirtyCells.isEmpty()) {
+      this.paintSquare(this.dirtyCells.remove());
+    }
+    return this.raster;
+  }
+
+  // paints every square of the window
+  // EFFECT: Repaints every pixel of the image, and forgets the dirty squares
+  void rebuild() {
+    this.dirtyCells = new IntQueue();
+    for (int row = 0; row < this.numRows; row++) {
+      for (int col = 0; col < this.numCols; col++) {
+        this.paintSquare(this.board.index(this.firstRow + row, this.firstCol + col));
+      }
+    }
+  }
+
+  // paints the square at the given index of the Board into its place in the window
+  // the higher columns are drawn on the left, as they always have been
+  // EFFECT: Sets the pixels of the square
+  void paintSquare(int idx) {
+    int size = this.cellSize;
+    Color[] pixels = this.sprites.forState(this.board.cells[idx]);
+    int left = (this.numCols - 1 - (idx % this.board.width - this.firstCol)) * size;
+    int top = (idx / this.board.width - this.firstRow) * size;
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        this.raster.setPixel(left + x, top + y, pixels[y * size + x]);
+      }
+    }
+  }
+}
+
+// representing the pixels of every way a square of the field can look at one size,
+// painted once with the same colors and shapes as the Sprites
+// the pixels of each look are kept row by row, and every pixel of the same color is
+// the very same Color, so painting a square never allocates
+// the pixels for each size are painted the first time that size is asked for, and kept
+class SpritePixels {
+  // the Colors shared by every sprite, by their packed RGB values
+  static final HashMap<Integer, Color> COLORS = new HashMap<Integer, Color>();
+  // the sprites painted so far, by their size
+  static final HashMap<Integer, SpritePixels> BY_SIZE = new HashMap<Integer, SpritePixels>();
+
+  int size;
+  // the pixels of a hidden square, a flagged square and a revealed mine
+  Color[] hidden;
+  Color[] flagged;
+  Color[] revealedMine;
+  // the pixels of revealed squares without a mine, by the number of mines next to them
+  Color[][] numbers;
+  // the pixels of every square, by its packed Board state
+  Color[][] byState;
+
+  // basic constructor for the sprites of squares of the given size, painting every
+  // one of them
+  SpritePixels(int size) {
+    this.size = size;
+    this.hidden = this.paint(Color.GRAY, null, null, null);
+    this.flagged = this.paint(Color.GRAY, Color.GREEN, null, null);
+    this.revealedMine = this.paint(Color.DARK_GRAY, Color.RED, null, null);
+    this.numbers = this.makeNumbers();
+    this.byState = this.makeStates();
+  }
+
+  // returns the sprites of squares of the given size, painting them if they haven't
+  // been yet
+  // EFFECT: May add the sprites to the ones kept
+  static SpritePixels forSize(int size) {
+    SpritePixels sprites = BY_SIZE.get(size);
+    if (sprites == null) {
+      sprites = new SpritePixels(size);
+      BY_SIZE.put(size, sprites);
+    }
+    return sprites;
+  }
+
+  // paints the pixels of the numbers 0 to 8
+  Color[][] makeNumbers() {
+    Color[][] numbers = new Color[Sprites.COLORS.length + 1][];
+    numbers[0] = this.paint(Color.DARK_GRAY, null, null, null);
+    for (int i = 1; i < numbers.length; i++) {
+      numbers[i] = this.paint(Color.DARK_GRAY, null, Integer.toString(i),
+          Sprites.COLORS[i - 1]);
+    }
+    return numbers;
+  }
+
+  // picks the pixels of every packed Board state, the same way Sprites.makeStates
+  // picks images
+  Color[][] makeStates() {
+    Color[][] states = new Color[Board.REVEALED << 1][];
+    for (int s = 0; s < states.length; s++) {
+      int mines = s & Board.ADJACENT;
+      if ((s & Board.FLAG) != 0) {
+        states[s] = this.flagged;
+      }
+      else if ((s & Board.REVEALED) != 0 && (s & Board.MINE) != 0) {
+        states[s] = this.revealedMine;
+      }
+      else if ((s & Board.REVEALED) != 0 && mines < this.numbers.length) {
+        states[s] = this.numbers[mines];
+      }
+      else {
+        states[s] = this.hidden;
+      }
+    }
+    return states;
+  }
+
+  // paints a square filled with the given color and framed in black, with a circle
+  // of the given color and a number in the given color in the middle if they aren't
+  // null, and returns its pixels
+  // the circle and the number grow and shrink with the square, from how they look at
+  // the normal size
+  Color[] paint(Color fill, Color circle, String number, Color numberColor) {
+    int size = this.size;
+    BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g.setColor(fill);
+    g.fillRect(0, 0, size, size);
+    g.setColor(Color.BLACK);
+    g.setStroke(new BasicStroke(1));
+    g.drawRect(0, 0, size - 1, size - 1);
+    if (circle != null) {
+      g.setColor(circle);
+      g.fillOval(size / 4, size / 4, size / 2, size / 2);
+    }
+    if (number != null) {
+      g.setColor(numberColor);
+      g.setFont(g.getFont().deriveFont(g.getFont().getSize2D() * size / Cell.CELL_SIZE));
+      int width = g.getFontMetrics().stringWidth(number);
+      g.drawString(number, (size - width) / 2,
+          (size + g.getFontMetrics().getAscent()) / 2 - size / Cell.CELL_SIZE);
+    }
+    g.dispose();
+    return SpritePixels.pixels(image);
+  }
+
+  // returns the pixels of the given image row by row, sharing one Color for each
+  // color across every sprite
+  static Color[] pixels(BufferedImage image) {
+    Color[] pixels = new Color[image.getWidth() * image.getHeight()];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        pixels[y * image.getWidth() + x] = SpritePixels.color(image.getRGB(x, y));
+      }
+    }
+    return pixels;
+  }
+
+  // returns the shared Color for the given packed RGB value
+  // EFFECT: May add the Color to the shared ones
+  static Color color(int rgb) {
+    Color c = COLORS.get(rgb);
+    if (c == null) {
+      c = new Color(rgb);
+      COLORS.put(rgb, c);
+    }
+    return c;
+  }
+
+  // returns the pixels of a square with the given packed Board state
+  Color[] forState(byte state) {
+    return this.byState[state];
+  }
+}
+
+class ExamplesRasterRenderer {
+  Board board;
+  RasterRenderer renderer;
+  SpritePixels normal;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 3x3 board with a single mine in the bottom right corner
+    board = new Board(3, 3);
+    board.placeMine(8);
+    renderer = new RasterRenderer(board);
+    normal = SpritePixels.forSize(Cell.CELL_SIZE);
+  }
+
+  // returns whether the square drawn at the given row and column of the window has
+  // the given pixels
+  boolean shows(RasterRenderer r, int row, int col, Color[] pixels) {
+    int size = r.cellSize;
+    int left = (r.numCols - 1 - col) * size;
+    int top = row * size;
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        if (r.raster.getPixel(left + x, top + y).getRGB() != pixels[y * size + x].getRGB()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  // tests the constructor, resize and rebuild
+  void testConstructor(Tester t) {
+    reset();
+    t.checkExpect(board.listeners.contains(renderer), true);
+    t.checkExpect(renderer.cellSize, Cell.CELL_SIZE);
+    t.checkExpect(renderer.sprites == normal, true);
+    t.checkExpect(renderer.raster.getPixel(0, 0), Color.BLACK);
+    t.checkExpect(renderer.raster.getPixel(59, 59), Color.BLACK);
+    t.checkExpect(this.shows(renderer, 2, 2, normal.hidden), true);
+    t.checkExpect(this.shows(renderer, 2, 2, normal.flagged), false);
+    ComputedPixelImage raster = renderer.raster;
+    renderer.moveTo(1, 1, 2, 2);
+    t.checkExpect(renderer.raster == raster, false);
+    t.checkExpect(renderer.firstRow, 1);
+    raster = renderer.raster;
+    renderer.moveTo(0, 1, 2, 2);
+    t.checkExpect(renderer.raster == raster, true);
+    t.checkExpect(new RasterRenderer(new Board(0, 0)).draw() instanceof ComputedPixelImage,
+        true);
+    // a zoomed window is painted at its own size
+    RasterRenderer small = new RasterRenderer(board, 0, 0, 3, 3, 5);
+    t.checkExpect(small.sprites == SpritePixels.forSize(5), true);
+    t.checkExpect(small.raster.getPixel(14, 14), Color.BLACK);
+    t.checkExpect(this.shows(small, 1, 1, small.sprites.hidden), true);
+    RasterRenderer large = new RasterRenderer(board, 1, 1, 2, 2, 40);
+    t.checkExpect(large.raster.getPixel(79, 79), Color.BLACK);
+    t.checkExpect(this.shows(large, 1, 1, large.sprites.hidden), true);
+  }
+
+  // tests draw and paintSquare
+  void testDraw(Tester t) {
+    reset();
+    board.setFlagged(0, true);
+    board.reveal(4);
+    t.checkExpect(renderer.dirtyCells.size, 2);
+    t.checkExpect(renderer.draw() == renderer.raster, true);
+    t.checkExpect(renderer.dirtyCells.isEmpty(), true);
+    t.checkExpect(this.shows(renderer, 0, 0, normal.flagged), true);
+    t.checkExpect(this.shows(renderer, 1, 1, normal.numbers[1]), true);
+    t.checkExpect(this.shows(renderer, 1, 0, normal.hidden), true);
+    // squares outside the window aren't painted
+    renderer.moveTo(0, 0, 2, 2);
+    board.reveal(8);
+    t.checkExpect(renderer.dirtyCells.isEmpty(), true);
+    board.reveal(3);
+    renderer.draw();
+    t.checkExpect(this.shows(renderer, 1, 0, normal.numbers[0]), true);
+    // a zoomed window repaints its squares at its own size
+    RasterRenderer large = new RasterRenderer(board, 0, 0, 3, 3, 40);
+    board.reveal(5);
+    large.draw();
+    t.checkExpect(this.shows(large, 1, 2, large.sprites.numbers[1]), true);
+    t.checkExpect(this.shows(large, 0, 0, large.sprites.flagged), true);
+  }
+
+  // tests the constructor, forSize, paint, pixels, color, makeNumbers, makeStates and
+  // forState on SpritePixels
+  void testSpritePixels(Tester t) {
+    reset();
+    t.checkExpect(normal.hidden.length, Cell.CELL_SIZE * Cell.CELL_SIZE);
+    t.checkExpect(normal.hidden[21], SpritePixels.color(Color.GRAY.getRGB()));
+    t.checkExpect(normal.hidden[21] == normal.numbers[0][0], false);
+    t.checkExpect(normal.hidden[0] == normal.numbers[0][0], true);
+    t.checkExpect(normal.flagged[10 * Cell.CELL_SIZE + 10], Color.GREEN);
+    t.checkExpect(normal.revealedMine[10 * Cell.CELL_SIZE + 10], Color.RED);
+    t.checkExpect(normal.numbers.length, 9);
+    t.checkExpect(normal.forState((byte) 0) == normal.hidden, true);
+    t.checkExpect(normal.forState((byte) (Board.FLAG | Board.REVEALED)), normal.flagged);
+    t.checkExpect(normal.forState((byte) (Board.REVEALED | 3)) == normal.numbers[3], true);
+    t.checkExpect(normal.forState((byte) (Board.REVEALED | 12)) == normal.hidden, true);
+    // a number is painted in its color on a revealed square
+    boolean blue = false;
+    for (Color c : normal.numbers[1]) {
+      blue = blue || c.getBlue() > c.getRed() + 40;
+    }
+    t.checkExpect(blue, true);
+    t.checkExpect(SpritePixels.color(0x123456) == SpritePixels.color(0x123456), true);
+    // every size is painted once, with the circle in the middle and the same Colors
+    SpritePixels large = SpritePixels.forSize(40);
+    t.checkExpect(SpritePixels.forSize(40) == large, true);
+    t.checkExpect(large.size, 40);
+    t.checkExpect(large.hidden.length, 1600);
+    t.checkExpect(large.flagged[20 * 40 + 20], Color.GREEN);
+    t.checkExpect(large.flagged[5 * 40 + 5] == normal.hidden[21], true);
+    t.checkExpect(large.revealedMine[20 * 40 + 20] == normal.revealedMine[210], true);
+    boolean red = false;
+    for (Color c : large.numbers[3]) {
+      red = red || c.getRed() > c.getBlue() + 40;
+    }
+    t.checkExpect(red, true);
+    SpritePixels tiny = SpritePixels.forSize(5);
+    t.checkExpect(tiny.hidden.length, 25);
+    t.checkExpect(tiny.hidden[6] == normal.hidden[21], true);
+  }
+}
@@ -0,0 +1,461 @@
+import tester.*;
+import javalib.worldimages.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+// representing the record of a game of MineSweeper laid out from a seed, as a compact
+// stream of bytes that is only ever added to
+// the stream starts with a header holding the size of the field, the number of mines,
+// the seed and whether the field was made to be won without guessing, followed by one
+// record for each click on the field
+// each record is two varints: how many ticks passed since the click before it, and the
+// index of the square clicked shifted up by one with the button in the low bit
+// so most clicks take three or four bytes
+class ReplayLog {
+  // marks the start of a replay, and spells MSRP
+  static final int MAGIC = 0x4D535250;
+  static final int VERSION = 1;
+  // how many bytes the header takes up
+  static final int HEADER = 22;
+  // the buttons a square can be clicked with
+  static final int LEFT = 0;
+  static final int RIGHT = 1;
+
+  int width;
+  int height;
+  int mines;
+  int seed;
+  boolean noGuess;
+  byte[] data;
+  int length;
+  int actions;
+  int lastTick;
+
+  // basic constructor for the record of a new game laid out from the given seed, with
+  // no clicks yet
+  ReplayLog(int width, int height, int mines, int seed, boolean noGuess) {
+    this.width = width;
+    this.height = height;
+    this.mines = mines;
+    this.seed = seed;
+    this.noGuess = noGuess;
+    this.data = new byte[64];
+    this.length = 0;
+    this.actions = 0;
+    this.lastTick = 0;
+    this.writeInt(MAGIC);
+    this.writeByte(VERSION);
+    this.writeInt(width);
+    this.writeInt(height);
+    this.writeInt(mines);
+    this.writeInt(seed);
+    this.writeByte(noGuess ? 1 : 0);
+  }
+
+  // returns the record held in the given bytes, checking that its field could be made
+  // by a Minefield, that every click in it is on the field and that its ticks never go
+  // backwards
+  static ReplayLog fromBytes(byte[] bytes) {
+    if (bytes.length < HEADER || ReplayLog.readInt(bytes, 0) != MAGIC || bytes[4] != VERSION
+        || !ReplayLog.fits(ReplayLog.readInt(bytes, 5), ReplayLog.readInt(bytes, 9),
+            ReplayLog.readInt(bytes, 13))) {
+      throw new IllegalArgumentException("Not a MineSweeper replay");
+    }
+    ReplayLog log = new ReplayLog(ReplayLog.readInt(bytes, 5), ReplayLog.readInt(bytes, 9),
+        ReplayLog.readInt(bytes, 13), ReplayLog.readInt(bytes, 17), bytes[21] != 0);
+    log.data = bytes.clone();
+    log.length = bytes.length;
+    Replay scan = new Replay(log);
+    while (scan.pos < log.length) {
+      int tick = scan.tick + scan.next();
+      int code = scan.next();
+      if (tick < scan.tick || (code >>> 1) >= (long) log.width * log.height) {
+        throw new IllegalArgumentException("Not a MineSweeper replay");
+      }
+      scan.tick = tick;
+      log.actions++;
+    }
+    if (scan.pos > log.length) {
+      throw new IllegalArgumentException("Not a MineSweeper replay");
+    }
+    log.lastTick = scan.tick;
+    return log;
+  }
+
+  // is a field of the given size with the given number of mines one that a Minefield
+  // can be made with?
+  static boolean fits(int width, int height, int mines) {
+    return width >= 2 && height >= 2 && (long) width * height <= Integer.MAX_VALUE - 8
+        && mines >= 0 && mines < width * height;
+  }
+
+  // returns the big-endian int in the given bytes at the given place
+  static int readInt(byte[] bytes, int at) {
+    return (bytes[at] & 0xFF) << 24 | (bytes[at + 1] & 0xFF) << 16 | (bytes[at + 2] & 0xFF) << 8
+        | (bytes[at + 3] & 0xFF);
+  }
+
+  // adds a click with the given button on the square at the given index, made at the
+  // given tick, to the end of this record
+  // EFFECT: Appends the click's bytes and counts it
+  void record(int tick, int idx, int button) {
+    if (tick < this.lastTick) {
+      throw new IllegalArgumentException("Ticks can't go backwards");
+    }
+    this.writeVarint(tick - this.lastTick);
+    this.writeVarint(idx << 1 | button);
+    this.lastTick = tick;
+    this.actions++;
+  }
+
+  // returns a copy of the bytes of this record
+  byte[] toBytes() {
+    return Arrays.copyOf(this.data, this.length);
+  }
+
+  // returns the game this record starts from, before any clicks
+  Minefield newGame() {
+    return MineSweeper.makeField(this.width, this.height, this.mines, this.seed, this.noGuess);
+  }
+
+  // adds the given byte to the end of this record
+  // EFFECT: Stores the byte, growing the buffer if it is full
+  void writeByte(int b) {
+    if (this.length == this.data.length) {
+      this.data = Arrays.copyOf(this.data, this.data.length * 2);
+    }
+    this.data[this.length] = (byte) b;
+    this.length++;
+  }
+
+  // adds the given int to the end of this record, high byte first
+  // EFFECT: Stores the four bytes of the int
+  void writeInt(int i) {
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      this.writeByte(i >>> shift);
+    }
+  }
+
+  // adds the given int to the end of this record seven bits at a time, low bits first,
+  // with the top bit of each byte set when more bytes follow
+  // EFFECT: Stores between one and five bytes
+  void writeVarint(int i) {
+    while ((i & ~0x7F) != 0) {
+      this.writeByte((i & 0x7F) | 0x80);
+      i >>>= 7;
+    }
+    this.writeByte(i);
+  }
+}
+
+// representing the state of a game at some point in a replay, to start again from
+class Checkpoint {
+  int done;
+  int pos;
+  int tick;
+  byte[] cells;
+  int numMines;
+  int cellsClicked;
+  GameStatus status;
+
+  // basic constructor for the state of the given replay as it is now
+  Checkpoint(Replay replay) {
+    this.done = replay.done;
+    this.pos = replay.pos;
+    this.tick = replay.tick;
+    this.cells = replay.field.board.cells.clone();
+    this.numMines = replay.field.numMines;
+    this.cellsClicked = replay.field.cellsClicked;
+    this.status = replay.field.status;
+  }
+}
+
+// representing a game being played back from a ReplayLog, with no drawing
+// a copy of the game is kept at the start and after every interval clicks the first
+// time they are played, so seeking to a tick starts from the last copy before it
+// instead of from the start
+// copies are put back straight into the Board, without telling its listeners
+class Replay {
+  ReplayLog log;
+  Minefield field;
+  int pos;
+  int done;
+  int tick;
+  int interval;
+  ArrayList<Checkpoint> checkpoints;
+
+  // basic constructor for playing back the given record, keeping a copy of the game
+  // after every interval clicks, or only at the start if the interval is 0
+  Replay(ReplayLog log, int interval) {
+    this.log = log;
+    this.field = log.newGame();
+    this.pos = ReplayLog.HEADER;
+    this.done = 0;
+    this.tick = 0;
+    this.interval = interval;
+    this.checkpoints = new ArrayList<Checkpoint>();
+    this.checkpoints.add(new Checkpoint(this));
+  }
+
+  // constructor for reading through the given record without making its game
+  Replay(ReplayLog log) {
+    this.log = log;
+    this.pos = ReplayLog.HEADER;
+    this.done = 0;
+    this.tick = 0;
+  }
+
+  // returns the varint at the current place in the record
+  // a varint cut off by the end of the record, or longer than the five bytes an int
+  // takes, leaves the place one past the end, so it can be told apart from one that
+  // ends with the record
+  // EFFECT: Moves past the varint
+  int next() {
+    int i = 0;
+    for (int shift = 0; shift < 35 && this.pos < this.log.length; shift += 7) {
+      byte b = this.log.data[this.pos];
+      this.pos++;
+      i |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return i;
+      }
+    }
+    this.pos = this.log.length + 1;
+    return i;
+  }
+
+  // plays the next click in the record, and returns whether there was one
+  // EFFECT: Changes the game, and may keep a copy of it
+  boolean step() {
+    if (this.pos >= this.log.length) {
+      return false;
+    }
+    this.tick += this.next();
+    int code = this.next();
+    if ((code & 1) == ReplayLog.LEFT) {
+      this.field.revealCell(code >>> 1);
+    }
+    else {
+      this.field.flagCell(code >>> 1);
+    }
+    this.done++;
+    if (this.interval > 0 && this.done % this.interval == 0
+        && this.checkpoints.size() == this.done / this.interval) {
+      this.checkpoints.add(new Checkpoint(this));
+    }
+    return true;
+  }
+
+  // plays every click left in the record, and returns the game at the end
+  // EFFECT: Changes the game
+  Minefield playAll() {
+    while (this.step()) {
+      // each step plays one click
+    }
+    return this.field;
+  }
+
+  // returns the tick of the next click in the record, without playing it, or the
+  // largest int if there are none left
+  int nextTick() {
+    if (this.pos >= this.log.length) {
+      return Integer.MAX_VALUE;
+    }
+    int at = this.pos;
+    int next = this.tick + this.next();
+    this.pos = at;
+    return next;
+  }
+
+  // plays the game to how it was once every click up to and including the given tick
+  // had been made, going back to a copy if that is quicker or the game is past it
+  // EFFECT: Changes the game
+  void seek(int target) {
+    Checkpoint best = this.checkpoints.get(0);
+    for (Checkpoint c : this.checkpoints) {
+      if (c.tick <= target && c.done > best.done) {
+        best = c;
+      }
+    }
+    if (this.tick > target || best.done > this.done) {
+      this.restore(best);
+    }
+    while (this.nextTick() <= target) {
+      this.step();
+    }
+  }
+
+  // puts the game back to how it was at the given copy
+  // EFFECT: Changes the game's squares and counters, and the place in the record
+  void restore(Checkpoint c) {
+    System.arraycopy(c.cells, 0, this.field.board.cells, 0, c.cells.length);
+    this.field.numMines = c.numMines;
+    this.field.cellsClicked = c.cellsClicked;
+    this.field.status = c.status;
+    this.done = c.done;
+    this.pos = c.pos;
+    this.tick = c.tick;
+  }
+}
+
+class ExamplesReplayLog {
+  MineSweeper game1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 30x16 field with 99 mines, played for a while by clicking every square that the
+    // Solver knows is safe, flagging every mine it knows of, and guessing otherwise
+    game1 = new MineSweeper(30, 16, 99, 8);
+    Solver solver = new Solver(game1.field.board);
+    int guess = 0;
+    while (game1.field.status() == GameStatus.PLAYING) {
+      game1.onTick();
+      solver.solve();
+      int idx = solver.nextSafe();
+      String button = "LeftButton";
+      for (int i = 0; i < game1.field.board.size(); i++) {
+        if (solver.deduced[i] == Solver.MINE && !game1.field.board.isFlagged(i)) {
+          idx = i;
+          button = "RightButton";
+        }
+      }
+      if (idx < 0) {
+        while (game1.field.board.isRevealed(guess) || game1.field.board.isFlagged(guess)) {
+          guess++;
+        }
+        idx = guess;
+      }
+      game1.onMouseClicked(this.clickOn(game1, idx), button);
+    }
+  }
+
+  // returns where to click to hit the square at the given index of the given game
+  Posn clickOn(MineSweeper game, int idx) {
+    return new Posn(
+        game.worldWidth - idx % game.field.board.width * Cell.CELL_SIZE - Cell.CELL_SIZE / 2,
+        Cell.CELL_SIZE * 2 + idx / game.field.board.width * Cell.CELL_SIZE + Cell.CELL_SIZE / 2);
+  }
+
+  // tests the constructor, record and toBytes
+  void testRecord(Tester t) {
+    ReplayLog log = new ReplayLog(9, 9, 10, -2, true);
+    t.checkExpect(log.length, ReplayLog.HEADER);
+    log.record(3, 4, ReplayLog.RIGHT);
+    log.record(3, 80, ReplayLog.LEFT);
+    log.record(300, 0, ReplayLog.LEFT);
+    t.checkExpect(log.actions, 3);
+    t.checkExpect(log.lastTick, 300);
+    t.checkExpect(Arrays.copyOfRange(log.toBytes(), ReplayLog.HEADER, log.length),
+        new byte[] { 3, 9, 0, (byte) 0xA0, 1, (byte) 0xA9, 2, 0 });
+    t.checkExpect(ReplayLog.readInt(log.toBytes(), 17), -2);
+    t.checkException(new IllegalArgumentException("Ticks can't go backwards"), log, "record", 299,
+        0, ReplayLog.LEFT);
+    // clicks on the field are recorded, and clicks off it or with other buttons aren't
+    MineSweeper game = new MineSweeper(3, 3, 2, 52);
+    game.onTick();
+    game.onMouseClicked(new Posn(45, 45), "LeftButton");
+    game.onMouseClicked(new Posn(45, 45), "Hehe!");
+    game.onMouseClicked(new Posn(45, 5), "RightButton");
+    t.checkExpect(game.log.actions, 1);
+    t.checkExpect(game.log.lastTick, 1);
+    t.checkExpect(new MineSweeper(new Minefield(3, 3, 2, new Random(52))).log, null);
+  }
+
+  // tests fromBytes
+  void testFromBytes(Tester t) {
+    reset();
+    ReplayLog read = ReplayLog.fromBytes(game1.log.toBytes());
+    t.checkExpect(read.width, 30);
+    t.checkExpect(read.height, 16);
+    t.checkExpect(read.mines, 99);
+    t.checkExpect(read.seed, 8);
+    t.checkExpect(read.noGuess, false);
+    t.checkExpect(read.actions, game1.log.actions);
+    t.checkExpect(read.lastTick, game1.log.lastTick);
+    t.checkExpect(read.toBytes(), game1.log.toBytes());
+    t.checkException(new IllegalArgumentException("Not a MineSweeper replay"), new ReplayLog(2, 2,
+        1, 0, false), "fromBytes", new byte[] { 1, 2, 3 });
+    byte[] cut = Arrays.copyOf(game1.log.toBytes(), game1.log.length - 1);
+    cut[cut.length - 1] = (byte) 0x80;
+    t.checkException(new IllegalArgumentException("Not a MineSweeper replay"), new ReplayLog(2, 2,
+        1, 0, false), "fromBytes", cut);
+    ReplayLog off = new ReplayLog(2, 2, 1, 0, false);
+    off.record(0, 4, ReplayLog.LEFT);
+    t.checkException(new IllegalArgumentException("Not a MineSweeper replay"), off, "fromBytes",
+        off.toBytes());
+    // a varint of more than five bytes
+    ReplayLog tooLong = new ReplayLog(2, 2, 1, 0, false);
+    for (int i = 0; i < 5; i++) {
+      tooLong.writeByte(0x80);
+    }
+    tooLong.writeByte(0);
+    tooLong.writeByte(0);
+    t.checkException(new IllegalArgumentException("Not a MineSweeper replay"), tooLong,
+        "fromBytes", tooLong.toBytes());
+    // headers with fields a Minefield can't be made with
+    int[][] headers = new int[][] { { 1, 5, 1 }, { 5, 1, 1 }, { -3, -3, 1 }, { 65536, 65536, 1 },
+        { 3, 3, 9 }, { 3, 3, -1 } };
+    for (int[] header : headers) {
+      t.checkException(new IllegalArgumentException("Not a MineSweeper replay"), tooLong,
+          "fromBytes", new ReplayLog(header[0], header[1], header[2], 0, false).toBytes());
+    }
+  }
+
+  // tests fits
+  void testFits(Tester t) {
+    t.checkExpect(ReplayLog.fits(2, 2, 0), true);
+    t.checkExpect(ReplayLog.fits(2, 2, 3), true);
+    t.checkExpect(ReplayLog.fits(2, 2, 4), false);
+    t.checkExpect(ReplayLog.fits(1, 2, 0), false);
+    t.checkExpect(ReplayLog.fits(2, 1, 0), false);
+    t.checkExpect(ReplayLog.fits(2, 2, -1), false);
+    t.checkExpect(ReplayLog.fits(46340, 46340, 10), true);
+    t.checkExpect(ReplayLog.fits(Integer.MAX_VALUE, 2, 10), false);
+  }
+
+  // tests step, next and playAll on Replay
+  void testPlayAll(Tester t) {
+    reset();
+    t.checkExpect(game1.log.actions > 10, true);
+    Replay replay = new Replay(ReplayLog.fromBytes(game1.log.toBytes()), 0);
+    Minefield played = replay.playAll();
+    t.checkExpect(played.board.cells, game1.field.board.cells);
+    t.checkExpect(played.status(), game1.field.status());
+    t.checkExpect(played.revealedCount(), game1.field.revealedCount());
+    t.checkExpect(played.numMines, game1.field.numMines);
+    t.checkExpect(replay.tick, game1.ticks);
+    t.checkExpect(replay.done, game1.log.actions);
+    t.checkExpect(replay.step(), false);
+    // a no-guess game is played back on the same field
+    MineSweeper noGuess = new MineSweeper(9, 9, 10, 3, true);
+    noGuess.onMouseClicked(this.clickOn(noGuess, 0), "RightButton");
+    t.checkExpect(new Replay(noGuess.log, 0).playAll().board.cells, noGuess.field.board.cells);
+  }
+
+  // tests seek, nextTick and restore on Replay, and Checkpoint
+  void testSeek(Tester t) {
+    reset();
+    Replay replay = new Replay(game1.log, 4);
+    Replay slow = new Replay(game1.log, 0);
+    int last = game1.log.lastTick;
+    for (int target : new int[] { last / 2, last, 0, last / 3, last - 1, 2 * last / 3 }) {
+      replay.seek(target);
+      Replay fresh = new Replay(game1.log, 0);
+      while (fresh.nextTick() <= target) {
+        fresh.step();
+      }
+      t.checkExpect(replay.field.board.cells, fresh.field.board.cells);
+      t.checkExpect(replay.field.status(), fresh.field.status());
+      t.checkExpect(replay.field.revealedCount(), fresh.field.revealedCount());
+      t.checkExpect(replay.done, fresh.done);
+      slow.seek(target);
+      t.checkExpect(slow.field.board.cells, fresh.field.board.cells);
+    }
+    t.checkExpect(replay.checkpoints.size(), game1.log.actions / 4 + 1);
+    t.checkExpect(slow.checkpoints.size(), 1);
+    t.checkExpect(replay.checkpoints.get(1).done, 4);
+  }
+}
@@ -0,0 +1,292 @@
+import tester.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+// representing a game of MineSweeper that many players can make moves on at the same
+// time, without any locks
+// every change to a square is a compare-and-set on its byte of the Board, so only one
+// player can reveal or flag a square: the player whose compare-and-set sets the
+// revealed bit is the one who counts the square and spreads the opening from it, so
+// openings that run into each other never count a square twice
+// the counters are LongAdders, which each thread adds to its own cell of, and each
+// move adds to them once, so players don't fight over them
+// the game is won once the revealed count reaches the number of safe squares, which is
+// checked when the status is asked for instead of by the move that got there, since an
+// adder's sum is only exact once the moves adding to it are done
+// the Board's listeners aren't told about shared moves, since they aren't safe to call
+// from many threads
+class SharedField {
+  static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  Board board;
+  int numInitMines;
+  LongAdder revealed;
+  LongAdder flags;
+  volatile boolean lost;
+
+  // basic constructor for a shared game on a Board whose mines are already placed
+  SharedField(Board board, int numInitMines) {
+    this.board = board;
+    this.numInitMines = numInitMines;
+    this.revealed = new LongAdder();
+    this.flags = new LongAdder();
+    this.lost = false;
+  }
+
+  // returns the byte of the square at the given index, as the last move left it
+  byte cell(int idx) {
+    return (byte) CELLS.getVolatile(this.board.cells, idx);
+  }
+
+  // sets the revealed bit of the square at the given index, and returns whether this
+  // call was the one that set it
+  // flagged and already revealed squares are left alone
+  // EFFECT: Reveals the square
+  boolean claim(int idx) {
+    return SharedField.claim(this.board.cells, idx);
+  }
+
+  // sets the revealed bit of the square at the given index of the given squares, and
+  // returns whether this call was the one that set it
+  // flagged and already revealed squares are left alone
+  // EFFECT: Reveals the square
+  static boolean claim(byte[] cells, int idx) {
+    byte old = (byte) CELLS.getVolatile(cells, idx);
+    while ((old & (Board.REVEALED | Board.FLAG)) == 0) {
+      if (CELLS.compareAndSet(cells, idx, old, (byte) (old | Board.REVEALED))) {
+        return true;
+      }
+      old = (byte) CELLS.getVolatile(cells, idx);
+    }
+    return false;
+  }
+
+  // reveals the square at the given row and column, and returns how many squares
+  // this call revealed
+  // EFFECT: Reveals the square and possibly the squares around it, and updates the
+  // number of squares revealed and the status of the game
+  int reveal(int row, int col) {
+    if (!this.board.onBoard(row, col)) {
+      return 0;
+    }
+    return this.revealCell(this.board.index(row, col));
+  }
+
+  // reveals the square at the given index, and the squares around it if it has no
+  // neighboring mines, returning how many squares this call revealed
+  // squares claimed by another player's opening are left for that player to spread
+  // from, so the two openings meet without counting any square twice
+  // EFFECT: Reveals the square and possibly the squares around it, and updates the
+  // number of squares revealed and the status of the game
+  int revealCell(int idx) {
+    if (this.status() != GameStatus.PLAYING || !this.claim(idx)) {
+      return 0;
+    }
+    if (this.board.isMine(idx)) {
+      this.lost = true;
+      return 1;
+    }
+    int count = 1;
+    if (this.board.adjacentMines(idx) == 0) {
+      IntQueue work = new IntQueue();
+      work.add(idx);
+      while (!work.isEmpty()) {
+        int next = work.remove();
+        int row = next / this.board.width;
+        int col = next % this.board.width;
+        int lastRow = Math.min(row + 1, this.board.height - 1);
+        int firstCol = Math.max(col - 1, 0);
+        int lastCol = Math.min(col + 1, this.board.width - 1);
+        for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+          for (int n = this.board.index(r, firstCol); n <= this.board.index(r, lastCol); n++) {
+            if (this.claim(n)) {
+              count++;
+              if ((this.board.cells[n] & (Board.MINE | Board.ADJACENT)) == 0) {
+                work.add(n);
+              }
+            }
+          }
+        }
+      }
+    }
+    this.revealed.add(count);
+    return count;
+  }
+
+  // flags the square at the given row and column, or takes the flag off if it
+  // already has one, and returns whether the square is flagged afterwards
+  // EFFECT: Changes the flag on the square and the number of flags
+  boolean flag(int row, int col) {
+    if (!this.board.onBoard(row, col)) {
+      return false;
+    }
+    return this.flagCell(this.board.index(row, col));
+  }
+
+  // flags the square at the given index, or takes the flag off if it already has one,
+  // and returns whether the square is flagged afterwards
+  // revealed squares can't be flagged
+  // EFFECT: Changes the flag on the square and the number of flags
+  boolean flagCell(int idx) {
+    byte old = this.cell(idx);
+    while ((old & Board.REVEALED) == 0) {
+      if (CELLS.compareAndSet(this.board.cells, idx, old, (byte) (old ^ Board.FLAG))) {
+        if ((old & Board.FLAG) == 0) {
+          this.flags.increment();
+          return true;
+        }
+        this.flags.decrement();
+        return false;
+      }
+      old = this.cell(idx);
+    }
+    return false;
+  }
+
+  // returns how far along the game is
+  GameStatus status() {
+    if (this.lost) {
+      return GameStatus.LOST;
+    }
+    else if (this.revealed.sum() == this.board.size() - this.numInitMines) {
+      return GameStatus.WON;
+    }
+    return GameStatus.PLAYING;
+  }
+
+  // returns how many squares without a mine have been revealed
+  int revealedCount() {
+    return (int) this.revealed.sum();
+  }
+
+  // returns how many flags are on the field
+  int flagCount() {
+    return (int) this.flags.sum();
+  }
+}
+
+// representing one player revealing a list of squares of a SharedField
+class PlayerTask extends RecursiveTask<Integer> {
+  private static final long serialVersionUID = 1L;
+
+  SharedField field;
+  int[] moves;
+
+  // basic constructor for a player making the given moves on the given field
+  PlayerTask(SharedField field, int[] moves) {
+    this.field = field;
+    this.moves = moves;
+  }
+
+  // reveals each square in turn, and returns how many squares this player revealed
+  protected Integer compute() {
+    int count = 0;
+    for (int idx : this.moves) {
+      count += this.field.revealCell(idx);
+    }
+    return count;
+  }
+}
+
+class ExamplesSharedField {
+  SharedField field1;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 5x5 field split in two by a wall of mines down the middle column
+    Board walled = new Board(5, 5);
+    for (int i = 0; i < 5; i++) {
+      walled.placeMine(walled.index(i, 2));
+    }
+    field1 = new SharedField(walled, 5);
+  }
+
+  // tests claim and cell
+  void testClaim(Tester t) {
+    reset();
+    t.checkExpect(field1.claim(0), true);
+    t.checkExpect(field1.claim(0), false);
+    t.checkExpect((field1.cell(0) & Board.REVEALED) != 0, true);
+    field1.flagCell(1);
+    t.checkExpect(field1.claim(1), false);
+  }
+
+  // tests reveal and revealCell
+  void testReveal(Tester t) {
+    reset();
+    t.checkExpect(field1.reveal(0, 0), 10);
+    t.checkExpect(field1.revealedCount(), 10);
+    t.checkExpect(field1.reveal(4, 1), 0);
+    t.checkExpect(field1.reveal(-1, 0), 0);
+    t.checkExpect(field1.status(), GameStatus.PLAYING);
+    t.checkExpect(field1.revealCell(field1.board.index(4, 4)), 10);
+    t.checkExpect(field1.status(), GameStatus.WON);
+    t.checkExpect(field1.reveal(0, 2), 0);
+    reset();
+    t.checkExpect(field1.reveal(2, 2), 1);
+    t.checkExpect(field1.status(), GameStatus.LOST);
+    t.checkExpect(field1.revealedCount(), 0);
+    t.checkExpect(field1.reveal(0, 0), 0);
+  }
+
+  // tests flag and flagCell
+  void testFlag(Tester t) {
+    reset();
+    t.checkExpect(field1.flag(0, 2), true);
+    t.checkExpect(field1.flagCount(), 1);
+    t.checkExpect(field1.reveal(0, 2), 0);
+    t.checkExpect(field1.flagCell(2), false);
+    t.checkExpect(field1.flagCount(), 0);
+    field1.reveal(0, 0);
+    t.checkExpect(field1.flag(0, 0), false);
+    t.checkExpect(field1.flag(5, 0), false);
+    t.checkExpect(field1.flagCount(), 0);
+  }
+
+  // tests that players revealing at the same time count every square exactly once
+  void testPlayers(Tester t) {
+    Minefield solo = new Minefield(200, 200, 2000, new Random(3));
+    Board board = new Board(200, 200);
+    System.arraycopy(solo.board.cells, 0, board.cells, 0, board.cells.length);
+    SharedField shared = new SharedField(board, 2000);
+    // every player clicks every safe square, each in their own order
+    ArrayList<PlayerTask> players = new ArrayList<PlayerTask>();
+    for (int p = 0; p < 8; p++) {
+      Random rand = new Random(p);
+      int[] moves = new int[board.size()];
+      for (int i = 0; i < moves.length; i++) {
+        moves[i] = i;
+      }
+      for (int i = moves.length - 1; i > 0; i--) {
+        int j = rand.nextInt(i + 1);
+        int swap = moves[i];
+        moves[i] = moves[j];
+        moves[j] = swap;
+      }
+      int safe = 0;
+      for (int i = 0; i < moves.length; i++) {
+        if (!board.isMine(moves[i])) {
+          moves[safe] = moves[i];
+          safe++;
+        }
+      }
+      players.add(new PlayerTask(shared, Arrays.copyOf(moves, safe)));
+    }
+    ForkJoinTask.invokeAll(players);
+    int total = 0;
+    for (PlayerTask player : players) {
+      total += player.join();
+    }
+    t.checkExpect(total, 38000);
+    t.checkExpect(shared.revealedCount(), 38000);
+    t.checkExpect(shared.status(), GameStatus.WON);
+  }
+}
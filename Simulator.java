@@ -0,0 +1,238 @@
+import tester.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// a way of playing MineSweeper without looking at where the mines are
+interface IStrategy {
+  // returns the index of the next square to reveal in the given game, which has to
+  // be a square that is neither revealed nor flagged
+  int nextMove(Minefield field, Random rand);
+}
+
+// a strategy that reveals a square picked at random from the ones left
+class RandomStrategy implements IStrategy {
+
+  // picks squares at random until it finds one that can still be revealed
+  public int nextMove(Minefield field, Random rand) {
+    Board board = field.board;
+    int idx = rand.nextInt(board.size());
+    while (board.isRevealed(idx) || board.isFlagged(idx)) {
+      idx = rand.nextInt(board.size());
+    }
+    return idx;
+  }
+}
+
+// representing the totals of a number of simulated games
+class SimulationResult {
+  long games;
+  long wins;
+  long revealed;
+  long openings;
+  long openingCells;
+  long nanos;
+
+  // basic constructor for the totals of no games
+  SimulationResult() {
+    this(0, 0, 0, 0, 0, 0);
+  }
+
+  // constructor for the given totals
+  SimulationResult(long games, long wins, long revealed, long openings, long openingCells,
+      long nanos) {
+    this.games = games;
+    this.wins = wins;
+    this.revealed = revealed;
+    this.openings = openings;
+    this.openingCells = openingCells;
+    this.nanos = nanos;
+  }
+
+  // returns the totals of these games together with the given ones
+  SimulationResult combine(SimulationResult other) {
+    return new SimulationResult(this.games + other.games, this.wins + other.wins,
+        this.revealed + other.revealed, this.openings + other.openings,
+        this.openingCells + other.openingCells, this.nanos + other.nanos);
+  }
+
+  // returns the fraction of the games that were won
+  double winRate() {
+    return this.games == 0 ? 0 : (double) this.wins / this.games;
+  }
+
+  // returns how many squares without a mine were revealed in a game, on average
+  double averageRevealed() {
+    return this.games == 0 ? 0 : (double) this.revealed / this.games;
+  }
+
+  // returns how many squares a move that opened up more than one square revealed,
+  // on average
+  double averageOpening() {
+    return this.openings == 0 ? 0 : (double) this.openingCells / this.openings;
+  }
+
+  // returns how many games were played each second
+  double gamesPerSecond() {
+    return this.nanos == 0 ? 0 : this.games * 1e9 / this.nanos;
+  }
+
+  // describes these totals in a single line
+  String report() {
+    return String.format("%d games, %.4f win rate, %.2f revealed, %.2f opening, %.0f games/s",
+        this.games, this.winRate(), this.averageRevealed(), this.averageOpening(),
+        this.gamesPerSecond());
+  }
+}
+
+// representing a batch of simulated games, split in half until the batches are small
+// enough to play on one thread
+// every batch that is played gets its own Random, seeded from the simulation's seed
+// and the number of its first game, and the batches are always split the same way,
+// so the same seed gives the same totals however many threads play them
+class Simulator extends RecursiveTask<SimulationResult> {
+  private static final long serialVersionUID = 1L;
+  static final int GAMES_PER_TASK = 256;
+
+  int width;
+  int height;
+  int mines;
+  IStrategy strategy;
+  long seed;
+  long from;
+  long to;
+
+  // basic constructor for playing the games numbered from up to to
+  Simulator(int width, int height, int mines, IStrategy strategy, long seed, long from,
+      long to) {
+    this.width = width;
+    this.height = height;
+    this.mines = mines;
+    this.strategy = strategy;
+    this.seed = seed;
+    this.from = from;
+    this.to = to;
+  }
+
+  // plays the given number of games on every core, and returns their totals
+  static SimulationResult simulate(int width, int height, int mines, IStrategy strategy,
+      long games, long seed) {
+    long start = System.nanoTime();
+    SimulationResult result = ForkJoinPool.commonPool()
+        .invoke(new Simulator(width, height, mines, strategy, seed, 0, games));
+    result.nanos = System.nanoTime() - start;
+    return result;
+  }
+
+  // plays the games in this batch, splitting it in half first if it is too big
+  protected SimulationResult compute() {
+    if (this.to - this.from <= GAMES_PER_TASK) {
+      return this.playAll();
+    }
+    long mid = (this.from + this.to) / 2;
+    Simulator left = new Simulator(this.width, this.height, this.mines, this.strategy,
+        this.seed, this.from, mid);
+    Simulator right = new Simulator(this.width, this.height, this.mines, this.strategy,
+        this.seed, mid, this.to);
+    left.fork();
+    SimulationResult result = right.compute();
+    return left.join().combine(result);
+  }
+
+  // plays every game in this batch on this thread
+  SimulationResult playAll() {
+    Random rand = new Random(this.seed * 0x9E3779B97F4A7C15L + this.from);
+    SimulationResult result = new SimulationResult();
+    for (long i = this.from; i < this.to; i++) {
+      this.play(rand, result);
+    }
+    return result;
+  }
+
+  // plays a single game until it is won or lost
+  // EFFECT: Adds the game to the given totals
+  void play(Random rand, SimulationResult result) {
+    Minefield field = new Minefield(this.width, this.height, this.mines, rand);
+    while (field.status() == GameStatus.PLAYING) {
+      int revealed = field.revealCell(this.strategy.nextMove(field, rand));
+      if (revealed > 1) {
+        result.openings++;
+        result.openingCells += revealed;
+      }
+    }
+    result.games++;
+    result.revealed += field.revealedCount();
+    if (field.status() == GameStatus.WON) {
+      result.wins++;
+    }
+  }
+}
+
+class ExamplesSimulator {
+  IStrategy random = new RandomStrategy();
+
+  // tests nextMove on RandomStrategy
+  void testRandomStrategy(Tester t) {
+    Board board = new Board(2, 2);
+    board.placeMine(3);
+    Minefield field = new Minefield(board, 1);
+    field.reveal(0, 0);
+    field.flag(1, 1);
+    Random rand = new Random(1);
+    for (int i = 0; i < 20; i++) {
+      t.checkOneOf(this.random.nextMove(field, rand), 1, 2);
+    }
+  }
+
+  // tests combine, winRate, averageRevealed, averageOpening and gamesPerSecond
+  void testSimulationResult(Tester t) {
+    SimulationResult empty = new SimulationResult();
+    t.checkExpect(empty.winRate(), 0.0);
+    t.checkExpect(empty.averageOpening(), 0.0);
+    t.checkExpect(empty.gamesPerSecond(), 0.0);
+    SimulationResult result = new SimulationResult(4, 1, 30, 2, 10, 2000000000L)
+        .combine(new SimulationResult(4, 3, 10, 3, 20, 2000000000L));
+    t.checkExpect(result.games, 8L);
+    t.checkInexact(result.winRate(), 0.5, 0.001);
+    t.checkInexact(result.averageRevealed(), 5.0, 0.001);
+    t.checkInexact(result.averageOpening(), 6.0, 0.001);
+    t.checkInexact(result.gamesPerSecond(), 2.0, 0.001);
+  }
+
+  // tests play
+  void testPlay(Tester t) {
+    // a field without mines is always won by its first move, which opens all of it
+    SimulationResult result = new SimulationResult();
+    new Simulator(5, 4, 0, this.random, 1, 0, 1).play(new Random(2), result);
+    t.checkExpect(result.games, 1L);
+    t.checkExpect(result.wins, 1L);
+    t.checkExpect(result.revealed, 20L);
+    t.checkExpect(result.openings, 1L);
+    t.checkExpect(result.openingCells, 20L);
+    // a field of mines but one is only won if that square is picked first
+    result = new SimulationResult();
+    new Simulator(2, 2, 3, this.random, 1, 0, 1).play(new Random(2), result);
+    t.checkExpect(result.games, 1L);
+    t.checkExpect(result.openings, 0L);
+    t.checkOneOf(result.revealed, 0L, 1L);
+  }
+
+  // tests simulate and compute
+  void testSimulate(Tester t) {
+    SimulationResult result1 = Simulator.simulate(9, 9, 10, this.random, 2000, 7);
+    SimulationResult result2 = Simulator.simulate(9, 9, 10, this.random, 2000, 7);
+    t.checkExpect(result1.games, 2000L);
+    // the same seed always gives the same totals
+    t.checkExpect(result1.wins, result2.wins);
+    t.checkExpect(result1.revealed, result2.revealed);
+    t.checkExpect(result1.openingCells, result2.openingCells);
+    t.checkNumRange(result1.winRate(), 0.0, 1.0);
+    t.checkExpect(result1.gamesPerSecond() > 0, true);
+    // the batches played one at a time add up to the same totals
+    SimulationResult result3 = new Simulator(9, 9, 10, this.random, 7, 0, 2000).compute();
+    t.checkExpect(result3.wins, result1.wins);
+    t.checkExpect(result3.revealed, result1.revealed);
+    t.checkExpect(Simulator.simulate(9, 9, 10, this.random, 0, 7).games, 0L);
+  }
+}
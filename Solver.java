@@ -0,0 +1,516 @@
+import tester.*;
+
+import java.util.Random;
+
+// representing a solver that finds the squares of a Board that are certain to be safe
+// or certain to be mines, from the numbers that have been revealed
+// flags are the player's guesses and can be wrong, so a flagged square is as unknown
+// as any other hidden square, and only the mines the solver found itself are known
+// the solver listens to the Board, and every change queues up the revealed squares
+// around it to be looked at again, so asking for hints only looks at what changed
+// since the last time instead of the whole Board
+// each revealed number is checked on its own (no mines left, or as many mines left
+// as unknown squares), and against every revealed number near it whose unknown
+// squares are a subset or superset of its own
+class Solver implements IBoardListener {
+  // marks a square found to be safe
+  static final byte SAFE = 1;
+  // marks a square found to be a mine
+  static final byte MINE = 2;
+
+  Board board;
+  byte[] deduced;
+  IntQueue safe;
+  IntQueue mines;
+  IntQueue work;
+  boolean[] queued;
+  boolean[] frontier;
+  int frontierSize;
+  int[] unknownA;
+  int[] unknownB;
+
+  // basic constructor for a Solver that follows the changes to the given Board
+  // the Board is looked over once here, and only the changes to it after that
+  Solver(Board board) {
+    this.board = board;
+    this.deduced = new byte[board.size()];
+    this.safe = new IntQueue();
+    this.mines = new IntQueue();
+    this.work = new IntQueue();
+    this.queued = new boolean[board.size()];
+    this.frontier = new boolean[board.size()];
+    this.frontierSize = 0;
+    this.unknownA = new int[8];
+    this.unknownB = new int[8];
+    for (int i = 0; i < board.size(); i++) {
+      if (board.isRevealed(i)) {
+        this.enqueue(i);
+      }
+      this.updateFrontier(i);
+    }
+    board.listeners.add(this);
+  }
+
+  // queues up the revealed squares whose unknown squares may have changed, and
+  // updates the frontier around the square at the given index
+  // EFFECT: Adds to the work queue and changes the frontier
+  public void cellChanged(int idx) {
+    int row = idx / this.board.width;
+    int col = idx % this.board.width;
+    int lastRow = Math.min(row + 1, this.board.height - 1);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, this.board.width - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int n = this.board.index(r, firstCol); n <= this.board.index(r, lastCol); n++) {
+        if (this.board.isRevealed(n)) {
+          this.enqueue(n);
+        }
+        this.updateFrontier(n);
+      }
+    }
+  }
+
+  // queues up the square at the given index to be looked at, if it isn't already
+  // EFFECT: Adds the index to the work queue
+  void enqueue(int idx) {
+    if (!this.queued[idx]) {
+      this.queued[idx] = true;
+      this.work.add(idx);
+    }
+  }
+
+  // works out whether the square at the given index is on the frontier, that is
+  // hidden, flagged or not, and next to a revealed square
+  // EFFECT: Changes the frontier and its size
+  void updateFrontier(int idx) {
+    boolean now = !this.board.isRevealed(idx) && this.nextToRevealed(idx);
+    if (now != this.frontier[idx]) {
+      this.frontier[idx] = now;
+      this.frontierSize += now ? 1 : -1;
+    }
+  }
+
+  // is the square at the given index next to a revealed square?
+  boolean nextToRevealed(int idx) {
+    int row = idx / this.board.width;
+    int col = idx % this.board.width;
+    int lastRow = Math.min(row + 1, this.board.height - 1);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, this.board.width - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int n = this.board.index(r, firstCol); n <= this.board.index(r, lastCol); n++) {
+        if (n != idx && this.board.isRevealed(n)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // is the square at the given index still unknown, that is hidden and not yet found
+  // to be safe or a mine, whether or not it is flagged?
+  boolean isUnknown(int idx) {
+    return !this.board.isRevealed(idx) && this.deduced[idx] == 0;
+  }
+
+  // is the square at the given index known to be a mine, because it has been found to
+  // be one, or was revealed as one?
+  boolean isKnownMine(int idx) {
+    return this.deduced[idx] == MINE || (this.board.isRevealed(idx) && this.board.isMine(idx));
+  }
+
+  // puts the unknown squares next to the given index into the given array in order
+  // of index, and returns how many there are
+  // EFFECT: Overwrites the start of the array
+  int unknownAround(int idx, int[] out) {
+    int count = 0;
+    int row = idx / this.board.width;
+    int col = idx % this.board.width;
+    int lastRow = Math.min(row + 1, this.board.height - 1);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, this.board.width - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int n = this.board.index(r, firstCol); n <= this.board.index(r, lastCol); n++) {
+        if (n != idx && this.isUnknown(n)) {
+          out[count] = n;
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  // returns how many of the mines next to the given index are not yet known
+  int minesLeft(int idx) {
+    int known = 0;
+    int row = idx / this.board.width;
+    int col = idx % this.board.width;
+    int lastRow = Math.min(row + 1, this.board.height - 1);
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, this.board.width - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int n = this.board.index(r, firstCol); n <= this.board.index(r, lastCol); n++) {
+        if (n != idx && this.isKnownMine(n)) {
+          known++;
+        }
+      }
+    }
+    return this.board.adjacentMines(idx) - known;
+  }
+
+  // works through the queued squares until there is nothing left to learn from them
+  // EFFECT: Empties the work queue, and records every square found to be safe or a mine
+  void solve() {
+    while (!this.work.isEmpty()) {
+      int idx = this.work.remove();
+      this.queued[idx] = false;
+      this.examine(idx);
+    }
+  }
+
+  // learns what it can from the revealed number at the given index, on its own and
+  // together with the revealed numbers up to two squares away
+  // EFFECT: Records the squares found to be safe or mines
+  void examine(int idx) {
+    if (!this.board.isRevealed(idx) || this.board.isMine(idx)) {
+      return;
+    }
+    int count = this.unknownAround(idx, this.unknownA);
+    if (count == 0) {
+      return;
+    }
+    int left = this.minesLeft(idx);
+    if (left == 0 || left == count) {
+      this.markAll(this.unknownA, count, left == 0 ? SAFE : MINE);
+      return;
+    }
+    int row = idx / this.board.width;
+    int col = idx % this.board.width;
+    int lastRow = Math.min(row + 2, this.board.height - 1);
+    int firstCol = Math.max(col - 2, 0);
+    int lastCol = Math.min(col + 2, this.board.width - 1);
+    for (int r = Math.max(row - 2, 0); r <= lastRow; r++) {
+      for (int n = this.board.index(r, firstCol); n <= this.board.index(r, lastCol); n++) {
+        if (n != idx && this.board.isRevealed(n) && !this.board.isMine(n)) {
+          int other = this.unknownAround(n, this.unknownB);
+          boolean found = false;
+          if (other > count && this.isSubset(this.unknownA, count, this.unknownB, other)) {
+            found = this.markRest(this.unknownB, other, this.unknownA, count,
+                this.minesLeft(n) - left);
+          }
+          else if (other > 0 && other < count
+              && this.isSubset(this.unknownB, other, this.unknownA, count)) {
+            found = this.markRest(this.unknownA, count, this.unknownB, other,
+                left - this.minesLeft(n));
+          }
+          if (found) {
+            this.enqueue(idx);
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  // are the first small squares of the first array all among the first big squares
+  // of the second? both are in order of index
+  boolean isSubset(int[] small, int smallCount, int[] big, int bigCount) {
+    int j = 0;
+    for (int i = 0; i < smallCount; i++) {
+      while (j < bigCount && big[j] < small[i]) {
+        j++;
+      }
+      if (j == bigCount || big[j] != small[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // given that the given number of mines are among the squares in big but not in
+  // small, marks them all safe if there are none or all mines if every one of them
+  // must be, and returns whether it marked any
+  // EFFECT: Records the squares found to be safe or mines
+  boolean markRest(int[] big, int bigCount, int[] small, int smallCount, int left) {
+    int rest = bigCount - smallCount;
+    if (left != 0 && left != rest) {
+      return false;
+    }
+    int j = 0;
+    for (int i = 0; i < bigCount; i++) {
+      if (j < smallCount && small[j] == big[i]) {
+        j++;
+      }
+      else {
+        this.mark(big[i], left == 0 ? SAFE : MINE);
+      }
+    }
+    return true;
+  }
+
+  // marks the first count squares of the given array as the given kind
+  // EFFECT: Records the squares found to be safe or mines
+  void markAll(int[] squares, int count, byte kind) {
+    for (int i = 0; i < count; i++) {
+      this.mark(squares[i], kind);
+    }
+  }
+
+  // records that the square at the given index is safe or a mine, and queues up the
+  // revealed squares next to it, which now know more
+  // EFFECT: Changes what is known about the square, and adds to the work queue
+  void mark(int idx, byte kind) {
+    if (this.deduced[idx] != 0) {
+      return;
+    }
+    this.deduced[idx] = kind;
+    if (kind == SAFE) {
+      this.safe.add(idx);
+    }
+    else {
+      this.mines.add(idx);
+    }
+    this.cellChanged(idx);
+  }
+
+  // returns every hidden square that is certain to be safe
+  // EFFECT: Brings what is known up to date with the Board
+  int[] safeCells() {
+    this.solve();
+    return this.stillHidden(this.safe);
+  }
+
+  // returns every hidden, unflagged square that is certain to be a mine
+  // EFFECT: Brings what is known up to date with the Board
+  int[] mineCells() {
+    this.solve();
+    return this.stillHidden(this.mines);
+  }
+
+  // returns the squares in the given queue that are neither revealed nor flagged
+  int[] stillHidden(IntQueue squares) {
+    int count = 0;
+    int[] result = new int[squares.size];
+    for (int i = 0; i < squares.size; i++) {
+      int idx = squares.get(i);
+      if (!this.board.isRevealed(idx) && !this.board.isFlagged(idx)) {
+        result[count] = idx;
+        count++;
+      }
+    }
+    int[] trimmed = new int[count];
+    System.arraycopy(result, 0, trimmed, 0, count);
+    return trimmed;
+  }
+
+  // returns a hidden square that is certain to be safe, or -1 if there aren't any
+  // EFFECT: Brings what is known up to date with the Board, and forgets the safe
+  // squares that have been revealed since they were found
+  int nextSafe() {
+    this.solve();
+    while (!this.safe.isEmpty()) {
+      int idx = this.safe.get(0);
+      if (!this.board.isRevealed(idx) && !this.board.isFlagged(idx)) {
+        return idx;
+      }
+      this.safe.remove();
+    }
+    return -1;
+  }
+
+  // reveals safe squares of the given game, which has to be played on this Solver's
+  // Board, until it is won or nothing more is certain, and returns how many moves it
+  // made
+  // EFFECT: Reveals squares of the game
+  int autoPlay(Minefield field) {
+    int moves = 0;
+    int idx = this.nextSafe();
+    while (idx >= 0 && field.status() == GameStatus.PLAYING) {
+      field.revealCell(idx);
+      moves++;
+      idx = this.nextSafe();
+    }
+    return moves;
+  }
+}
+
+class ExamplesSolver {
+  Board board;
+  Solver solver;
+
+  // when called, sets the examples to their original implementations
+  // in order to get rid of any mutation done on them
+  void reset() {
+    // 4x3 board with mines at (0, 0) and (2, 3)
+    // 0 | * 1 0 0
+    // 1 | 1 1 1 1
+    // 2 | 0 0 1 *
+    board = new Board(4, 3);
+    board.placeMine(board.index(0, 0));
+    board.placeMine(board.index(2, 3));
+    solver = new Solver(board);
+  }
+
+  // tests the constructor, which looks over what is already revealed
+  void testConstructor(Tester t) {
+    reset();
+    t.checkExpect(board.listeners.contains(solver), true);
+    t.checkExpect(solver.work.isEmpty(), true);
+    t.checkExpect(solver.frontierSize, 0);
+    board.reveal(board.index(0, 3));
+    Solver late = new Solver(board);
+    t.checkExpect(late.work.size, 6);
+    t.checkExpect(late.frontierSize, 6);
+  }
+
+  // tests cellChanged, enqueue, updateFrontier and nextToRevealed
+  void testFrontier(Tester t) {
+    reset();
+    t.checkExpect(solver.nextToRevealed(board.index(0, 1)), false);
+    board.reveal(board.index(1, 0));
+    t.checkExpect(solver.frontierSize, 5);
+    t.checkExpect(solver.frontier[board.index(0, 0)], true);
+    t.checkExpect(solver.frontier[board.index(1, 2)], false);
+    t.checkExpect(solver.work.size, 1);
+    // a flagged square is still hidden, so it stays on the frontier
+    board.setFlagged(board.index(0, 0), true);
+    t.checkExpect(solver.frontier[board.index(0, 0)], true);
+    t.checkExpect(solver.frontierSize, 5);
+    t.checkExpect(solver.work.size, 1);
+    // the opening reveals (1, 1), (1, 2), (2, 1) and (2, 2) as well
+    board.reveal(board.index(2, 0));
+    t.checkExpect(solver.frontierSize, 6);
+    t.checkExpect(solver.frontier[board.index(0, 3)], true);
+    t.checkExpect(solver.frontier[board.index(1, 1)], false);
+    t.checkExpect(solver.nextToRevealed(board.index(0, 1)), true);
+  }
+
+  // tests unknownAround, minesLeft, isUnknown and isKnownMine
+  void testCounting(Tester t) {
+    reset();
+    int[] out = new int[8];
+    t.checkExpect(solver.unknownAround(board.index(1, 1), out), 8);
+    t.checkExpect(out[0], 0);
+    board.setFlagged(0, true);
+    board.reveal(board.index(1, 0));
+    // flags aren't trusted, so a flagged square is still unknown
+    t.checkExpect(solver.isUnknown(0), true);
+    t.checkExpect(solver.isKnownMine(0), false);
+    t.checkExpect(solver.unknownAround(board.index(1, 1), out), 7);
+    t.checkExpect(solver.minesLeft(board.index(1, 1)), 1);
+    solver.mark(0, Solver.MINE);
+    t.checkExpect(solver.isUnknown(0), false);
+    t.checkExpect(solver.isKnownMine(0), true);
+    t.checkExpect(solver.unknownAround(board.index(1, 1), out), 6);
+    t.checkExpect(solver.minesLeft(board.index(1, 1)), 0);
+    t.checkExpect(solver.minesLeft(board.index(1, 2)), 1);
+  }
+
+  // tests solve, examine and markAll on single numbers
+  void testSinglePoint(Tester t) {
+    reset();
+    // the 1 at (1, 0) has only one hidden neighbor left once the others are open
+    board.reveal(board.index(2, 0));
+    board.reveal(board.index(0, 1));
+    solver.solve();
+    t.checkExpect(solver.deduced[board.index(0, 0)], Solver.MINE);
+    // with that mine known, the 1s next to it have no mines left
+    t.checkExpect(solver.deduced[board.index(0, 2)], Solver.SAFE);
+    // and the 1 at (2, 2) takes up the mine the 1 at (1, 2) needs
+    t.checkExpect(solver.deduced[board.index(0, 3)], Solver.SAFE);
+    t.checkExpect(solver.deduced[board.index(1, 3)], (byte) 0);
+    t.checkExpect(solver.deduced[board.index(2, 3)], (byte) 0);
+    t.checkExpect(solver.work.isEmpty(), true);
+  }
+
+  // tests examine, isSubset and markRest on pairs of numbers
+  void testSubset(Tester t) {
+    // 1 1 on a wall of three hidden squares: the square past the second 1 is safe
+    // 0 | ? ? ?
+    // 1 | 1 1 ?
+    // 2 | 0 0 ?
+    Board pair = new Board(3, 3);
+    pair.placeMine(pair.index(0, 0));
+    Solver pairs = new Solver(pair);
+    pair.cells[pair.index(1, 0)] |= Board.REVEALED;
+    pair.cells[pair.index(1, 1)] |= Board.REVEALED;
+    pair.cells[pair.index(2, 0)] |= Board.REVEALED;
+    pair.cells[pair.index(2, 1)] |= Board.REVEALED;
+    pairs.enqueue(pair.index(1, 0));
+    pairs.enqueue(pair.index(1, 1));
+    pairs.solve();
+    t.checkExpect(pairs.deduced[pair.index(0, 2)], Solver.SAFE);
+    t.checkExpect(pairs.deduced[pair.index(1, 2)], Solver.SAFE);
+    t.checkExpect(pairs.deduced[pair.index(2, 2)], Solver.SAFE);
+    t.checkExpect(pairs.deduced[pair.index(0, 0)], (byte) 0);
+
+    reset();
+    t.checkExpect(solver.isSubset(new int[] { 1, 4 }, 2, new int[] { 1, 2, 4 }, 3), true);
+    t.checkExpect(solver.isSubset(new int[] { 1, 5 }, 2, new int[] { 1, 2, 4 }, 3), false);
+    t.checkExpect(solver.isSubset(new int[] { 0 }, 0, new int[] { 3 }, 1), true);
+    reset();
+    t.checkExpect(solver.markRest(new int[] { 1, 2, 4 }, 3, new int[] { 2 }, 1, 1), false);
+    t.checkExpect(solver.markRest(new int[] { 1, 2, 4 }, 3, new int[] { 2 }, 1, 2), true);
+    t.checkExpect(solver.deduced[1], Solver.MINE);
+    t.checkExpect(solver.deduced[2], (byte) 0);
+    t.checkExpect(solver.deduced[4], Solver.MINE);
+  }
+
+  // tests mark, safeCells, mineCells and stillHidden
+  void testHints(Tester t) {
+    reset();
+    board.reveal(board.index(2, 0));
+    board.reveal(board.index(0, 1));
+    t.checkExpect(solver.mineCells(), new int[] { board.index(0, 0) });
+    t.checkExpect(solver.safeCells(), new int[] { 2, 3 });
+    // the opening at (0, 2) reveals the 1 at (1, 3), which finds the other mine
+    board.reveal(2);
+    board.setFlagged(0, true);
+    t.checkExpect(solver.mineCells(), new int[] { 11 });
+    t.checkExpect(solver.safeCells(), new int[0]);
+    solver.mark(11, Solver.SAFE);
+    t.checkExpect(solver.deduced[11], Solver.MINE);
+  }
+
+  // tests nextSafe and autoPlay
+  void testAutoPlay(Tester t) {
+    reset();
+    t.checkExpect(solver.nextSafe(), -1);
+    Minefield field = new Minefield(board, 2);
+    field.reveal(2, 0);
+    t.checkExpect(solver.autoPlay(field), 1);
+    t.checkExpect(field.status(), GameStatus.WON);
+    t.checkExpect(solver.nextSafe(), -1);
+
+    // a large game is played as far as it can go without ever hitting a mine
+    Minefield big = new Minefield(300, 300, 9000, new Random(8));
+    Solver bigSolver = new Solver(big.board);
+    big.revealCell(OpeningIndex.largestStart(big.board));
+    t.checkExpect(bigSolver.autoPlay(big) > 0, true);
+    t.checkExpect(big.status() == GameStatus.LOST, false);
+    t.checkExpect(bigSolver.nextSafe(), -1);
+    t.checkExpect(bigSolver.work.isEmpty(), true);
+  }
+
+  // tests that a wrong flag never leads the solver to a mine
+  void testWrongFlag(Tester t) {
+    // 5x1 board with a mine at the right end, and the 1 next to it revealed
+    // 0 | 0 0 0 1 *
+    Board row = new Board(5, 1);
+    row.placeMine(4);
+    Solver rowSolver = new Solver(row);
+    Minefield field = new Minefield(row, 1);
+    field.revealCell(3);
+    field.flagCell(2);
+    t.checkExpect(rowSolver.safeCells(), new int[0]);
+    t.checkExpect(rowSolver.mineCells(), new int[0]);
+    field.flagCell(2);
+    t.checkExpect(rowSolver.safeCells(), new int[0]);
+    t.checkExpect(rowSolver.autoPlay(field), 0);
+    t.checkExpect(field.status(), GameStatus.PLAYING);
+    // once the square is opened, the mine is found from the numbers alone
+    field.revealCell(2);
+    t.checkExpect(rowSolver.mineCells(), new int[] { 4 });
+    t.checkExpect(field.status(), GameStatus.WON);
+  }
+}
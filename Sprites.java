@@ -0,0 +1,133 @@
+import tester.*;
+import javalib.worldimages.*;
+
+import java.awt.Color;
+
+// representing the images of every way a square of the field can look
+// each image is built once, when the class is loaded, and then shared by every Cell,
+// every BoardRenderer and every frame, so drawing a square never allocates
+class Sprites {
+  static final WorldImage MINE = new CircleImage(5, OutlineMode.SOLID, Color.RED);
+  static final WorldImage FLAG = new CircleImage(5, OutlineMode.SOLID, Color.GREEN);
+  static final WorldImage CLICKED_CELL = new FrameImage(
+      new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.DARK_GRAY));
+  static final WorldImage UNCLICKED_CELL = new FrameImage(
+      new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY));
+  static final Color[] COLORS = { Color.BLUE, Color.GREEN, Color.RED, Color.MAGENTA,
+      Color.ORANGE, Color.CYAN, Color.BLACK, Color.GRAY };
+
+  // a hidden square, a flagged square and a revealed mine
+  static final WorldImage HIDDEN = UNCLICKED_CELL;
+  static final WorldImage FLAGGED = Cell.drawClickedCell(FLAG, UNCLICKED_CELL);
+  static final WorldImage REVEALED_MINE = Cell.drawClickedCell(MINE, CLICKED_CELL);
+  // revealed squares without a mine, by the number of mines next to them
+  static final WorldImage[] NUMBERS = Sprites.makeNumbers();
+  // every square, by its packed Board state
+  static final WorldImage[] BY_STATE = Sprites.makeStates();
+
+  // builds the images of a revealed square with 0 to 8 mines next to it
+  static WorldImage[] makeNumbers() {
+    WorldImage[] numbers = new WorldImage[COLORS.length + 1];
+    numbers[0] = CLICKED_CELL;
+    for (int i = 1; i < numbers.length; i++) {
+      numbers[i] = Cell.drawClickedCell(new TextImage(Integer.toString(i), COLORS[i - 1]),
+          CLICKED_CELL);
+    }
+    return numbers;
+  }
+
+  // builds the image of every packed Board state
+  // counts above 8 can't happen, and are drawn as hidden squares
+  static WorldImage[] makeStates() {
+    WorldImage[] states = new WorldImage[Board.REVEALED << 1];
+    for (int s = 0; s < states.length; s++) {
+      int mines = s & Board.ADJACENT;
+      if (mines < NUMBERS.length) {
+        states[s] = Sprites.forSquare((s & Board.MINE) != 0, (s & Board.FLAG) != 0,
+            (s & Board.REVEALED) != 0, mines);
+      }
+      else {
+        states[s] = HIDDEN;
+      }
+    }
+    return states;
+  }
+
+  // returns the image of a square with the given state
+  static WorldImage forSquare(boolean isMine, boolean isFlagged, boolean isRevealed,
+      int mines) {
+    if (isFlagged) {
+      return FLAGGED;
+    }
+    else if (isRevealed && isMine) {
+      return REVEALED_MINE;
+    }
+    else if (isRevealed) {
+      return NUMBERS[mines];
+    }
+    else {
+      return HIDDEN;
+    }
+  }
+
+  // returns the image of a square with the given packed Board state
+  static WorldImage forState(byte state) {
+    return BY_STATE[state];
+  }
+}
+
+class ExamplesSprites {
+  WorldImage unclicked = new FrameImage(
+      new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.GRAY));
+  WorldImage clicked = new FrameImage(
+      new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID, Color.DARK_GRAY));
+
+  // tests makeNumbers
+  void testMakeNumbers(Tester t) {
+    WorldImage[] numbers = Sprites.makeNumbers();
+    t.checkExpect(numbers.length, 9);
+    t.checkExpect(numbers[0], clicked);
+    t.checkExpect(numbers[1], new OverlayImage(new TextImage("1", Color.BLUE), clicked));
+    t.checkExpect(numbers[5], new OverlayImage(new TextImage("5", Color.ORANGE), clicked));
+    t.checkExpect(numbers[8], new OverlayImage(new TextImage("8", Color.GRAY), clicked));
+  }
+
+  // tests makeStates
+  void testMakeStates(Tester t) {
+    WorldImage[] states = Sprites.makeStates();
+    t.checkExpect(states.length, 128);
+    t.checkExpect(states[0], unclicked);
+    t.checkExpect(states[Board.MINE | 3], unclicked);
+    t.checkExpect(states[Board.FLAG | Board.MINE], new OverlayImage(
+        new CircleImage(5, OutlineMode.SOLID, Color.GREEN), unclicked));
+    t.checkExpect(states[Board.REVEALED | 2],
+        new OverlayImage(new TextImage("2", Color.GREEN), clicked));
+    t.checkExpect(states[Board.REVEALED | Board.MINE | 1],
+        new OverlayImage(new CircleImage(5, OutlineMode.SOLID, Color.RED), clicked));
+    t.checkExpect(states[Board.REVEALED | 12], unclicked);
+  }
+
+  // tests forSquare
+  void testForSquare(Tester t) {
+    t.checkExpect(Sprites.forSquare(false, false, false, 3), unclicked);
+    t.checkExpect(Sprites.forSquare(true, true, false, 0),
+        new OverlayImage(new CircleImage(5, OutlineMode.SOLID, Color.GREEN), unclicked));
+    t.checkExpect(Sprites.forSquare(false, false, true, 0), clicked);
+    t.checkExpect(Sprites.forSquare(false, false, true, 4),
+        new OverlayImage(new TextImage("4", Color.MAGENTA), clicked));
+    t.checkExpect(Sprites.forSquare(true, false, true, 2),
+        new OverlayImage(new CircleImage(5, OutlineMode.SOLID, Color.RED), clicked));
+    // the same image is shared by every square that looks the same
+    t.checkExpect(Sprites.forSquare(false, false, true, 4) == Sprites.NUMBERS[4], true);
+    t.checkExpect(Sprites.forSquare(false, true, false, 4) == Sprites.FLAGGED, true);
+  }
+
+  // tests forState
+  void testForState(Tester t) {
+    t.checkExpect(Sprites.forState((byte) 0) == Sprites.HIDDEN, true);
+    t.checkExpect(Sprites.forState((byte) (Board.REVEALED | 6)) == Sprites.NUMBERS[6], true);
+    t.checkExpect(Sprites.forState((byte) (Board.REVEALED | Board.MINE)) == Sprites.REVEALED_MINE,
+        true);
+    t.checkExpect(Sprites.forState((byte) (Board.FLAG | 1)) == Sprites.FLAGGED, true);
+  }
+}